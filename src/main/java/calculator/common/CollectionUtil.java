@@ -21,10 +21,9 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -56,24 +55,134 @@ public class CollectionUtil {
 
 
     /**
-     * Sort the collection or array.
+     * Sort the collection or array by the key of element, the key of each element is computed only once,
+     * and the null key is always placed last. The sort is stable.
      *
-     * @param listOrArray the collection/array
-     * @param comparator  the comparator to determine the order of the collection/array
+     * @param listOrArray  the collection/array
+     * @param keyExtractor the function to compute the sort key of element
+     * @param reversed     whether sort by descending order
      */
-    public static void sortListOrArray(Object listOrArray, Comparator<Object> comparator) {
+    public static void sortListOrArrayByKey(Object listOrArray, Function<Object, Object> keyExtractor, boolean reversed) {
+        Object[] elements;
+        if (listOrArray instanceof Collection) {
+            elements = ((Collection<?>) listOrArray).toArray();
+        } else if (listOrArray.getClass().isArray()) {
+            elements = (Object[]) listOrArray;
+        } else {
+            throw new IllegalArgumentException("Unsupported object type: " + listOrArray.getClass().getName());
+        }
+
+        int size = elements.length;
+        if (size < 2) {
+            return;
+        }
+
+        // decorate: compute the key of each element exactly once.
+        Object[] keys = new Object[size];
+        boolean allIntegral = true;
+        boolean allFloating = true;
+        for (int i = 0; i < size; i++) {
+            Object key = keyExtractor.apply(elements[i]);
+            keys[i] = key;
+            if (key != null) {
+                allIntegral &= key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte;
+                allFloating &= key instanceof Double || key instanceof Float;
+            }
+        }
+
+        // null keys are kept in original order behind the sorted non-null keys.
+        int[] indexes = new int[size];
+        int nonNullCount = 0;
+        int nullIndex = size;
+        for (int i = size - 1; i >= 0; i--) {
+            if (keys[i] == null) {
+                indexes[--nullIndex] = i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != null) {
+                indexes[nonNullCount++] = i;
+            }
+        }
+
+        IndexComparator indexComparator;
+        if (allIntegral) {
+            long[] longKeys = new long[size];
+            for (int i = 0; i < size; i++) {
+                longKeys[i] = keys[i] == null ? 0L : ((Number) keys[i]).longValue();
+            }
+            indexComparator = (i1, i2) -> Long.compare(longKeys[i1], longKeys[i2]);
+        } else if (allFloating) {
+            double[] doubleKeys = new double[size];
+            for (int i = 0; i < size; i++) {
+                doubleKeys[i] = keys[i] == null ? 0D : ((Number) keys[i]).doubleValue();
+            }
+            indexComparator = (i1, i2) -> Double.compare(doubleKeys[i1], doubleKeys[i2]);
+        } else {
+            indexComparator = (i1, i2) -> ((Comparable<Object>) keys[i1]).compareTo(keys[i2]);
+        }
+        if (reversed) {
+            IndexComparator ascending = indexComparator;
+            indexComparator = (i1, i2) -> ascending.compare(i2, i1);
+        }
+        sortIndexes(indexes, new int[nonNullCount], 0, nonNullCount, indexComparator);
+
+        // undecorate: permute the elements by sorted indexes.
+        Object[] sortedElements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            sortedElements[i] = elements[indexes[i]];
+        }
+
         if (listOrArray instanceof List) {
-            Collections.sort((List<Object>) listOrArray, comparator);
+            ListIterator<Object> iterator = ((List<Object>) listOrArray).listIterator();
+            for (Object element : sortedElements) {
+                iterator.next();
+                iterator.set(element);
+            }
         } else if (listOrArray instanceof Collection) {
-            List<Object> list = new ArrayList<>((Collection) listOrArray);
-            Collections.sort(list, comparator);
             Collection<Object> collection = (Collection) listOrArray;
             collection.clear();
-            collection.addAll(list);
-        } else if (listOrArray.getClass().isArray()) {
-            Arrays.sort((Object[]) listOrArray, comparator);
+            collection.addAll(Arrays.asList(sortedElements));
         } else {
-            throw new IllegalArgumentException("Unsupported object type: " + listOrArray.getClass().getName());
+            System.arraycopy(sortedElements, 0, elements, 0, size);
+        }
+    }
+
+    private interface IndexComparator {
+        int compare(int index1, int index2);
+    }
+
+    // stable merge sort of the indexes in [from, to), the indexes are not boxed.
+    private static void sortIndexes(int[] indexes, int[] buffer, int from, int to, IndexComparator comparator) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int current = indexes[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(indexes[j], current) > 0) {
+                    indexes[j + 1] = indexes[j];
+                    j--;
+                }
+                indexes[j + 1] = current;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        sortIndexes(indexes, buffer, from, mid, comparator);
+        sortIndexes(indexes, buffer, mid, to, comparator);
+        if (comparator.compare(indexes[mid - 1], indexes[mid]) <= 0) {
+            return;
+        }
+
+        System.arraycopy(indexes, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                indexes[i] = buffer[left++];
+            } else {
+                indexes[i] = buffer[right++];
+            }
         }
     }
 
@@ -18,6 +18,7 @@ package calculator.common;
 
 import calculator.engine.ObjectMapper;
 import calculator.engine.annotation.Internal;
+import calculator.engine.script.CompiledScript;
 import graphql.Assert;
 import graphql.execution.ResultPath;
 import graphql.language.Argument;
@@ -150,28 +151,26 @@ public class CommonUtil {
 
     // 获取当前字段的查询路径，使用 '.' 分割
     public static String fieldPath(final ResultPath stepInfo) {
-        StringBuilder sb = new StringBuilder();
-        ResultPath tmpEnv = stepInfo;
-        while (tmpEnv != null) {
+        // collect the segments from bottom to top, and append them in reverse order.
+        List<String> segmentNames = new ArrayList<>();
+        for (ResultPath tmpEnv = stepInfo; tmpEnv != null; tmpEnv = tmpEnv.getParent()) {
             if (!tmpEnv.isNamedSegment()) {
-                tmpEnv = tmpEnv.getParent();
                 continue;
             }
 
             String segmentName = tmpEnv.getSegmentName();
-            if (segmentName == null || segmentName.length() == 0) {
-                tmpEnv = tmpEnv.getParent();
-                continue;
+            if (segmentName != null && segmentName.length() > 0) {
+                segmentNames.add(segmentName);
             }
+        }
 
-            if (sb.length() == 0) {
-                sb.append(segmentName);
-            } else {
-                sb.insert(0, segmentName + PATH_SEPARATOR);
+        StringBuilder sb = new StringBuilder();
+        for (int i = segmentNames.size() - 1; i >= 0; i--) {
+            if (sb.length() > 0) {
+                sb.append(PATH_SEPARATOR);
             }
-            tmpEnv = tmpEnv.getParent();
+            sb.append(segmentNames.get(i));
         }
-
         return sb.toString();
     }
 
@@ -236,4 +235,59 @@ public class CommonUtil {
         }
     }
 
+    /**
+     * Convert object to script arguments, only the top-level properties used by script will be converted.
+     *
+     * @param objectMapper   objectMapper which used to convert object to script argument
+     * @param object         object
+     * @param compiledScript the script which will use the arguments
+     * @return script argument
+     */
+    public static Object getScriptEnv(ObjectMapper objectMapper, Object object, CompiledScript compiledScript) {
+        if (object == null) {
+            return null;
+        }
+
+        if (CommonUtil.isBasicType(object)) {
+            return Collections.singletonMap("ele", object);
+        }
+
+        Set<String> variableNames = compiledScript.getTopLevelVariableNames();
+        if (variableNames == null) {
+            return objectMapper.toSimpleCollection(object);
+        }
+        return objectMapper.toSimpleCollection(object, variableNames);
+    }
+
+    /**
+     * Get the top-level names of script variables, e.g. 'item' for 'item.price' and 'list' for 'list[0]'.
+     *
+     * @param variableNames the variable names used by script
+     * @return top-level variable names, or null if the script may access the whole environment, such as '__env__'
+     */
+    public static Set<String> topLevelVariableNames(List<String> variableNames) {
+        if (variableNames == null) {
+            return null;
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        for (String variableName : variableNames) {
+            int end = variableName.length();
+            for (int i = 0; i < variableName.length(); i++) {
+                char c = variableName.charAt(i);
+                if (c == '.' || c == '[') {
+                    end = i;
+                    break;
+                }
+            }
+
+            String topLevelName = variableName.substring(0, end);
+            if (topLevelName.isEmpty() || topLevelName.startsWith("__")) {
+                return null;
+            }
+            result.add(topLevelName);
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import calculator.engine.annotation.Internal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The executor used when no executor is specified, e.g. by {@code DefaultConfig} and the async wrapping of DataFetcher.
+ * <p>
+ * It's {@link ForkJoinPool#commonPool()} by default, and a shared virtual-thread-per-task executor
+ * if the system property {@value #VIRTUAL_THREAD_PROPERTY} is true and the runtime is Java 21+.
+ */
+@Internal
+public class DefaultExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultExecutor.class);
+
+    public static final String VIRTUAL_THREAD_PROPERTY = "calculator.executor.virtualThread";
+
+    public static Executor get() {
+        return DefaultExecutorHolder.DEFAULT_EXECUTOR;
+    }
+
+    private static class DefaultExecutorHolder {
+        private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+    }
+
+    private static Executor createDefaultExecutor() {
+        if (!Boolean.getBoolean(VIRTUAL_THREAD_PROPERTY)) {
+            return ForkJoinPool.commonPool();
+        }
+
+        if (!VirtualThreads.isSupported()) {
+            logger.warn("{} is ignored, virtual thread requires Java 21+ runtime.", VIRTUAL_THREAD_PROPERTY);
+            return ForkJoinPool.commonPool();
+        }
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+}
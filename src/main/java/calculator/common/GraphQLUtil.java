@@ -35,7 +35,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.concurrent.ForkJoinPool;
 
 
 @Internal
@@ -210,7 +209,7 @@ public class GraphQLUtil {
 
         return builder.originalFetcher(dataFetcher)
                 .actionFetcher(dataFetcher)
-                .executor(ForkJoinPool.commonPool())
+                .executor(DefaultExecutor.get())
                 .build();
     }
 
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import calculator.engine.annotation.Internal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel which schedules a large number of short timeouts with a single daemon thread.
+ * <p>
+ * Scheduling and cancelling a timeout only enqueue it without any lock, the worker thread moves the
+ * pending timeouts into the buckets and expires a bucket per tick, so the deadline is accurate to a tick.
+ * The tasks are executed on the worker thread and should not block, e.g. hand over to an executor.
+ */
+@Internal
+public class HashedWheelTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private final long tickNanos;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    // the deadlines and ticks are relative to it.
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * @param tickDuration the duration between ticks
+     * @param unit         the unit of tickDuration
+     * @param wheelSize    the number of buckets, which is rounded up to power of two
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive.");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be in (0, 2^30].");
+        }
+
+        this.tickNanos = unit.toNanos(tickDuration);
+        int normalizedSize = 1;
+        while (normalizedSize < wheelSize) {
+            normalizedSize <<= 1;
+        }
+        this.wheel = new Bucket[normalizedSize];
+        for (int i = 0; i < normalizedSize; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = normalizedSize - 1;
+    }
+
+    /**
+     * @return the timer shared by the engine, ticking every 10ms.
+     */
+    public static HashedWheelTimer sharedTimer() {
+        return SharedTimerHolder.SHARED_TIMER;
+    }
+
+    private static class SharedTimerHolder {
+        private static final HashedWheelTimer SHARED_TIMER = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * Schedule the task to be executed once after the delay.
+     *
+     * @param task  the task
+     * @param delay the delay
+     * @param unit  the unit of delay
+     * @return the handle to cancel the task
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        start();
+
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(delay, 0));
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // the worker thread is started when the timer is used.
+    private void start() {
+        if (started.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread worker = new Thread(new Worker(), "calculator-timer-" + THREAD_ID.incrementAndGet());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static class Timeout {
+
+        private final Runnable task;
+
+        // the nanoseconds since the timer started.
+        private final long deadline;
+
+        // only accessed by worker thread.
+        private long remainingRounds;
+
+        // the task is executed or cancelled.
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private volatile boolean expired;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task if it's not executed.
+         *
+         * @return true if the task will not be executed by this timer
+         */
+        public boolean cancel() {
+            return done.compareAndSet(false, true);
+        }
+
+        public boolean isCancelled() {
+            return done.get() && !expired;
+        }
+
+        private void expire() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+
+            expired = true;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("execute timeout task failed.", t);
+                }
+            }
+        }
+    }
+
+    // only accessed by worker thread.
+    private static class Bucket {
+
+        private final ArrayDeque<Timeout> timeouts = new ArrayDeque<>();
+
+        void expire(long deadline) {
+            Iterator<Timeout> iterator = timeouts.iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.done.get()) {
+                    iterator.remove();
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    iterator.remove();
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private long tick;
+
+        @Override
+        public void run() {
+            while (true) {
+                long deadline = waitForNextTick();
+                transferPendingTimeouts();
+                wheel[(int) (tick & mask)].expire(deadline);
+                tick++;
+            }
+        }
+
+        private void transferPendingTimeouts() {
+            Timeout timeout;
+            while ((timeout = pendingTimeouts.poll()) != null) {
+                if (timeout.done.get()) {
+                    continue;
+                }
+
+                long calculatedTick = timeout.deadline / tickNanos;
+                timeout.remainingRounds = (calculatedTick - tick) / wheel.length;
+                // the expired timeouts are put into the current bucket.
+                long ticks = Math.max(calculatedTick, tick);
+                wheel[(int) (ticks & mask)].timeouts.add(timeout);
+            }
+        }
+
+        // return the nanoseconds since the timer started when the tick is reached.
+        private long waitForNextTick() {
+            long deadline = tickNanos * (tick + 1);
+            while (true) {
+                long currentNanos = System.nanoTime() - startNanos;
+                long sleepNanos = deadline - currentNanos;
+                if (sleepNanos <= 0) {
+                    return currentNanos;
+                }
+                LockSupport.parkNanos(sleepNanos);
+            }
+        }
+    }
+}
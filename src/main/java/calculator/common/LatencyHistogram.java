@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import calculator.engine.annotation.Internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, which is accurate to 1/8 of the recorded value.
+ * <p>
+ * The counts are halved when {@code window} values have been recorded since the last halving,
+ * so the percentiles follow the recent latency of downstream.
+ */
+@Internal
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT * (Long.SIZE - SUB_BUCKET_BITS + 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong recordedSinceDecay = new AtomicLong();
+
+    private final long window;
+
+    /**
+     * @param window the number of recorded values after which the counts are halved
+     */
+    public LatencyHistogram(long window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive.");
+        }
+        this.window = window;
+    }
+
+    /**
+     * Record a latency, the negative value is recorded as zero.
+     *
+     * @param latencyMicros the latency in microseconds
+     */
+    public void record(long latencyMicros) {
+        counts.incrementAndGet(bucketIndex(Math.max(0, latencyMicros)));
+        totalCount.incrementAndGet();
+        if (recordedSinceDecay.incrementAndGet() == window) {
+            decay();
+        }
+    }
+
+    /**
+     * @return the approximate number of recorded values, which is halved with the counts.
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Get the latency at the given percentile.
+     *
+     * @param percentile the percentile in (0, 1]
+     * @return the upper bound of the bucket in microseconds, or -1 if nothing is recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1].");
+        }
+
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return -1;
+        }
+
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    // the counts recorded concurrently may be halved as well, which is acceptable for an approximate histogram.
+    private synchronized void decay() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            long halved = count >> 1;
+            // subtract rather than set, to keep the increments which happen after the read.
+            total += counts.addAndGet(i, halved - count);
+        }
+        totalCount.set(total);
+        recordedSinceDecay.set(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT * (exponent - SUB_BUCKET_BITS + 1) + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
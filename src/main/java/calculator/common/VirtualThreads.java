@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import calculator.engine.annotation.Internal;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The virtual thread support of runtime.
+ * <p>
+ * This class is replaced by the one in 'META-INF/versions/21' of the multi-release jar
+ * on Java 21+ runtime, and they must have the same public methods.
+ */
+@Internal
+public class VirtualThreads {
+
+    /**
+     * @return whether the runtime supports virtual thread.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Create an executor which starts a new virtual thread for each task.
+     *
+     * @return the virtual-thread-per-task executor
+     * @throws UnsupportedOperationException if the runtime does not support virtual thread
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        throw new UnsupportedOperationException("virtual thread requires Java 21+ runtime.");
+    }
+}
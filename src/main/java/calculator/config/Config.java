@@ -17,10 +17,14 @@
 package calculator.config;
 
 
+import calculator.engine.BatchLoader;
+import calculator.engine.Bulkhead;
 import calculator.engine.ObjectMapper;
 import calculator.engine.annotation.PublicApi;
 import calculator.engine.script.ScriptEvaluator;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 @PublicApi
@@ -44,4 +48,56 @@ public interface Config {
      * @return Get the thread pool which used in {@link calculator.engine.ExecutionEngine}.
      */
     Executor getExecutor();
+
+    /**
+     * @return the maximum number of parsed documents cached by {@link calculator.engine.ExecutionEngine}.
+     */
+    default long getDocumentCacheMaximumSize() {
+        return DefaultConfig.DEFAULT_DOCUMENT_CACHE_MAXIMUM_SIZE;
+    }
+
+    /**
+     * The weight of a parsed document is estimated by the length of query text.
+     *
+     * @return the maximum total weight of parsed documents cached by {@link calculator.engine.ExecutionEngine}.
+     */
+    default long getDocumentCacheMaximumWeight() {
+        return DefaultConfig.DEFAULT_DOCUMENT_CACHE_MAXIMUM_WEIGHT;
+    }
+
+    /**
+     * The loaders used by the fields annotated by {@code @batch}.
+     *
+     * @return batch loaders by name
+     */
+    default Map<String, BatchLoader> getBatchLoaders() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * The bulkheads used by the fields annotated by {@code @bulkhead} or routed by {@link #getBulkheadByField()}.
+     *
+     * @return bulkheads by name
+     */
+    default Map<String, Bulkhead> getBulkheads() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * The field coordinate is 'typeName.fieldName', e.g. 'Query.itemList'.
+     *
+     * @return the bulkhead name by field coordinate
+     */
+    default Map<String, String> getBulkheadByField() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * The in flight fetches of an execution are cancelled when the execution exceeds the timeout.
+     *
+     * @return the timeout of an execution in milliseconds, the execution never times out if it's not positive.
+     */
+    default long getExecutionTimeoutMillis() {
+        return 0;
+    }
 }
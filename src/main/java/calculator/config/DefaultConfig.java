@@ -16,15 +16,21 @@
  */
 package calculator.config;
 
+import calculator.common.DefaultExecutor;
+import calculator.common.VirtualThreads;
+import calculator.engine.BatchLoader;
+import calculator.engine.Bulkhead;
 import calculator.engine.ObjectMapper;
 import calculator.engine.DefaultObjectMapper;
 import calculator.engine.annotation.PublicApi;
 import calculator.engine.script.AviatorScriptEvaluator;
 import calculator.engine.script.ScriptEvaluator;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ForkJoinPool;
 
 /**
  * The default implementation of {@link Config}.
@@ -38,18 +44,47 @@ public class DefaultConfig implements Config {
 
     private final ScriptEvaluator scriptEvaluator;
 
+    private final long documentCacheMaximumSize;
+
+    private final long documentCacheMaximumWeight;
+
+    private final Map<String, BatchLoader> batchLoaders;
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    private final Map<String, String> bulkheadByField;
+
+    private final long executionTimeoutMillis;
+
     private static final ObjectMapper DEFAULT_MAPPER = new DefaultObjectMapper();
 
-    private static final Executor DEFAULT_EXECUTOR = ForkJoinPool.commonPool();
+    private static final Executor DEFAULT_EXECUTOR = DefaultExecutor.get();
 
     private static final AviatorScriptEvaluator DEFAULT_EVALUATOR = new AviatorScriptEvaluator();
 
+    static final long DEFAULT_DOCUMENT_CACHE_MAXIMUM_SIZE = 2048;
+
+    // about 32M chars of query text.
+    static final long DEFAULT_DOCUMENT_CACHE_MAXIMUM_WEIGHT = 32 * 1024 * 1024;
+
     private DefaultConfig(Executor threadPool,
                           ObjectMapper objectMapper,
-                          ScriptEvaluator scriptEvaluator) {
+                          ScriptEvaluator scriptEvaluator,
+                          Long documentCacheMaximumSize,
+                          Long documentCacheMaximumWeight,
+                          Map<String, BatchLoader> batchLoaders,
+                          Map<String, Bulkhead> bulkheads,
+                          Map<String, String> bulkheadByField,
+                          long executionTimeoutMillis) {
         this.threadPool = threadPool != null ? threadPool : DEFAULT_EXECUTOR;
         this.objectMapper = objectMapper != null ? objectMapper : DEFAULT_MAPPER;
         this.scriptEvaluator = scriptEvaluator != null ? scriptEvaluator : DEFAULT_EVALUATOR;
+        this.documentCacheMaximumSize = documentCacheMaximumSize != null ? documentCacheMaximumSize : DEFAULT_DOCUMENT_CACHE_MAXIMUM_SIZE;
+        this.documentCacheMaximumWeight = documentCacheMaximumWeight != null ? documentCacheMaximumWeight : DEFAULT_DOCUMENT_CACHE_MAXIMUM_WEIGHT;
+        this.batchLoaders = Collections.unmodifiableMap(new LinkedHashMap<>(batchLoaders));
+        this.bulkheads = Collections.unmodifiableMap(new LinkedHashMap<>(bulkheads));
+        this.bulkheadByField = Collections.unmodifiableMap(new LinkedHashMap<>(bulkheadByField));
+        this.executionTimeoutMillis = executionTimeoutMillis;
     }
 
     @Override
@@ -67,6 +102,36 @@ public class DefaultConfig implements Config {
         return threadPool;
     }
 
+    @Override
+    public long getDocumentCacheMaximumSize() {
+        return documentCacheMaximumSize;
+    }
+
+    @Override
+    public long getDocumentCacheMaximumWeight() {
+        return documentCacheMaximumWeight;
+    }
+
+    @Override
+    public Map<String, BatchLoader> getBatchLoaders() {
+        return batchLoaders;
+    }
+
+    @Override
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    @Override
+    public Map<String, String> getBulkheadByField() {
+        return bulkheadByField;
+    }
+
+    @Override
+    public long getExecutionTimeoutMillis() {
+        return executionTimeoutMillis;
+    }
+
     public static Builder newConfig() {
         return new Builder();
     }
@@ -79,12 +144,33 @@ public class DefaultConfig implements Config {
 
         private ScriptEvaluator scriptEvaluator;
 
+        private Long documentCacheMaximumSize;
+
+        private Long documentCacheMaximumWeight;
+
+        private final Map<String, BatchLoader> batchLoaders = new LinkedHashMap<>();
+
+        private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+        private final Map<String, String> bulkheadByField = new LinkedHashMap<>();
+
+        private long executionTimeoutMillis;
+
         public Builder threadPool(Executor threadPool) {
             Objects.requireNonNull(threadPool, "threadPool can not be null.");
             this.threadPool = threadPool;
             return this;
         }
 
+        // use a virtual-thread-per-task executor, which requires Java 21+ runtime.
+        public Builder virtualThreadExecutor() {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalStateException("virtual thread executor requires Java 21+ runtime.");
+            }
+            this.threadPool = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            return this;
+        }
+
         public Builder objectMapper(ObjectMapper objectMapper) {
             Objects.requireNonNull(objectMapper, "objectMapper can not be null.");
             this.objectMapper = objectMapper;
@@ -97,8 +183,64 @@ public class DefaultConfig implements Config {
             return this;
         }
 
+        public Builder documentCacheMaximumSize(long documentCacheMaximumSize) {
+            if (documentCacheMaximumSize <= 0) {
+                throw new IllegalArgumentException("documentCacheMaximumSize must be positive.");
+            }
+            this.documentCacheMaximumSize = documentCacheMaximumSize;
+            return this;
+        }
+
+        public Builder documentCacheMaximumWeight(long documentCacheMaximumWeight) {
+            if (documentCacheMaximumWeight <= 0) {
+                throw new IllegalArgumentException("documentCacheMaximumWeight must be positive.");
+            }
+            this.documentCacheMaximumWeight = documentCacheMaximumWeight;
+            return this;
+        }
+
+        public Builder batchLoader(String name, BatchLoader batchLoader) {
+            Objects.requireNonNull(name, "name can not be null.");
+            Objects.requireNonNull(batchLoader, "batchLoader can not be null.");
+            this.batchLoaders.put(name, batchLoader);
+            return this;
+        }
+
+        public Builder bulkhead(Bulkhead bulkhead) {
+            Objects.requireNonNull(bulkhead, "bulkhead can not be null.");
+            this.bulkheads.put(bulkhead.getName(), bulkhead);
+            return this;
+        }
+
+        // the field coordinate is 'typeName.fieldName', e.g. 'Query.itemList'.
+        public Builder fieldBulkhead(String fieldCoordinate, String bulkheadName) {
+            Objects.requireNonNull(fieldCoordinate, "fieldCoordinate can not be null.");
+            Objects.requireNonNull(bulkheadName, "bulkheadName can not be null.");
+            this.bulkheadByField.put(fieldCoordinate, bulkheadName);
+            return this;
+        }
+
+        public Builder executionTimeoutMillis(long executionTimeoutMillis) {
+            if (executionTimeoutMillis <= 0) {
+                throw new IllegalArgumentException("executionTimeoutMillis must be positive.");
+            }
+            this.executionTimeoutMillis = executionTimeoutMillis;
+            return this;
+        }
+
         public DefaultConfig build() {
-            return new DefaultConfig(threadPool, objectMapper, scriptEvaluator);
+            for (Map.Entry<String, String> entry : bulkheadByField.entrySet()) {
+                if (!bulkheads.containsKey(entry.getValue())) {
+                    throw new IllegalArgumentException(String.format(
+                            "the bulkhead '%s' of field '%s' is not registered.", entry.getValue(), entry.getKey()
+                    ));
+                }
+            }
+
+            return new DefaultConfig(
+                    threadPool, objectMapper, scriptEvaluator, documentCacheMaximumSize, documentCacheMaximumWeight, batchLoaders,
+                    bulkheads, bulkheadByField, executionTimeoutMillis
+            );
         }
     }
 }
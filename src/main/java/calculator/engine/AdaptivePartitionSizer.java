@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.Internal;
+
+/**
+ * Tune the partition size of field by the latency observed from downstream.
+ *
+ * <p>The latency of a partition call is modeled as {@code intercept + slope * size}, which is fitted by
+ * least squares on the exponentially decayed observations, so the model follows the load of downstream.
+ * The partition size which minimizes {@code rounds * latency(size)} is chosen, where {@code rounds} is the
+ * number of sequential waves of calls under the in-flight budget.
+ *
+ * <p>The model is refitted incrementally on every observation and kept while the observed sizes are too close
+ * to be fitted, and the chosen size is kept until another size is cheaper by {@link #HYSTERESIS}.
+ */
+@Internal
+class AdaptivePartitionSizer {
+
+    // the weight of old observations is decayed by this factor on every new observation.
+    private static final double DECAY = 0.95;
+
+    private static final int MIN_OBSERVATIONS = 8;
+
+    // the observed sizes are almost the same, e.g. the size is fixed after tuning, and the slope can not be fitted.
+    private static final double MIN_SIZE_VARIANCE = 0.25;
+
+    // the chosen size is changed only if another size is cheaper by this ratio.
+    static final double HYSTERESIS = 0.1;
+
+    // a half size is probed once per interval while the sizes can not be fitted, so the model follows downstream.
+    static final int PROBE_INTERVAL = 32;
+
+    // the round counts evaluated beyond the minimum, the cost grows with rounds except for the rounding of size.
+    private static final int MAX_EXTRA_ROUNDS = 4;
+
+    private final int maxSize;
+
+    private double sumWeight;
+
+    private double sumSize;
+
+    private double sumLatency;
+
+    private double sumSizeSquare;
+
+    private double sumSizeLatency;
+
+    private long observationCount;
+
+    // the last fitted model, which is kept while the observed sizes can not be fitted.
+    private boolean fitted;
+
+    private double intercept;
+
+    private double slope;
+
+    // the size chosen last time, 0 if none.
+    private int chosenSize;
+
+    private long callCount;
+
+    AdaptivePartitionSizer(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Record the latency of a successful partition call.
+     *
+     * @param size         the size of partition
+     * @param latencyNanos the latency of call
+     */
+    synchronized void record(int size, long latencyNanos) {
+        sumWeight = sumWeight * DECAY + 1;
+        sumSize = sumSize * DECAY + size;
+        sumLatency = sumLatency * DECAY + latencyNanos;
+        sumSizeSquare = sumSizeSquare * DECAY + (double) size * size;
+        sumSizeLatency = sumSizeLatency * DECAY + (double) size * latencyNanos;
+        observationCount++;
+
+        double meanSize = sumSize / sumWeight;
+        double sizeVariance = sumSizeSquare / sumWeight - meanSize * meanSize;
+        if (observationCount < MIN_OBSERVATIONS || sizeVariance < MIN_SIZE_VARIANCE) {
+            return;
+        }
+
+        double meanLatency = sumLatency / sumWeight;
+        double fittedSlope = (sumSizeLatency / sumWeight - meanSize * meanLatency) / sizeVariance;
+        slope = Math.max(0, fittedSlope);
+        intercept = Math.max(0, meanLatency - fittedSlope * meanSize);
+        fitted = true;
+    }
+
+    /**
+     * Get the partition size for the argument list, which is in [1, maxSize].
+     *
+     * @param argumentSize the size of argument list
+     * @param parallelism  the maximum number of partitions in flight
+     * @return partition size
+     */
+    synchronized int partitionSize(int argumentSize, int parallelism) {
+        callCount++;
+        if (!fitted) {
+            // alternate between the maximum and half of maximum to make the model can be fitted.
+            return (callCount & 1) == 1 || maxSize == 1 ? maxSize : maxSize / 2;
+        }
+
+        int upperSize = Math.max(1, Math.min(maxSize, argumentSize));
+        int bestSize = bestSize(argumentSize, parallelism, upperSize);
+        if (chosenSize > 0) {
+            int keptSize = Math.min(chosenSize, upperSize);
+            if (cost(argumentSize, parallelism, keptSize) <= cost(argumentSize, parallelism, bestSize) * (1 + HYSTERESIS)) {
+                bestSize = keptSize;
+            }
+        }
+        chosenSize = bestSize;
+
+        double meanSize = sumSize / sumWeight;
+        double sizeVariance = sumSizeSquare / sumWeight - meanSize * meanSize;
+        if (sizeVariance < MIN_SIZE_VARIANCE && callCount % PROBE_INTERVAL == 0 && bestSize > 1) {
+            return bestSize / 2;
+        }
+        return bestSize;
+    }
+
+    // the cost of a round count is minimized by the smallest size in it, so only the sizes of a few rounds are evaluated.
+    private int bestSize(int argumentSize, int parallelism, int upperSize) {
+        // the larger size is preferred when the cost is equal, which calls downstream less.
+        int bestSize = upperSize;
+        double bestCost = cost(argumentSize, parallelism, upperSize);
+
+        int minRounds = rounds(argumentSize, parallelism, upperSize);
+        for (int rounds = minRounds; rounds <= minRounds + MAX_EXTRA_ROUNDS; rounds++) {
+            // the lower bound of the cost of more rounds.
+            if (rounds * intercept + slope * argumentSize / parallelism >= bestCost) {
+                break;
+            }
+
+            long callsInRounds = (long) rounds * parallelism;
+            int size = (int) Math.min(upperSize, (argumentSize + callsInRounds - 1) / callsInRounds);
+            double cost = cost(argumentSize, parallelism, size);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestSize = size;
+            }
+        }
+        return bestSize;
+    }
+
+    private double cost(int argumentSize, int parallelism, int size) {
+        return rounds(argumentSize, parallelism, size) * (intercept + slope * size);
+    }
+
+    private static int rounds(int argumentSize, int parallelism, int size) {
+        int partitionCount = (argumentSize + size - 1) / size;
+        return (partitionCount + parallelism - 1) / parallelism;
+    }
+}
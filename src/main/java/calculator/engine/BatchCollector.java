@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.Internal;
+import graphql.execution.ResultPath;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collect the keys of @batch fields in an execution.
+ * <p>
+ * The keys are grouped by the outermost list whose elements are still being dispatched,
+ * and are loaded when all the elements of that list are dispatched.
+ * The key is loaded immediately if the field is not in such a list,
+ * e.g. the field is fetched after its parent is resolved asynchronously.
+ */
+@Internal
+class BatchCollector {
+
+    // the paths of list fields whose elements are all dispatched.
+    private final Set<String> dispatchedListPaths = new HashSet<>();
+
+    // <list path, <fetcher, pending loads>>
+    private final Map<String, Map<BatchDataFetcher, List<BatchDataFetcher.PendingLoad>>> pendingLoadsByListPath = new HashMap<>();
+
+    CompletableFuture<Object> collect(BatchDataFetcher batchDataFetcher, Object key, DataFetchingEnvironment environment) {
+        BatchDataFetcher.PendingLoad pendingLoad = new BatchDataFetcher.PendingLoad(key, environment);
+        synchronized (this) {
+            String listPath = undispatchedListPath(environment.getExecutionStepInfo().getPath());
+            if (listPath != null) {
+                pendingLoadsByListPath
+                        .computeIfAbsent(listPath, ignore -> new LinkedHashMap<>())
+                        .computeIfAbsent(batchDataFetcher, ignore -> new ArrayList<>())
+                        .add(pendingLoad);
+                return pendingLoad.getFuture();
+            }
+        }
+
+        batchDataFetcher.dispatch(Collections.singletonList(pendingLoad));
+        return pendingLoad.getFuture();
+    }
+
+    void onListDispatched(ResultPath listPath) {
+        Map<BatchDataFetcher, List<BatchDataFetcher.PendingLoad>> pendingLoadsByFetcher;
+        synchronized (this) {
+            String path = listPath.toString();
+            dispatchedListPaths.add(path);
+            pendingLoadsByFetcher = pendingLoadsByListPath.remove(path);
+        }
+
+        if (pendingLoadsByFetcher != null) {
+            pendingLoadsByFetcher.forEach(BatchDataFetcher::dispatch);
+        }
+    }
+
+    private String undispatchedListPath(ResultPath fieldPath) {
+        String listPath = null;
+        for (ResultPath path = fieldPath; path != null && !path.isRootPath(); path = path.getParent()) {
+            if (path.isListSegment()) {
+                String candidate = path.getParent().toString();
+                if (!dispatchedListPaths.contains(candidate)) {
+                    listPath = candidate;
+                }
+            }
+        }
+        return listPath;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.Config;
+import calculator.engine.annotation.Internal;
+import calculator.engine.metadata.Directives;
+import calculator.engine.script.CompiledScript;
+import graphql.language.StringValue;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLSchemaElement;
+import graphql.schema.GraphQLTypeVisitor;
+import graphql.schema.GraphQLTypeVisitorStub;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static calculator.common.CommonUtil.getScriptEnv;
+import static calculator.engine.PartitionDataFetcher.getIntArgument;
+
+/**
+ * The DataFetcher of field annotated by @batch, the keys of the field in sibling list elements
+ * are collected by {@link BatchCollector} and loaded by one invocation of {@link BatchLoader}.
+ */
+@Internal
+public class BatchDataFetcher implements DataFetcher<Object> {
+
+    private final String loaderName;
+
+    private final BatchLoader batchLoader;
+
+    private final CompiledScript keyScript;
+
+    // the maximum number of keys in one invocation of loader, unlimited if it's not positive.
+    private final int maxBatchSize;
+
+    private final ObjectMapper objectMapper;
+
+    private BatchDataFetcher(String loaderName,
+                             BatchLoader batchLoader,
+                             CompiledScript keyScript,
+                             int maxBatchSize,
+                             ObjectMapper objectMapper) {
+        this.loaderName = loaderName;
+        this.batchLoader = batchLoader;
+        this.keyScript = keyScript;
+        this.maxBatchSize = maxBatchSize;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Object get(DataFetchingEnvironment environment) {
+        Object key = getKey(environment);
+        if (key == null) {
+            return null;
+        }
+
+        BatchCollector batchCollector = environment.getGraphQlContext().get(BatchCollector.class);
+        if (batchCollector == null) {
+            PendingLoad pendingLoad = new PendingLoad(key, environment);
+            dispatch(Collections.singletonList(pendingLoad));
+            return pendingLoad.getFuture();
+        }
+
+        return batchCollector.collect(this, key, environment);
+    }
+
+    private Object getKey(DataFetchingEnvironment environment) {
+        Map<String, Object> scriptEnv = new HashMap<>();
+        Object sourceEnv = getScriptEnv(objectMapper, environment.getSource(), keyScript);
+        if (sourceEnv instanceof Map) {
+            scriptEnv.putAll((Map<String, Object>) sourceEnv);
+        }
+        scriptEnv.putAll(environment.getArguments());
+        return keyScript.execute(scriptEnv);
+    }
+
+    /**
+     * Load the distinct keys of pending loads, and complete them by the loaded values.
+     */
+    void dispatch(List<PendingLoad> pendingLoads) {
+        Map<Object, List<PendingLoad>> pendingLoadsByKey = new LinkedHashMap<>();
+        for (PendingLoad pendingLoad : pendingLoads) {
+            pendingLoadsByKey.computeIfAbsent(pendingLoad.key, ignore -> new ArrayList<>(1)).add(pendingLoad);
+        }
+
+        List<Object> keys = new ArrayList<>(pendingLoadsByKey.keySet());
+        int batchSize = maxBatchSize > 0 ? maxBatchSize : keys.size();
+        for (int i = 0; i < keys.size(); i += batchSize) {
+            List<Object> batchKeys = keys.subList(i, Math.min(i + batchSize, keys.size()));
+            load(batchKeys, pendingLoadsByKey);
+        }
+    }
+
+    private void load(List<Object> keys, Map<Object, List<PendingLoad>> pendingLoadsByKey) {
+        DataFetchingEnvironment environment = pendingLoadsByKey.get(keys.get(0)).get(0).environment;
+
+        CompletableFuture<List<Object>> valuesFuture;
+        try {
+            valuesFuture = batchLoader.load(keys, environment);
+        } catch (Throwable t) {
+            valuesFuture = new CompletableFuture<>();
+            valuesFuture.completeExceptionally(t);
+        }
+        if (valuesFuture == null) {
+            valuesFuture = CompletableFuture.completedFuture(null);
+        }
+
+        valuesFuture.whenComplete((values, ex) -> {
+            Throwable error = ex;
+            if (error == null && (values == null || values.size() != keys.size())) {
+                error = new IllegalStateException(String.format(
+                        "the size of values loaded by '%s' is not equal to the size of keys.", loaderName
+                ));
+            }
+
+            for (int i = 0; i < keys.size(); i++) {
+                for (PendingLoad pendingLoad : pendingLoadsByKey.get(keys.get(i))) {
+                    if (error != null) {
+                        pendingLoad.future.completeExceptionally(error);
+                    } else {
+                        pendingLoad.future.complete(values.get(i));
+                    }
+                }
+            }
+        });
+    }
+
+    static class PendingLoad {
+
+        private final Object key;
+
+        private final DataFetchingEnvironment environment;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        PendingLoad(Object key, DataFetchingEnvironment environment) {
+            this.key = key;
+            this.environment = environment;
+        }
+
+        CompletableFuture<Object> getFuture() {
+            return future;
+        }
+    }
+
+    static GraphQLTypeVisitor typeVisitor(Config config) {
+        return new GraphQLTypeVisitorStub() {
+            @Override
+            public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+                GraphQLDirective batchDirective = fieldDefinition.getDirective(Directives.BATCH.getName());
+                if (batchDirective == null) {
+                    return TraversalControl.CONTINUE;
+                }
+
+                String loaderName = ((StringValue) batchDirective.getArgument("loader").getArgumentValue().getValue()).getValue();
+                String key = ((StringValue) batchDirective.getArgument("key").getArgumentValue().getValue()).getValue();
+                DataFetcher<?> batchDataFetcher = new BatchDataFetcher(
+                        loaderName,
+                        config.getBatchLoaders().get(loaderName),
+                        config.getScriptEvaluator().compile(key),
+                        getIntArgument(batchDirective, "maxBatchSize", 0),
+                        config.getObjectMapper()
+                );
+
+                GraphQLCodeRegistry.Builder codeRegistry = context.getVarFromParents(GraphQLCodeRegistry.Builder.class);
+                GraphQLFieldsContainer parent = (GraphQLFieldsContainer) context.getParentNode();
+                codeRegistry.dataFetcher(parent, fieldDefinition, batchDataFetcher);
+                return TraversalControl.CONTINUE;
+            }
+        };
+    }
+}
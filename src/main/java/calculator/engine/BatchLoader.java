@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.PublicApi;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Load the values of field annotated by {@code @batch} in bulk.
+ * <p>
+ * The keys of the field in all sibling list elements are collected in one pass of list completion,
+ * and the loader is invoked once for them instead of once per element.
+ */
+@PublicApi
+public interface BatchLoader {
+
+    /**
+     * Load the values of keys.
+     *
+     * @param keys        the distinct keys, in the order they are collected
+     * @param environment the environment of the first field whose key is collected
+     * @return the values with the same size and order as keys
+     */
+    CompletableFuture<List<Object>> load(List<Object> keys, DataFetchingEnvironment environment);
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.Internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The accessors of java bean properties: fields declared by class and super classes, and optionally the public
+ * getters which are not backed by field.
+ */
+@Internal
+class BeanAccessor {
+
+    // the accessors of class are resolved only once, and released with the class.
+    private static final ClassValue<BeanAccessor> BEAN_ACCESSOR = new ClassValue<BeanAccessor>() {
+        @Override
+        protected BeanAccessor computeValue(Class<?> type) {
+            return new BeanAccessor(type, false);
+        }
+    };
+
+    private static final ClassValue<BeanAccessor> BEAN_ACCESSOR_WITH_GETTER = new ClassValue<BeanAccessor>() {
+        @Override
+        protected BeanAccessor computeValue(Class<?> type) {
+            return new BeanAccessor(type, true);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final PropertyAccessor[] accessors;
+
+    private final Map<String, PropertyAccessor> accessorByName;
+
+    /**
+     * Get the accessors of the fields of class.
+     */
+    static BeanAccessor of(Class<?> type) {
+        return BEAN_ACCESSOR.get(type);
+    }
+
+    /**
+     * Get the accessors of class, including the public getters which are not backed by field.
+     * The getters may be computed, and even return the object itself, e.g. the default instance of protobuf message.
+     */
+    static BeanAccessor withGetter(Class<?> type) {
+        return BEAN_ACCESSOR_WITH_GETTER.get(type);
+    }
+
+    private BeanAccessor(Class<?> type, boolean includeGetter) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Map<String, PropertyAccessor> accessorByName = new LinkedHashMap<>();
+
+        // fields declared by class and super classes, the field of subclass hides the field with same name.
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()
+                        || accessorByName.containsKey(field.getName())) {
+                    continue;
+                }
+
+                try {
+                    field.setAccessible(true);
+                    MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    accessorByName.put(field.getName(), new PropertyAccessor(field.getName(), getter));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    // e.g. the field of jdk class which is not opened, just ignore it.
+                }
+            }
+        }
+
+        // public getters which are not backed by field, the getters declared by jdk are ignored.
+        if (includeGetter) {
+            for (Method method : type.getMethods()) {
+                String propertyName = getterPropertyName(method);
+                if (propertyName == null || accessorByName.containsKey(propertyName)) {
+                    continue;
+                }
+
+                try {
+                    method.setAccessible(true);
+                    MethodHandle getter = lookup.unreflect(method).asType(GETTER_TYPE);
+                    accessorByName.put(propertyName, new PropertyAccessor(propertyName, getter));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    // e.g. the method of jdk class which is not opened, just ignore it.
+                }
+            }
+        }
+
+        this.accessors = accessorByName.values().toArray(new PropertyAccessor[0]);
+        this.accessorByName = accessorByName;
+    }
+
+    PropertyAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    /**
+     * Return the accessor of property, or null if the property is absent.
+     */
+    PropertyAccessor getAccessor(String name) {
+        return accessorByName.get(name);
+    }
+
+    private static String getterPropertyName(Method method) {
+        String declaringClassName = method.getDeclaringClass().getName();
+        if (declaringClassName.startsWith("java.") || declaringClassName.startsWith("javax.")
+                || Modifier.isStatic(method.getModifiers())
+                || method.getParameterCount() != 0
+                || method.getReturnType() == void.class
+                || method.isBridge() || method.isSynthetic()) {
+            return null;
+        }
+
+        String methodName = method.getName();
+        String name;
+        if (methodName.startsWith("get") && methodName.length() > 3) {
+            name = methodName.substring(3);
+        } else if (methodName.startsWith("is") && methodName.length() > 2
+                && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            name = methodName.substring(2);
+        } else {
+            return null;
+        }
+
+        // same as java.beans.Introspector#decapitalize, e.g. getURL -> URL, getName -> name.
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    static class PropertyAccessor {
+
+        private final String name;
+
+        private final MethodHandle getter;
+
+        PropertyAccessor(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Object get(Object object) {
+            try {
+                return getter.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.PublicApi;
+import calculator.exception.BulkheadFullException;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A named executor which isolates the fields routed to it from the others.
+ * <p>
+ * At most {@code maxConcurrency} fetches are in flight, a fetch is in flight until the value it returns is completed.
+ * At most {@code maxQueueSize} fetches wait for a permit, and the others fail fast with {@link BulkheadFullException}.
+ * The fields are routed to a bulkhead by {@code @bulkhead(name:)} or {@code DefaultConfig.Builder.fieldBulkhead}.
+ */
+@PublicApi
+public class Bulkhead {
+
+    private final String name;
+
+    private final Executor executor;
+
+    private final int maxConcurrency;
+
+    private final int maxQueueSize;
+
+    // guarded by this
+    private int inFlightCount;
+
+    // guarded by this
+    private final Queue<PendingCall<?>> waitingCalls = new ArrayDeque<>();
+
+    private Bulkhead(String name, Executor executor, int maxConcurrency, int maxQueueSize) {
+        this.name = name;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * @return the number of fetches in flight.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlightCount;
+    }
+
+    /**
+     * @return the number of fetches waiting for a permit.
+     */
+    public synchronized int getQueueSize() {
+        return waitingCalls.size();
+    }
+
+    /**
+     * Execute the call on the executor of bulkhead when a permit is available.
+     *
+     * @param call the call which returns the value or the future of it
+     * @return the future of value, which is completed exceptionally with {@link BulkheadFullException}
+     * if the bulkhead is full
+     */
+    <T> CompletableFuture<T> submit(Callable<?> call) {
+        PendingCall<T> pendingCall = new PendingCall<>(call);
+        synchronized (this) {
+            if (inFlightCount >= maxConcurrency) {
+                if (waitingCalls.size() >= maxQueueSize) {
+                    pendingCall.resultFuture.completeExceptionally(new BulkheadFullException(
+                            String.format("bulkhead '%s' is full, %d in flight and %d waiting.", name, inFlightCount, waitingCalls.size())
+                    ));
+                } else {
+                    waitingCalls.add(pendingCall);
+                }
+                return pendingCall.resultFuture;
+            }
+            inFlightCount++;
+        }
+
+        dispatch(pendingCall);
+        return pendingCall.resultFuture;
+    }
+
+    // the permit has been acquired for the call, and it's handed over to the next waiting call
+    // if the call is cancelled while waiting or rejected by executor.
+    private void dispatch(PendingCall<?> pendingCall) {
+        PendingCall<?> nextCall = pendingCall;
+        while (nextCall != null) {
+            if (nextCall.resultFuture.isDone()) {
+                nextCall = nextWaitingCall();
+                continue;
+            }
+
+            PendingCall<?> call = nextCall;
+            try {
+                executor.execute(() -> execute(call));
+                return;
+            } catch (RejectedExecutionException e) {
+                call.resultFuture.completeExceptionally(e);
+                nextCall = nextWaitingCall();
+            }
+        }
+    }
+
+    private <T> void execute(PendingCall<T> pendingCall) {
+        CompletableFuture<T> resultFuture = pendingCall.resultFuture;
+        // the fetch is cancelled while waiting for permit.
+        if (resultFuture.isDone()) {
+            release();
+            return;
+        }
+
+        Object result;
+        try {
+            result = pendingCall.call.call();
+        } catch (Throwable t) {
+            release();
+            resultFuture.completeExceptionally(t);
+            return;
+        }
+
+        if (!(result instanceof CompletionStage)) {
+            release();
+            resultFuture.complete((T) result);
+            return;
+        }
+
+        CompletableFuture<T> future = ((CompletionStage<T>) result).toCompletableFuture();
+        resultFuture.whenComplete((ignore, ex) -> {
+            if (resultFuture.isCancelled()) {
+                future.cancel(false);
+            }
+        });
+        // release the permit before completing the result, so the dependent fetches can acquire it.
+        future.whenComplete((value, ex) -> {
+            release();
+            if (ex != null) {
+                resultFuture.completeExceptionally(ex);
+            } else {
+                resultFuture.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        PendingCall<?> nextCall = nextWaitingCall();
+        if (nextCall != null) {
+            // hand over the permit to the waiting call.
+            dispatch(nextCall);
+        }
+    }
+
+    // the permit is released if there is no waiting call.
+    private synchronized PendingCall<?> nextWaitingCall() {
+        PendingCall<?> nextCall = waitingCalls.poll();
+        if (nextCall == null) {
+            inFlightCount--;
+        }
+        return nextCall;
+    }
+
+    private static class PendingCall<T> {
+
+        private final Callable<?> call;
+
+        private final CompletableFuture<T> resultFuture = new CompletableFuture<>();
+
+        PendingCall(Callable<?> call) {
+            this.call = call;
+        }
+    }
+
+    public static Builder newBulkhead(String name) {
+        return new Builder(name);
+    }
+
+    public static class Builder {
+
+        private final String name;
+
+        private Executor executor;
+
+        private int maxConcurrency;
+
+        private int maxQueueSize;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name, "name can not be null.");
+        }
+
+        public Builder executor(Executor executor) {
+            Objects.requireNonNull(executor, "executor can not be null.");
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency <= 0) {
+                throw new IllegalArgumentException("maxConcurrency must be positive.");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public Builder maxQueueSize(int maxQueueSize) {
+            if (maxQueueSize < 0) {
+                throw new IllegalArgumentException("maxQueueSize can not be negative.");
+            }
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        public Bulkhead build() {
+            Objects.requireNonNull(executor, "executor can not be null.");
+            if (maxConcurrency <= 0) {
+                throw new IllegalArgumentException("maxConcurrency must be set.");
+            }
+            return new Bulkhead(name, executor, maxConcurrency, maxQueueSize);
+        }
+    }
+}
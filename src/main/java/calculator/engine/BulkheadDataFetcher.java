@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.common.GraphQLUtil;
+import calculator.config.Config;
+import calculator.engine.annotation.Internal;
+import calculator.engine.metadata.DataFetcherDefinition;
+import calculator.engine.metadata.Directives;
+import calculator.graphql.AsyncDataFetcherInterface;
+import graphql.language.StringValue;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLSchemaElement;
+import graphql.schema.GraphQLTypeVisitor;
+import graphql.schema.GraphQLTypeVisitorStub;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The DataFetcher of field routed to a {@link Bulkhead}, the fetches are executed on the executor of bulkhead
+ * and fail fast if the bulkhead is full.
+ * <p>
+ * The async DataFetcher is unwrapped, so the fetch is executed on the bulkhead instead of its own executor,
+ * and the cancellation is still signalled to it.
+ */
+@Internal
+public class BulkheadDataFetcher implements DataFetcher<CompletableFuture<Object>>, AsyncDataFetcherInterface<Object> {
+
+    private final DataFetcher<?> originalDataFetcher;
+
+    private final DataFetcher<Object> actionFetcher;
+
+    private final Bulkhead bulkhead;
+
+    public BulkheadDataFetcher(DataFetcher<?> originalDataFetcher, Bulkhead bulkhead) {
+        DataFetcherDefinition dataFetcherDefinition = GraphQLUtil.getDataFetcherDefinition(originalDataFetcher);
+        this.originalDataFetcher = originalDataFetcher;
+        this.actionFetcher = (DataFetcher<Object>) (dataFetcherDefinition.isAsyncFetcher()
+                ? dataFetcherDefinition.getActionFetcher()
+                : originalDataFetcher);
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public CompletableFuture<Object> get(DataFetchingEnvironment environment) {
+        return bulkhead.submit(() -> actionFetcher.get(environment));
+    }
+
+    @Override
+    public DataFetcher<Object> getWrappedDataFetcher() {
+        return actionFetcher;
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return bulkhead.getExecutor();
+    }
+
+    @Override
+    public void onCancel(DataFetchingEnvironment environment) {
+        if (originalDataFetcher instanceof AsyncDataFetcherInterface) {
+            ((AsyncDataFetcherInterface<?>) originalDataFetcher).onCancel(environment);
+        }
+    }
+
+    static GraphQLTypeVisitor typeVisitor(Config config) {
+        return new GraphQLTypeVisitorStub() {
+            @Override
+            public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+                GraphQLFieldsContainer parent = (GraphQLFieldsContainer) context.getParentNode();
+                String bulkheadName = getBulkheadName(config, parent, fieldDefinition);
+                if (bulkheadName == null) {
+                    return TraversalControl.CONTINUE;
+                }
+
+                GraphQLCodeRegistry.Builder codeRegistry = context.getVarFromParents(GraphQLCodeRegistry.Builder.class);
+                DataFetcher<?> originalDataFetcher = codeRegistry.getDataFetcher(parent, fieldDefinition);
+                DataFetcher<?> bulkheadDataFetcher = new BulkheadDataFetcher(
+                        originalDataFetcher, config.getBulkheads().get(bulkheadName)
+                );
+                codeRegistry.dataFetcher(parent, fieldDefinition, bulkheadDataFetcher);
+                return TraversalControl.CONTINUE;
+            }
+        };
+    }
+
+    // the bulkhead in @bulkhead takes precedence over the one routed by field coordinate.
+    static String getBulkheadName(Config config, GraphQLFieldsContainer parent, GraphQLFieldDefinition fieldDefinition) {
+        GraphQLDirective bulkheadDirective = fieldDefinition.getDirective(Directives.BULKHEAD.getName());
+        if (bulkheadDirective != null) {
+            Object value = bulkheadDirective.getArgument("name").getArgumentValue().getValue();
+            return value instanceof StringValue ? ((StringValue) value).getValue() : null;
+        }
+
+        return config.getBulkheadByField().get(parent.getName() + "." + fieldDefinition.getName());
+    }
+}
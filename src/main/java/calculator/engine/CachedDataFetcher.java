@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.Config;
+import calculator.engine.annotation.Internal;
+import calculator.engine.cache.BoundedCache;
+import calculator.engine.cache.Ticker;
+import calculator.engine.metadata.Directives;
+import graphql.execution.DataFetcherResult;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLSchemaElement;
+import graphql.schema.GraphQLTypeVisitor;
+import graphql.schema.GraphQLTypeVisitorStub;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static calculator.engine.PartitionDataFetcher.getIntArgument;
+
+/**
+ * The DataFetcher of field annotated by @cached, the values are cached across requests by the arguments of field.
+ * <p>
+ * The value is refreshed asynchronously when it's about to expire, and the expired value is still
+ * served for another ttl if the reloading fails.
+ */
+@Internal
+public class CachedDataFetcher implements DataFetcher<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedDataFetcher.class);
+
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    // refresh the value asynchronously when the age of value exceeds the ratio of ttl.
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
+
+    private final DataFetcher<?> delegate;
+
+    private final long ttlNanos;
+
+    private final long refreshAheadNanos;
+
+    private final Executor executor;
+
+    private final Ticker ticker;
+
+    // <arguments, cached value>, the stale value is kept for another ttl.
+    private final BoundedCache<Map<String, Object>, CachedValue> cache;
+
+    private final Map<Map<String, Object>, CompletableFuture<Object>> loadingByArguments = new ConcurrentHashMap<>();
+
+    CachedDataFetcher(DataFetcher<?> delegate, long ttlMs, int maxEntries, Executor executor, Ticker ticker) {
+        this.delegate = delegate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.refreshAheadNanos = (long) (ttlNanos * REFRESH_AHEAD_RATIO);
+        this.executor = executor;
+        this.ticker = ticker;
+        this.cache = BoundedCache.<Map<String, Object>, CachedValue>newCache()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(2 * ttlNanos, TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Object get(DataFetchingEnvironment environment) throws Exception {
+        Map<String, Object> arguments = environment.getArguments();
+        CachedValue cachedValue = cache.getIfPresent(arguments);
+        if (cachedValue == null) {
+            // the loading is shared by requests, the dependent future can be cancelled by execution individually.
+            return load(arguments, environment).thenApply(Function.identity());
+        }
+
+        long age = ticker.read() - cachedValue.loadTime;
+        if (age < ttlNanos) {
+            if (age >= refreshAheadNanos && cachedValue.refreshing.compareAndSet(false, true)) {
+                refresh(arguments, environment, cachedValue);
+            }
+            return cachedValue.value;
+        }
+
+        // serve the stale value if reloading fails.
+        return load(arguments, environment).handle((value, ex) -> {
+            if (ex == null) {
+                return value;
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("reload cached field {} failed, serve the stale value.", environment.getField().getName(), ex);
+            }
+            return cachedValue.value;
+        });
+    }
+
+    // the flag is reset when the refreshing completes, so the value which is not replaced is refreshed again.
+    private void refresh(Map<String, Object> arguments, DataFetchingEnvironment environment, CachedValue cachedValue) {
+        DataFetchingEnvironment refreshEnvironment = refreshEnvironment(arguments, environment);
+        try {
+            CompletableFuture.supplyAsync(() -> load(arguments, refreshEnvironment), executor)
+                    .thenCompose(Function.identity())
+                    .whenComplete((value, ex) -> cachedValue.refreshing.set(false));
+        } catch (RejectedExecutionException e) {
+            cachedValue.refreshing.set(false);
+            if (logger.isDebugEnabled()) {
+                logger.debug("refresh cached field {} is rejected by executor.", environment.getField().getName(), e);
+            }
+        }
+    }
+
+    // the refreshing outlives the request which triggers it, and the value is shared by other requests,
+    // so only the arguments which the value is cached by are kept, without the context and source of request.
+    private static DataFetchingEnvironment refreshEnvironment(Map<String, Object> arguments, DataFetchingEnvironment environment) {
+        return DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .arguments(arguments)
+                .fieldDefinition(environment.getFieldDefinition())
+                .fieldType(environment.getFieldType())
+                .parentType(environment.getParentType())
+                .graphQLSchema(environment.getGraphQLSchema())
+                .build();
+    }
+
+    // the concurrent loads of the same arguments share the same invocation.
+    private CompletableFuture<Object> load(Map<String, Object> arguments, DataFetchingEnvironment environment) {
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loadingByArguments.putIfAbsent(arguments, loading);
+        if (existing != null) {
+            return existing;
+        }
+
+        Object result;
+        try {
+            result = delegate.get(environment);
+        } catch (Throwable t) {
+            loadingByArguments.remove(arguments, loading);
+            loading.completeExceptionally(t);
+            return loading;
+        }
+
+        CompletionStage<?> resultStage = result instanceof CompletionStage
+                ? (CompletionStage<?>) result
+                : CompletableFuture.completedFuture(result);
+        resultStage.whenComplete((value, ex) -> {
+            if (ex == null && isCacheable(value)) {
+                cache.put(arguments, new CachedValue(value, ticker.read()));
+            }
+            loadingByArguments.remove(arguments, loading);
+
+            if (ex != null) {
+                loading.completeExceptionally(ex);
+            } else {
+                loading.complete(value);
+            }
+        });
+        return loading;
+    }
+
+    private static boolean isCacheable(Object value) {
+        if (value == null) {
+            return false;
+        }
+
+        return !(value instanceof DataFetcherResult) || !((DataFetcherResult<?>) value).hasErrors();
+    }
+
+    private static class CachedValue {
+
+        private final Object value;
+
+        private final long loadTime;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedValue(Object value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+
+    static GraphQLTypeVisitor typeVisitor(Config config) {
+        return new GraphQLTypeVisitorStub() {
+            @Override
+            public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+                GraphQLDirective cachedDirective = fieldDefinition.getDirective(Directives.CACHED.getName());
+                if (cachedDirective == null) {
+                    return TraversalControl.CONTINUE;
+                }
+
+                GraphQLCodeRegistry.Builder codeRegistry = context.getVarFromParents(GraphQLCodeRegistry.Builder.class);
+                GraphQLFieldsContainer parent = (GraphQLFieldsContainer) context.getParentNode();
+                DataFetcher<?> originalDataFetcher = codeRegistry.getDataFetcher(parent, fieldDefinition);
+
+                DataFetcher<?> cachedDataFetcher = new CachedDataFetcher(
+                        originalDataFetcher,
+                        getIntArgument(cachedDirective, "ttlMs", 0),
+                        getIntArgument(cachedDirective, "maxEntries", DEFAULT_MAX_ENTRIES),
+                        config.getExecutor(),
+                        Ticker.systemTicker()
+                );
+                codeRegistry.dataFetcher(parent, fieldDefinition, cachedDataFetcher);
+                return TraversalControl.CONTINUE;
+            }
+        };
+    }
+}
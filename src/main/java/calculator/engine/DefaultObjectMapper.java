@@ -19,113 +19,186 @@ package calculator.engine;
 
 import calculator.engine.annotation.Internal;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static calculator.common.CommonUtil.isBasicType;
 
 
+/**
+ * Convert object to the simple collections by copying, the bean is converted by its fields.
+ * <p>
+ * The public getters which are not backed by field can be included by {@code new DefaultObjectMapper(true)},
+ * they may be computed with side effects, and the bean which is being converted is skipped as null when
+ * it's reached again by getter, e.g. the default instance of protobuf message.
+ */
 @Internal
 public class DefaultObjectMapper implements ObjectMapper {
 
+    private final boolean includeGetter;
+
+    public DefaultObjectMapper() {
+        this(false);
+    }
+
+    /**
+     * @param includeGetter whether to include the public getters which are not backed by field
+     */
+    public DefaultObjectMapper(boolean includeGetter) {
+        this.includeGetter = includeGetter;
+    }
+
     @Override
     public Object toSimpleCollection(Object object) {
+        return convert(object, newVisitingBeans());
+    }
+
+    @Override
+    public Object toSimpleCollection(Object object, Set<String> propertyNames) {
+        Set<Object> visitingBeans = newVisitingBeans();
+        if (object instanceof Map) {
+            Map<Object, Object> map = (Map<Object, Object>) object;
+            Map<Object, Object> result = new LinkedHashMap<>();
+            for (String propertyName : propertyNames) {
+                if (map.containsKey(propertyName)) {
+                    result.put(propertyName, convert(map.get(propertyName), visitingBeans));
+                }
+            }
+            return result;
+        }
+
+        if (object == null || isBasicType(object)
+                || object instanceof Collection || object instanceof Object[]
+                || object instanceof Iterator || object instanceof Enumeration) {
+            return convert(object, visitingBeans);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        BeanAccessor beanAccessor = getBeanAccessor(object);
+        if (visitingBeans != null) {
+            visitingBeans.add(object);
+        }
+        for (String propertyName : propertyNames) {
+            BeanAccessor.PropertyAccessor accessor = beanAccessor.getAccessor(propertyName);
+            if (accessor != null) {
+                result.put(propertyName, convert(accessor.get(object), visitingBeans));
+            }
+        }
+        return result;
+    }
+
+    // the beans on the path of conversion, only tracked if getters are included: fields are converted as before.
+    private Set<Object> newVisitingBeans() {
+        return includeGetter ? Collections.newSetFromMap(new IdentityHashMap<>()) : null;
+    }
+
+    private BeanAccessor getBeanAccessor(Object object) {
+        return includeGetter ? BeanAccessor.withGetter(object.getClass()) : BeanAccessor.of(object.getClass());
+    }
+
+    private Object convert(Object object, Set<Object> visitingBeans) {
         if (object == null) {
             return null;
         }
 
         if (object instanceof Collection) {
-            return toCollection((Collection) object);
+            return toCollection((Collection) object, visitingBeans);
         } else if (object instanceof Object[]) {
-            return arrayToCollection((Object[]) object);
+            return arrayToCollection((Object[]) object, visitingBeans);
         } else if (object instanceof Map) {
-            return toMap((Map) object);
+            return toMap((Map) object, visitingBeans);
         } else if (object instanceof Iterator) {
-            return iteratorToCollection((Iterator) object);
+            return iteratorToCollection((Iterator) object, visitingBeans);
         } else if (object instanceof Enumeration) {
-            return enumerationToCollection((Enumeration) object);
+            return enumerationToCollection((Enumeration) object, visitingBeans);
         } else {
-            return simpleObject(object);
+            return simpleObject(object, visitingBeans);
         }
     }
 
-    private Object simpleObject(Object object) {
+    private Object simpleObject(Object object, Set<Object> visitingBeans) {
         if (isBasicType(object)) {
             return object;
         }
 
-        Map<String, Object> result = new LinkedHashMap<>();
-        Field[] declaredFields = object.getClass().getDeclaredFields();
-        for (Field declaredField : declaredFields) {
-            declaredField.setAccessible(true);
-            try {
-                Object fieldValue = declaredField.get(object);
-                Object simpleCollection = toSimpleCollection(fieldValue);
-                result.put(declaredField.getName(), simpleCollection);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
+        // the reference cycle is cut off.
+        if (visitingBeans != null && !visitingBeans.add(object)) {
+            return null;
+        }
+
+        try {
+            BeanAccessor.PropertyAccessor[] accessors = getBeanAccessor(object).getAccessors();
+            Map<String, Object> result = new LinkedHashMap<>(Math.max(16, accessors.length * 4 / 3 + 1));
+            for (BeanAccessor.PropertyAccessor accessor : accessors) {
+                Object simpleCollection = convert(accessor.get(object), visitingBeans);
+                result.put(accessor.getName(), simpleCollection);
+            }
+            return result;
+        } finally {
+            if (visitingBeans != null) {
+                visitingBeans.remove(object);
             }
         }
-        return result;
     }
 
-    private Object enumerationToCollection(Enumeration<Object> enumeration) {
+    private Object enumerationToCollection(Enumeration<Object> enumeration, Set<Object> visitingBeans) {
         List<Object> result = new ArrayList<>();
         while (enumeration.hasMoreElements()) {
             Object object = enumeration.nextElement();
-            Object toSimpleCollection = toSimpleCollection(object);
+            Object toSimpleCollection = convert(object, visitingBeans);
             result.add(toSimpleCollection);
         }
 
         return result;
     }
 
-    private Object arrayToCollection(Object[] objectArray) {
+    private Object arrayToCollection(Object[] objectArray, Set<Object> visitingBeans) {
         List<Object> result = new ArrayList<>(objectArray.length);
 
         for (Object object : objectArray) {
-            Object toSimpleCollection = toSimpleCollection(object);
+            Object toSimpleCollection = convert(object, visitingBeans);
             result.add(toSimpleCollection);
         }
         return result;
     }
 
-    private Object iteratorToCollection(Iterator<Object> iterator) {
+    private Object iteratorToCollection(Iterator<Object> iterator, Set<Object> visitingBeans) {
         List<Object> result = new ArrayList<>();
 
         while (iterator.hasNext()) {
             Object next = iterator.next();
-            Object toSimpleCollection = toSimpleCollection(next);
+            Object toSimpleCollection = convert(next, visitingBeans);
             result.add(toSimpleCollection);
         }
         return result;
     }
 
 
-    private Collection<Object> toCollection(Collection<Object> collection) {
+    private Collection<Object> toCollection(Collection<Object> collection, Set<Object> visitingBeans) {
         List<Object> result = new ArrayList<>(collection.size());
 
         for (Object object : collection) {
-            Object toSimpleCollection = toSimpleCollection(object);
+            Object toSimpleCollection = convert(object, visitingBeans);
             result.add(toSimpleCollection);
         }
         return result;
     }
 
-    private Map<Object, Object> toMap(Map<Object, Object> map) {
+    private Map<Object, Object> toMap(Map<Object, Object> map, Set<Object> visitingBeans) {
         Map<Object, Object> result = new LinkedHashMap<>();
 
         for (Map.Entry<Object, Object> entry : map.entrySet()) {
-            Object toSimpleCollection = toSimpleCollection(entry.getValue());
+            Object toSimpleCollection = convert(entry.getValue(), visitingBeans);
             result.put(entry.getKey(), toSimpleCollection);
         }
         return result;
     }
-
 }
@@ -18,8 +18,11 @@ package calculator.engine;
 
 import calculator.common.CollectionUtil;
 import calculator.common.CommonUtil;
+import calculator.common.HashedWheelTimer;
 import calculator.config.Config;
 import calculator.engine.annotation.Internal;
+import calculator.engine.cache.BoundedCache;
+import calculator.engine.cache.CacheStats;
 import calculator.engine.decorator.DecorateEnvironment;
 import calculator.engine.handler.DistinctHandler;
 import calculator.engine.handler.FieldValueHandlerComposite;
@@ -28,16 +31,21 @@ import calculator.engine.handler.HandleEnvironment;
 import calculator.engine.handler.SortByHandler;
 import calculator.engine.handler.SortHandler;
 import calculator.engine.metadata.FetchSourceTask;
+import calculator.engine.script.CompiledScript;
 import calculator.engine.script.ScriptEvaluator;
 import calculator.engine.decorator.ArgumentTransformDecorator;
 import calculator.engine.decorator.DistinctDecorator;
 import calculator.engine.decorator.FilterDecorator;
+import calculator.engine.decorator.HedgeDecorator;
 import calculator.engine.decorator.MapDecorator;
 import calculator.engine.decorator.MockDecorator;
 import calculator.engine.decorator.SortByDecorator;
 import calculator.engine.decorator.SortDecorator;
+import calculator.engine.decorator.TimeoutDecorator;
 import calculator.engine.decorator.DecoratorComposite;
+import calculator.graphql.AsyncDataFetcherInterface;
 import graphql.ExecutionResult;
+import graphql.GraphQLContext;
 import graphql.analysis.QueryTraverser;
 import graphql.com.google.common.collect.ImmutableList;
 import graphql.com.google.common.collect.ImmutableMap;
@@ -46,6 +54,7 @@ import graphql.execution.ResultPath;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
 import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
@@ -64,6 +73,10 @@ import graphql.parser.InvalidSyntaxException;
 import graphql.parser.Parser;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,8 +86,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static calculator.common.CommonUtil.fieldPath;
 import static calculator.common.CommonUtil.getArgumentFromDirective;
@@ -87,59 +102,179 @@ public class ExecutionEngine extends SimpleInstrumentation {
 
     private static final Logger logger = LoggerFactory.getLogger(ExecutionEngine.class);
 
+    // the state of the execution whose document uses no directive of calculator, all the hooks of engine do nothing for it.
+    private static final InstrumentationState DIRECTIVE_FREE_STATE = new InstrumentationState() {
+    };
+
     private final Executor executor;
 
     private final ObjectMapper objectMapper;
 
     private final ScriptEvaluator scriptEvaluator;
 
-    // FIXME
-    private final ConcurrentHashMap<String, PreparsedDocumentEntry> documentCache = new ConcurrentHashMap<>();
+    // <query, execution plan of parsed document>, the weight of plan is estimated by the length of query.
+    private final BoundedCache<String, ExecutionPlan> documentCache;
 
+    // the in flight fetches are cancelled if the execution exceeds the timeout, disabled if it's not positive.
+    private final long executionTimeoutMillis;
 
-    private ExecutionEngine(Executor executor, ObjectMapper objectMapper, ScriptEvaluator scriptEvaluator) {
+    private ExecutionEngine(Executor executor,
+                            ObjectMapper objectMapper,
+                            ScriptEvaluator scriptEvaluator,
+                            long documentCacheMaximumSize,
+                            long documentCacheMaximumWeight,
+                            long executionTimeoutMillis) {
         this.executor = Objects.requireNonNull(executor);
         this.objectMapper = Objects.requireNonNull(objectMapper);
         this.scriptEvaluator = Objects.requireNonNull(scriptEvaluator);
+        this.documentCache = BoundedCache.<String, ExecutionPlan>newCache()
+                .maximumSize(documentCacheMaximumSize)
+                .maximumWeight(documentCacheMaximumWeight)
+                .weigher((query, plan) -> query.length())
+                .build();
+        this.executionTimeoutMillis = executionTimeoutMillis;
     }
 
     public static ExecutionEngine newInstance(Config config) {
-        return new ExecutionEngine(config.getExecutor(), config.getObjectMapper(), config.getScriptEvaluator());
+        return new ExecutionEngine(
+                config.getExecutor(), config.getObjectMapper(), config.getScriptEvaluator(),
+                config.getDocumentCacheMaximumSize(), config.getDocumentCacheMaximumWeight(),
+                config.getExecutionTimeoutMillis()
+        );
+    }
+
+    /**
+     * Cancel the in flight fetches of the execution, e.g. the caller abandons the execution.
+     * <p>
+     * The in flight fetches are tracked only if the execution timeout is set, except the fetches timed out by @timeout.
+     *
+     * @param graphQLContext the context of execution input
+     * @return true if the execution is found and cancelled
+     */
+    public static boolean cancelExecution(GraphQLContext graphQLContext) {
+        ExecutionEngineState engineState = graphQLContext.get(ExecutionEngineState.class);
+        if (engineState == null) {
+            return false;
+        }
+
+        engineState.cancel();
+        return true;
+    }
+
+    /**
+     * @return the statistics of the cache of document execution plan.
+     */
+    public CacheStats getDocumentCacheStats() {
+        return documentCache.stats();
     }
 
     // ============================================== create InstrumentationState for engine  ==============================================
     @Override
     public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
-        PreparsedDocumentEntry documentEntry = documentCache.compute(parameters.getExecutionInput().getQuery(), (key, oldValue) -> {
-            if (oldValue != null) {
-                return oldValue;
-            }
-            try {
-                Document document = Parser.parse(key);
-                return new PreparsedDocumentEntry(document);
-            } catch (InvalidSyntaxException e) {
-                return new PreparsedDocumentEntry(e.toInvalidSyntaxError());
-            }
-        });
+        GraphQLSchema schema = parameters.getSchema();
+        ExecutionPlan executionPlan = documentCache.get(
+                parameters.getExecutionInput().getQuery(), query -> parseExecutionPlan(query, schema)
+        );
+
+        // the engine is used by the GraphQL with different schema, which is not expected.
+        if (executionPlan.getSchema() != null && executionPlan.getSchema() != schema) {
+            executionPlan = parseExecutionPlan(parameters.getExecutionInput().getQuery(), schema);
+        }
+
+        // the in flight fetches are tracked only if they may be cancelled by timeout.
+        if (executionPlan.isDirectiveFree() && executionTimeoutMillis <= 0) {
+            return DIRECTIVE_FREE_STATE;
+        }
+
+        ExecutionEngineState engineState = executionPlan.newExecutionState();
+        parameters.getExecutionInput().getGraphQLContext().put(ExecutionEngineState.class, engineState);
+        if (engineState.getBatchCollector() != null) {
+            // BatchDataFetcher collects the keys by the collector in context.
+            parameters.getExecutionInput().getGraphQLContext().put(BatchCollector.class, engineState.getBatchCollector());
+        }
+        return engineState;
+    }
+
+    private ExecutionPlan parseExecutionPlan(String query, GraphQLSchema schema) {
+        PreparsedDocumentEntry documentEntry;
+        try {
+            Document document = Parser.parse(query);
+            documentEntry = new PreparsedDocumentEntry(document);
+        } catch (InvalidSyntaxException e) {
+            documentEntry = new PreparsedDocumentEntry(e.toInvalidSyntaxError());
+        }
 
         if (documentEntry.hasErrors()) {
-            return ExecutionEngineState.newExecutionState().build();
+            return ExecutionPlan.emptyPlan();
         }
 
         QueryTraverser traverser = QueryTraverser.newQueryTraverser()
-                .schema(parameters.getSchema())
+                .schema(schema)
                 .document(documentEntry.getDocument())
                 .variables(Collections.emptyMap()).build();
 
-        ExecutionEngineStateParser stateParser = new ExecutionEngineStateParser();
+        ExecutionEngineStateParser stateParser = new ExecutionEngineStateParser(schema);
         traverser.visitDepthFirst(stateParser);
-        return stateParser.getExecutionEngineState();
+        return stateParser.getExecutionPlan();
     }
 
 
     // ============================================== alter InstrumentationState for engine  ================================================
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        if (state == DIRECTIVE_FREE_STATE) {
+            return super.beginExecution(parameters, state);
+        }
+
+        if (!(state instanceof ExecutionEngineState)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("state should be ExecutionEngineState, instead of {}", state == null ? null : state.getClass().getName());
+            }
+            return super.beginExecution(parameters, state);
+        }
+
+        ExecutionEngineState engineState = (ExecutionEngineState) state;
+        // cancel on executor, the timer thread should not run the dependent actions of cancelled futures.
+        HashedWheelTimer.Timeout timeout = executionTimeoutMillis > 0
+                ? HashedWheelTimer.sharedTimer().newTimeout(
+                () -> executor.execute(engineState::cancel), executionTimeoutMillis, TimeUnit.MILLISECONDS
+        ) : null;
+        return new SimpleInstrumentationContext<ExecutionResult>() {
+            @Override
+            public void onCompleted(ExecutionResult result, Throwable t) {
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                // the fetches which are still in flight are useless, e.g. the result is nulled by non-null field.
+                engineState.cancel();
+            }
+        };
+    }
+
+    // the document has been validated, start the fetches of @fetchSource paths before the execution strategy runs.
+    private void prefetch(ExecutionEngineState engineState, ExecutionContext executionContext) {
+        Map<String, CompletableFuture<Object>> prefetchedFutureByPath = SpeculativePrefetcher.prefetch(
+                engineState.getExecutionPlan(), executionContext
+        );
+        for (Map.Entry<String, CompletableFuture<Object>> entry : prefetchedFutureByPath.entrySet()) {
+            CompletableFuture<Object> prefetchedFuture = entry.getValue();
+            engineState.trackFuture(prefetchedFuture, null);
+            engineState.putPrefetchedFuture(entry.getKey(), prefetchedFuture);
+
+            // the failed speculative fetch is ignored, the field will be fetched again by graphql-java.
+            FetchSourceTask sourceTask = parseFetchSourceTask(engineState, entry.getKey());
+            if (sourceTask != null && !sourceTask.isInList()) {
+                prefetchedFuture.thenAccept(result -> completeTask(engineState, sourceTask, result));
+            }
+        }
+    }
+
     @Override
     public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        if (state == DIRECTIVE_FREE_STATE) {
+            return super.beginFieldFetch(parameters, state);
+        }
+
         if (!(state instanceof ExecutionEngineState)) {
             if (logger.isDebugEnabled()) {
                 logger.debug("state should be ExecutionEngineState, instead of {}", state == null ? null : state.getClass().getName());
@@ -156,6 +291,10 @@ public class ExecutionEngine extends SimpleInstrumentation {
 
     @Override
     public ExecutionContext instrumentExecutionContext(ExecutionContext executionContext, InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        if (state == DIRECTIVE_FREE_STATE) {
+            return executionContext;
+        }
+
         if (!(state instanceof ExecutionEngineState)) {
             if (logger.isDebugEnabled()) {
                 logger.debug("state should be ExecutionEngineState, instead of {}", state == null ? null : state.getClass().getName());
@@ -164,6 +303,11 @@ public class ExecutionEngine extends SimpleInstrumentation {
         }
 
         ExecutionEngineState engineState = (ExecutionEngineState) state;
+        // invoked after the document is validated, the speculative fetches never run for invalid documents.
+        if (!engineState.getExecutionPlan().getPrefetchFields().isEmpty()) {
+            prefetch(engineState, executionContext);
+        }
+
         if (!engineState.isContainSkipByOrIncludeBy()) {
             return super.instrumentExecutionContext(executionContext, parameters, state);
         }
@@ -171,9 +315,11 @@ public class ExecutionEngine extends SimpleInstrumentation {
         Document document = executionContext.getDocument();
         OperationDefinition operationDefinition = (OperationDefinition) document.getDefinitions().get(0);
 
-        Map<String, FragmentDefinition> transformedFragmentByName = transformFragmentByName(executionContext.getFragmentsByName(), executionContext.getCoercedVariables().toMap());
+        Map<String, FragmentDefinition> transformedFragmentByName = transformFragmentByName(
+                executionContext.getFragmentsByName(), executionContext.getCoercedVariables().toMap(), engineState.getExecutionPlan()
+        );
         SelectionSet transformedSelectionSet = transformSelectionForSkipAndInclude(
-                operationDefinition.getSelectionSet(), executionContext.getVariables()
+                operationDefinition.getSelectionSet(), executionContext.getVariables(), engineState.getExecutionPlan()
         );
 
         return executionContext.transform(executionContextBuilder -> {
@@ -191,18 +337,22 @@ public class ExecutionEngine extends SimpleInstrumentation {
         });
     }
 
-    private Map<String, FragmentDefinition> transformFragmentByName(Map<String, FragmentDefinition> fragmentsByName, Map<String, Object> variables) {
+    private Map<String, FragmentDefinition> transformFragmentByName(Map<String, FragmentDefinition> fragmentsByName,
+                                                                    Map<String, Object> variables,
+                                                                    ExecutionPlan executionPlan) {
         ImmutableMap.Builder<String, FragmentDefinition> fragmentsByNameBuilder = ImmutableMap.builder();
         for (Map.Entry<String, FragmentDefinition> entry : fragmentsByName.entrySet()) {
             SelectionSet selectionSet = entry.getValue().getSelectionSet();
-            SelectionSet transformedSelectionSet = transformSelectionForSkipAndInclude(selectionSet, variables);
+            SelectionSet transformedSelectionSet = transformSelectionForSkipAndInclude(selectionSet, variables, executionPlan);
             FragmentDefinition transformedFragmentDef = entry.getValue().transform(builder -> builder.selectionSet(transformedSelectionSet));
             fragmentsByNameBuilder.put(entry.getKey(), transformedFragmentDef);
         }
         return fragmentsByNameBuilder.build();
     }
 
-    private SelectionSet transformSelectionForSkipAndInclude(SelectionSet selectionSet, Map<String, Object> variables) {
+    private SelectionSet transformSelectionForSkipAndInclude(SelectionSet selectionSet,
+                                                             Map<String, Object> variables,
+                                                             ExecutionPlan executionPlan) {
         if (selectionSet == null || selectionSet.getSelections() == null) {
             return selectionSet;
         }
@@ -211,23 +361,23 @@ public class ExecutionEngine extends SimpleInstrumentation {
         for (Selection selection : selectionSet.getSelections()) {
             if (selection instanceof Field) {
                 Field field = (Field) selection;
-                if (shouldIncludeBy(field.getDirectives(), variables)) {
+                if (shouldIncludeBy(field.getDirectives(), variables, executionPlan)) {
                     SelectionSet subSelectionSet = field.getSelectionSet();
-                    SelectionSet newSubSelectionSet = transformSelectionForSkipAndInclude(subSelectionSet, variables);
+                    SelectionSet newSubSelectionSet = transformSelectionForSkipAndInclude(subSelectionSet, variables, executionPlan);
                     Field transformedField = field.transform(builder -> builder.selectionSet(newSubSelectionSet));
                     selectionBuilder.add(transformedField);
                 }
             } else if (selection instanceof InlineFragment) {
                 InlineFragment inlineFragment = (InlineFragment) selection;
-                if (shouldIncludeBy(inlineFragment.getDirectives(), variables)) {
+                if (shouldIncludeBy(inlineFragment.getDirectives(), variables, executionPlan)) {
                     SelectionSet subSelectionSet = inlineFragment.getSelectionSet();
-                    SelectionSet newSubSelectionSet = transformSelectionForSkipAndInclude(subSelectionSet, variables);
+                    SelectionSet newSubSelectionSet = transformSelectionForSkipAndInclude(subSelectionSet, variables, executionPlan);
                     InlineFragment transformedField = inlineFragment.transform(builder -> builder.selectionSet(newSubSelectionSet));
                     selectionBuilder.add(transformedField);
                 }
             } else if (selection instanceof FragmentSpread) {
                 FragmentSpread fragmentSpread = (FragmentSpread) selection;
-                if (shouldIncludeBy(fragmentSpread.getDirectives(), variables)) {
+                if (shouldIncludeBy(fragmentSpread.getDirectives(), variables, executionPlan)) {
                     selectionBuilder.add(fragmentSpread);
                 }
             }
@@ -250,12 +400,12 @@ public class ExecutionEngine extends SimpleInstrumentation {
     //}
     //
     // TODO custom exception for Instrumentation.
-    private boolean shouldIncludeBy(List<Directive> directives, Map<String, Object> variables) {
+    private boolean shouldIncludeBy(List<Directive> directives, Map<String, Object> variables, ExecutionPlan executionPlan) {
         boolean skipBy = false;
         Directive skipByDirective = CommonUtil.findNodeByName(directives, SKIP_BY.getName());
         if (skipByDirective != null) {
             String predicate = getArgumentFromDirective(skipByDirective, "predicate");
-            skipBy = (Boolean) scriptEvaluator.evaluate(predicate, variables);
+            skipBy = (Boolean) executionPlan.compileScript(predicate, scriptEvaluator).execute(variables);
         }
         if (skipBy) {
             return false;
@@ -265,7 +415,7 @@ public class ExecutionEngine extends SimpleInstrumentation {
         Directive includeByDirective = CommonUtil.findNodeByName(directives, INCLUDE_BY.getName());
         if (includeByDirective != null) {
             String predicate = getArgumentFromDirective(includeByDirective, "predicate");
-            includeBy = (Boolean) scriptEvaluator.evaluate(predicate, variables);
+            includeBy = (Boolean) executionPlan.compileScript(predicate, scriptEvaluator).execute(variables);
         }
         return includeBy;
     }
@@ -274,8 +424,12 @@ public class ExecutionEngine extends SimpleInstrumentation {
         return new InstrumentationContext<Object>() {
             @Override
             public void onDispatched(CompletableFuture<Object> future) {
-                String fieldFullPath = fieldPath(resultPath);
-                FetchSourceTask sourceTask = parseFetchSourceTask(engineState, fieldFullPath);
+                // the in flight fetches are cancelled only if the execution may time out.
+                if (executionTimeoutMillis > 0) {
+                    engineState.trackFuture(future, null);
+                }
+
+                FetchSourceTask sourceTask = engineState.getFetchSourceTask(resultPath);
                 if (sourceTask == null) {
                     return;
                 }
@@ -288,23 +442,7 @@ public class ExecutionEngine extends SimpleInstrumentation {
                             sourceTask.getTaskFuture().completeExceptionally(ex);
                             return;
                         }
-
-                        if (sourceTask.getMapper() == null) {
-                            sourceTask.getTaskFuture().complete(result);
-                        } else {
-                            try {
-                                Object mappedValue = scriptEvaluator.evaluate(
-                                        sourceTask.getMapper(), Collections.singletonMap(sourceTask.getResultKey(), getScriptEnv(objectMapper, result))
-                                );
-                                sourceTask.getTaskFuture().complete(mappedValue);
-                            } catch (Throwable t) {
-                                if (logger.isDebugEnabled()) {
-                                    logger.debug("evaluate throw Throwable, sourceTask.getMapper() is {}, resultKey = {},  result is {}.",
-                                            sourceTask.getMapper(), sourceTask.getResultKey(), result, t);
-                                }
-                                sourceTask.getTaskFuture().completeExceptionally(t);
-                            }
-                        }
+                        completeTask(engineState, sourceTask, result);
                     });
                 }
 
@@ -316,13 +454,35 @@ public class ExecutionEngine extends SimpleInstrumentation {
         };
     }
 
+    // the task may be completed by the speculative fetch before, then the later completion is ignored.
+    private void completeTask(ExecutionEngineState engineState, FetchSourceTask sourceTask, Object result) {
+        if (sourceTask.getMapper() == null) {
+            sourceTask.getTaskFuture().complete(result);
+            return;
+        }
+
+        try {
+            CompiledScript mapper = engineState.getExecutionPlan().compileScript(sourceTask.getMapper(), scriptEvaluator);
+            Object mappedValue = mapper.execute(
+                    Collections.singletonMap(sourceTask.getResultKey(), getScriptEnv(objectMapper, result))
+            );
+            sourceTask.getTaskFuture().complete(mappedValue);
+        } catch (Throwable t) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("evaluate throw Throwable, sourceTask.getMapper() is {}, resultKey = {},  result is {}.",
+                        sourceTask.getMapper(), sourceTask.getResultKey(), result, t);
+            }
+            sourceTask.getTaskFuture().completeExceptionally(t);
+        }
+    }
+
     private FetchSourceTask parseFetchSourceTask(ExecutionEngineState engineState, String fieldFullPath) {
         return engineState.getFetchSourceTaskByPath().get(fieldFullPath);
     }
 
-    private void completeChildrenTask(FetchSourceTask sourceTask) {
+    private void completeChildrenTask(ExecutionEngineState engineState, FetchSourceTask sourceTask) {
         for (FetchSourceTask child : sourceTask.getChildrenTaskList()) {
-            completeChildrenTask(child);
+            completeChildrenTask(engineState, child);
 
             if (child.getTaskFuture().isDone()) {
                 continue;
@@ -332,26 +492,18 @@ public class ExecutionEngine extends SimpleInstrumentation {
                 child.completeWithDummyValue();
             }
 
-            ArrayList<CompletableFuture<Object>> elementResultFuture = child.getListElementFutures();
-            CompletableFuture<Object>[] elementFutureArray = elementResultFuture.toArray(new CompletableFuture[0]);
-            CompletableFuture.allOf(elementFutureArray).whenComplete((ignore, ex) -> {
+            child.aggregateListElementResults((listResult, ex) -> {
                 if (ex != null) {
                     child.getTaskFuture().completeExceptionally(ex);
                     return;
                 }
 
-                ArrayList<Object> listResult = new ArrayList<>(elementResultFuture.size());
-                for (CompletableFuture<Object> elementFuture : elementResultFuture) {
-                    listResult.add(elementFuture.join());
-                }
-
                 if (child.getMapper() == null) {
                     child.getTaskFuture().complete(listResult);
                 } else {
                     try {
-                        Object mappedValue = scriptEvaluator.evaluate(
-                                child.getMapper(), Collections.singletonMap(child.getResultKey(), listResult)
-                        );
+                        CompiledScript mapper = engineState.getExecutionPlan().compileScript(child.getMapper(), scriptEvaluator);
+                        Object mappedValue = mapper.execute(Collections.singletonMap(child.getResultKey(), listResult));
                         child.getTaskFuture().complete(mappedValue);
                     } catch (Throwable t) {
                         if (logger.isDebugEnabled()) {
@@ -377,6 +529,8 @@ public class ExecutionEngine extends SimpleInstrumentation {
         strategyComposite.addStrategy(new DistinctDecorator());
         strategyComposite.addStrategy(new MapDecorator());
         strategyComposite.addStrategy(new ArgumentTransformDecorator());
+        strategyComposite.addStrategy(new TimeoutDecorator());
+        strategyComposite.addStrategy(new HedgeDecorator());
     }
 
     private static final FieldValueHandlerComposite fieldValueHandlerComposite = new FieldValueHandlerComposite();
@@ -389,6 +543,10 @@ public class ExecutionEngine extends SimpleInstrumentation {
 
     @Override
     public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        if (state == DIRECTIVE_FREE_STATE) {
+            return dataFetcher;
+        }
+
         if (!(state instanceof ExecutionEngineState)) {
             if (logger.isDebugEnabled()) {
                 logger.debug("state should be ExecutionEngineState, instead of {}", state == null ? null : state.getClass().getName());
@@ -396,35 +554,130 @@ public class ExecutionEngine extends SimpleInstrumentation {
             return super.instrumentDataFetcher(dataFetcher, parameters, state);
         }
 
-        List<Directive> directives = parameters.getEnvironment().getField().getDirectives();
-        return wrapDataFetcher(dataFetcher, directives, parameters, (ExecutionEngineState)state);
+        ExecutionEngineState engineState = (ExecutionEngineState) state;
+        DataFetcher<?> wrappedDataFetcher = wrapDataFetcher(dataFetcher, parameters, engineState);
+        if (engineState.hasPrefetchedFuture()) {
+            wrappedDataFetcher = prefetchedDataFetcher(wrappedDataFetcher, parameters, engineState);
+        }
+        if (executionTimeoutMillis > 0 && dataFetcher instanceof AsyncDataFetcherInterface) {
+            return cancellableDataFetcher((AsyncDataFetcherInterface<?>) dataFetcher, wrappedDataFetcher, engineState);
+        }
+        return wrappedDataFetcher;
+    }
+
+    // hand the future of speculative fetch to graphql-java, fetch the field again if the speculative fetch failed.
+    private DataFetcher<?> prefetchedDataFetcher(DataFetcher<?> wrappedDataFetcher,
+                                                 InstrumentationFieldFetchParameters parameters,
+                                                 ExecutionEngineState engineState) {
+        CompletableFuture<Object> prefetchedFuture = engineState.takePrefetchedFuture(parameters.getExecutionStepInfo().getPath());
+        if (prefetchedFuture == null || prefetchedFuture.isCompletedExceptionally()) {
+            return wrappedDataFetcher;
+        }
+
+        return environment -> prefetchedFuture.handle((result, ex) -> {
+            if (ex == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+
+            try {
+                Object refetchedResult = wrappedDataFetcher.get(environment);
+                if (refetchedResult instanceof CompletionStage) {
+                    return ((CompletionStage<Object>) refetchedResult).toCompletableFuture();
+                }
+                return CompletableFuture.completedFuture(refetchedResult);
+            } catch (Throwable t) {
+                CompletableFuture<Object> failedFuture = new CompletableFuture<>();
+                failedFuture.completeExceptionally(t);
+                return failedFuture;
+            }
+        }).thenCompose(Function.identity());
+    }
+
+    // signal the cancellation of execution to async dataFetcher.
+    private DataFetcher<?> cancellableDataFetcher(AsyncDataFetcherInterface<?> asyncDataFetcher,
+                                                  DataFetcher<?> wrappedDataFetcher,
+                                                  ExecutionEngineState engineState) {
+        return environment -> {
+            Object result = wrappedDataFetcher.get(environment);
+            if (result instanceof CompletableFuture) {
+                engineState.trackFuture((CompletableFuture<?>) result, () -> asyncDataFetcher.onCancel(environment));
+            }
+            return result;
+        };
     }
 
     private DataFetcher<?> wrapDataFetcher(DataFetcher<?> originalDataFetcher,
-                                           List<Directive> directivesOnField,
                                            InstrumentationFieldFetchParameters parameters,
                                            ExecutionEngineState instrumentationState) {
-        for (Directive directive : directivesOnField) {
-            DataFetchingEnvironment fetchingEnvironment = parameters.getEnvironment();
+        DataFetchingEnvironment fetchingEnvironment = parameters.getEnvironment();
+        Field field = fetchingEnvironment.getField();
+        if (!containDecoratedDirective(field.getDirectives())) {
+            return originalDataFetcher;
+        }
+
+        GraphQLFieldDefinition fieldDefinition = fetchingEnvironment.getFieldDefinition();
+        DataFetcher<?> decoratedFetcher = instrumentationState.getDecoratedFetcher(field, fieldDefinition, originalDataFetcher);
+        if (decoratedFetcher != null) {
+            return decoratedFetcher;
+        }
+
+        // the arguments of directives are parsed once per document, only the closures are built per execution.
+        GraphQLType parentType = fetchingEnvironment.getParentType();
+        String fieldKey = GraphQLTypeUtil.simplePrint(parentType) + ":" + fieldPath(parameters.getExecutionStepInfo().getPath());
+        List<Object> directiveArguments = instrumentationState.getExecutionPlan().getDirectiveArguments(
+                fieldKey, ignore -> parseDirectiveArguments(field.getDirectives())
+        );
+
+        decoratedFetcher = originalDataFetcher;
+        int argumentsIndex = 0;
+        for (Directive directive : field.getDirectives()) {
+            if (!strategyComposite.supportDirective(directive)) {
+                continue;
+            }
+
             DecorateEnvironment wrapperEnvironment = new DecorateEnvironment(
-                    fetchingEnvironment.getField(),
-                    originalDataFetcher, fetchingEnvironment.getFieldDefinition(),
-                    directive, fetchingEnvironment.getFieldDefinition().getDirectives(),
-                    fetchingEnvironment, instrumentationState, parameters.getExecutionContext().getValueUnboxer(),
+                    field,
+                    decoratedFetcher, fieldDefinition,
+                    directive, directiveArguments.get(argumentsIndex++), fieldDefinition.getDirectives(),
+                    parentType, instrumentationState, parameters.getExecutionContext().getValueUnboxer(),
                     executor, objectMapper, scriptEvaluator
 
             );
+            decoratedFetcher = strategyComposite.decorate(directive, wrapperEnvironment);
+        }
+
+        return instrumentationState.putDecoratedFetcherIfAbsent(field, fieldDefinition, originalDataFetcher, decoratedFetcher);
+    }
 
-            if (strategyComposite.supportDirective(directive, wrapperEnvironment)) {
-                originalDataFetcher = strategyComposite.decorate(directive, wrapperEnvironment);
+    private List<Object> parseDirectiveArguments(List<Directive> directives) {
+        List<Object> directiveArguments = new ArrayList<>();
+        for (Directive directive : directives) {
+            if (strategyComposite.supportDirective(directive)) {
+                directiveArguments.add(strategyComposite.parseArguments(directive));
             }
         }
+        return Collections.unmodifiableList(directiveArguments);
+    }
 
-        return originalDataFetcher;
+    private boolean containDecoratedDirective(List<Directive> directives) {
+        if (directives == null || directives.isEmpty()) {
+            return false;
+        }
+
+        for (Directive directive : directives) {
+            if (strategyComposite.supportDirective(directive)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public InstrumentationContext<ExecutionResult> beginFieldListComplete(InstrumentationFieldCompleteParameters parameters, InstrumentationState state) {
+        if (state == DIRECTIVE_FREE_STATE) {
+            return super.beginFieldListComplete(parameters, state);
+        }
+
         if (!(state instanceof ExecutionEngineState)) {
             if (logger.isDebugEnabled()) {
                 logger.debug("state should be ExecutionEngineState, instead of {}", state == null ? null : state.getClass().getName());
@@ -435,16 +688,21 @@ public class ExecutionEngine extends SimpleInstrumentation {
         return new InstrumentationContext<ExecutionResult>() {
             @Override
             public void onDispatched(CompletableFuture<ExecutionResult> result) {
-                String fieldFullPath = fieldPath(parameters.getExecutionStrategyParameters().getPath());
-                FetchSourceTask fetchSourceTask = parseFetchSourceTask(
-                        (ExecutionEngineState)state, fieldFullPath
+                // all the elements of list are dispatched, load the keys collected from them.
+                BatchCollector batchCollector = ((ExecutionEngineState) state).getBatchCollector();
+                if (batchCollector != null) {
+                    batchCollector.onListDispatched(parameters.getExecutionStrategyParameters().getPath());
+                }
+
+                FetchSourceTask fetchSourceTask = ((ExecutionEngineState) state).getFetchSourceTask(
+                        parameters.getExecutionStrategyParameters().getPath()
                 );
                 if (fetchSourceTask == null) {
                     return;
                 }
 
                 if (fetchSourceTask.isTopTask()) {
-                    completeChildrenTask(fetchSourceTask);
+                    completeChildrenTask((ExecutionEngineState) state, fetchSourceTask);
                 }
 
             }
@@ -461,7 +719,7 @@ public class ExecutionEngine extends SimpleInstrumentation {
 
                 List<Directive> directives = parameters.getExecutionStepInfo().getField().getSingleField().getDirectives();
                 if (directives != null && !directives.isEmpty()) {
-                    transformListResultByDirectives(result, directives, parameters);
+                    transformListResultByDirectives(result, directives, parameters, (ExecutionEngineState) state);
                 }
             }
         };
@@ -469,11 +727,12 @@ public class ExecutionEngine extends SimpleInstrumentation {
 
     private void transformListResultByDirectives(ExecutionResult result,
                                                  List<Directive> directives,
-                                                 InstrumentationFieldCompleteParameters parameters) {
+                                                 InstrumentationFieldCompleteParameters parameters,
+                                                 ExecutionEngineState engineState) {
         for (Directive directive : directives) {
 
             HandleEnvironment handleEnvironment = new HandleEnvironment(
-                    directive, result, parameters, executor, objectMapper, scriptEvaluator
+                    directive, result, parameters, engineState, executor, objectMapper, scriptEvaluator
             );
 
             if (fieldValueHandlerComposite.supportDirective(directive)) {
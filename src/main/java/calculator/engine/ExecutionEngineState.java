@@ -19,114 +19,297 @@ package calculator.engine;
 
 import calculator.engine.annotation.Internal;
 import calculator.engine.metadata.FetchSourceTask;
+import graphql.execution.ResultPath;
 import graphql.execution.instrumentation.InstrumentationState;
+import graphql.language.Field;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLFieldDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 
 @Internal
 public class ExecutionEngineState implements InstrumentationState {
 
-    private final boolean containSkipByOrIncludeBy;
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionEngineState.class);
+
+    private final ExecutionPlan executionPlan;
 
     private final Map<String, FetchSourceTask> fetchSourceTaskByPath;
 
-    private final Map<String, List<String>> topTaskBySourceName;
+    // <pathId, task>, the id of path is assigned by the PathTrie of plan, null for the path without task.
+    private final FetchSourceTask[] fetchSourceTaskByPathId;
+
+    // <sourceName, the future of source value>, the value is resolved once and shared by all the dependent fields.
+    private final Map<String, CompletableFuture<Object>> sourceValueFutureByName = new ConcurrentHashMap<>();
+
+    // the decorated DataFetcher is shared by all the fetches of the same field, e.g. the field of list elements.
+    private final Map<DecoratedFieldKey, DataFetcher<?>> decoratedFetcherByField = new ConcurrentHashMap<>();
+
+    // <pathId, the future of speculative fetch>, the future is handed to the fetch of the field once,
+    // only created if the plan contains prefetch fields.
+    private final AtomicReferenceArray<CompletableFuture<Object>> prefetchedFutureByPathId;
+
+    private final AtomicInteger prefetchedFutureCount = new AtomicInteger();
+
+    // only created if the document selects the field annotated by @batch.
+    private final BatchCollector batchCollector;
 
-    // <sourceName,List<fullFieldPath>>
-    private final Map<String, List<String>> queryTaskBySourceName;
+    // the futures which are still in flight, they are removed once completed and cancelled when the execution is cancelled.
+    private final Set<OutstandingFuture> outstandingFutures = ConcurrentHashMap.newKeySet();
 
-    private ExecutionEngineState(
-            boolean containSkipByOrIncludeBy,
-            Map<String, FetchSourceTask> fetchSourceTaskByPath,
-            Map<String, List<String>> topTaskByNode,
-            Map<String, List<String>> queryTaskByNode
-    ) {
-        this.containSkipByOrIncludeBy = containSkipByOrIncludeBy;
+    private volatile boolean cancelled;
+
+    /**
+     * Created by {@link ExecutionPlan#newExecutionState()}, the tasks are owned by this state.
+     */
+    ExecutionEngineState(ExecutionPlan executionPlan,
+                         Map<String, FetchSourceTask> fetchSourceTaskByPath,
+                         FetchSourceTask[] fetchSourceTaskByPathId) {
+        this.executionPlan = executionPlan;
         this.fetchSourceTaskByPath = Collections.unmodifiableMap(fetchSourceTaskByPath);
-        this.topTaskBySourceName = Collections.unmodifiableMap(topTaskByNode);
-        this.queryTaskBySourceName = Collections.unmodifiableMap(queryTaskByNode);
+        this.fetchSourceTaskByPathId = fetchSourceTaskByPathId;
+        this.batchCollector = executionPlan.isContainBatchField() ? new BatchCollector() : null;
+        this.prefetchedFutureByPathId = executionPlan.getPrefetchFields().isEmpty()
+                ? null : new AtomicReferenceArray<>(executionPlan.getPathTrie().size());
+    }
+
+    public ExecutionPlan getExecutionPlan() {
+        return executionPlan;
     }
 
     public boolean isContainSkipByOrIncludeBy() {
-        return containSkipByOrIncludeBy;
+        return executionPlan.isContainSkipByOrIncludeBy();
+    }
+
+    /**
+     * @return the collector of @batch fields in this execution, null if the document doesn't select them.
+     */
+    BatchCollector getBatchCollector() {
+        return batchCollector;
     }
 
     public Map<String, FetchSourceTask> getFetchSourceTaskByPath() {
         return fetchSourceTaskByPath;
     }
 
+    /**
+     * Get the task of the field by result path, which is resolved by the path trie of plan without building string path.
+     *
+     * @param resultPath the result path of field
+     * @return the task of field, null if the field is not on the path of @fetchSource
+     */
+    public FetchSourceTask getFetchSourceTask(ResultPath resultPath) {
+        if (fetchSourceTaskByPathId.length == 0) {
+            return null;
+        }
+
+        int pathId = executionPlan.getPathTrie().resolve(resultPath);
+        return pathId == PathTrie.NO_PATH ? null : fetchSourceTaskByPathId[pathId];
+    }
+
     public Map<String, List<String>> getTopTaskBySourceName() {
-        return topTaskBySourceName;
+        return executionPlan.getTopTaskBySourceName();
     }
 
     public Map<String, List<String>> getQueryTaskBySourceName() {
-        return queryTaskBySourceName;
+        return executionPlan.getQueryTaskBySourceName();
     }
 
-    public static Builder newExecutionState() {
-        return new Builder();
+    /**
+     * Get the future of the fetch source value, the future will be created by resolver if absent.
+     *
+     * @param sourceName the name of fetch source
+     * @param resolver   the function to create the future of source value
+     * @return the future of source value
+     */
+    public CompletableFuture<Object> computeSourceValueFutureIfAbsent(String sourceName,
+                                                                     Function<String, CompletableFuture<Object>> resolver) {
+        CompletableFuture<Object> valueFuture = sourceValueFutureByName.get(sourceName);
+        if (valueFuture != null) {
+            return valueFuture;
+        }
+        return sourceValueFutureByName.computeIfAbsent(sourceName, resolver);
     }
 
-    public static class Builder {
+    /**
+     * Get the decorated DataFetcher of the field which has been created in this execution.
+     *
+     * @param field           the field
+     * @param fieldDefinition the definition of field
+     * @param dataFetcher     the original DataFetcher of field
+     * @return the decorated DataFetcher, null if absent
+     */
+    public DataFetcher<?> getDecoratedFetcher(Field field, GraphQLFieldDefinition fieldDefinition, DataFetcher<?> dataFetcher) {
+        return decoratedFetcherByField.get(new DecoratedFieldKey(field, fieldDefinition, dataFetcher));
+    }
 
-        private volatile boolean containSkipByOrIncludeBy = false;
+    /**
+     * Save the decorated DataFetcher of the field if absent.
+     *
+     * @return the decorated DataFetcher which is associated with the field
+     */
+    public DataFetcher<?> putDecoratedFetcherIfAbsent(Field field,
+                                                      GraphQLFieldDefinition fieldDefinition,
+                                                      DataFetcher<?> dataFetcher,
+                                                      DataFetcher<?> decoratedFetcher) {
+        DataFetcher<?> existing = decoratedFetcherByField.putIfAbsent(
+                new DecoratedFieldKey(field, fieldDefinition, dataFetcher), decoratedFetcher
+        );
+        return existing != null ? existing : decoratedFetcher;
+    }
 
-        private Map<String, FetchSourceTask> fetchSourceTaskByPath = new ConcurrentHashMap<>();
+    // the prefetch fields are the @fetchSource fields and their ancestors, which are all in the trie of plan.
+    void putPrefetchedFuture(String fieldFullPath, CompletableFuture<Object> prefetchedFuture) {
+        int pathId = executionPlan.getPathTrie().getPathId(fieldFullPath);
+        if (pathId != PathTrie.NO_PATH && prefetchedFutureByPathId.getAndSet(pathId, prefetchedFuture) == null) {
+            prefetchedFutureCount.incrementAndGet();
+        }
+    }
 
-        private Map<String, List<String>> topTaskBySourceName = new LinkedHashMap<>();
+    boolean hasPrefetchedFuture() {
+        return prefetchedFutureCount.get() > 0;
+    }
 
-        private Map<String, List<String>> queryTaskBySourceName = new LinkedHashMap<>();
+    /**
+     * Take the future of speculative fetch of the field, the future will be removed from state.
+     *
+     * @param resultPath the result path of field
+     * @return the future of speculative fetch, null if the field is not prefetched
+     */
+    CompletableFuture<Object> takePrefetchedFuture(ResultPath resultPath) {
+        int pathId = executionPlan.getPathTrie().resolve(resultPath);
+        if (pathId == PathTrie.NO_PATH) {
+            return null;
+        }
 
+        CompletableFuture<Object> prefetchedFuture = prefetchedFutureByPathId.getAndSet(pathId, null);
+        if (prefetchedFuture != null) {
+            prefetchedFutureCount.decrementAndGet();
+        }
+        return prefetchedFuture;
+    }
 
-        public Builder containSkipByOrIncludeBy() {
-            containSkipByOrIncludeBy = true;
-            return this;
+    /**
+     * Track the future which is in flight, it will be cancelled if the execution is cancelled.
+     *
+     * @param future   the future of fetching
+     * @param onCancel the callback invoked after the future is cancelled, nullable
+     */
+    public void trackFuture(CompletableFuture<?> future, Runnable onCancel) {
+        if (future.isDone()) {
+            return;
         }
 
-        public boolean isContainSkipByOrIncludeBy() {
-            return containSkipByOrIncludeBy;
+        OutstandingFuture outstandingFuture = new OutstandingFuture(future, onCancel);
+        outstandingFutures.add(outstandingFuture);
+        future.whenComplete((result, ex) -> outstandingFutures.remove(outstandingFuture));
+        // the execution is cancelled concurrently.
+        if (cancelled) {
+            cancelOutstandingFutures();
         }
+    }
 
-        public Builder fetchSourceTask(String fieldFullPath, FetchSourceTask fetchSourceTask) {
-            fetchSourceTaskByPath.put(fieldFullPath, fetchSourceTask);
-            return this;
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    int getOutstandingFutureCount() {
+        return outstandingFutures.size();
+    }
+
+    /**
+     * Cancel the in flight futures of this execution, including the tasks of @fetchSource,
+     * it's invoked when the execution is completed, failed or timeout.
+     */
+    public void cancel() {
+        cancelled = true;
+        cancelOutstandingFutures();
+
+        for (FetchSourceTask task : fetchSourceTaskByPath.values()) {
+            task.getTaskFuture().cancel(false);
+        }
+        for (CompletableFuture<Object> sourceValueFuture : sourceValueFutureByName.values()) {
+            sourceValueFuture.cancel(false);
         }
+    }
 
-        public Builder taskByPathIfAbsent(String fieldFullPath, Supplier<FetchSourceTask> fetchSourceTaskSupplier) {
-            if (!fetchSourceTaskByPath.containsKey(fieldFullPath)) {
-                fetchSourceTaskByPath.put(fieldFullPath, fetchSourceTaskSupplier.get());
+    private void cancelOutstandingFutures() {
+        for (OutstandingFuture outstandingFuture : outstandingFutures) {
+            // the future is completed or cancelled concurrently.
+            if (!outstandingFutures.remove(outstandingFuture)) {
+                continue;
             }
 
-            return this;
+            outstandingFuture.future.cancel(false);
+            // the future may be tracked more than once, the callback is invoked as long as it's cancelled.
+            if (outstandingFuture.onCancel != null && outstandingFuture.future.isCancelled()) {
+                try {
+                    outstandingFuture.onCancel.run();
+                } catch (Throwable t) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("invoke cancel callback failed.", t);
+                    }
+                }
+            }
         }
+    }
 
-        public Builder taskByPathIfAbsent(String fieldFullPath, FetchSourceTask fetchSourceTask) {
-            if (!fetchSourceTaskByPath.containsKey(fieldFullPath)) {
-                fetchSourceTaskByPath.put(fieldFullPath, fetchSourceTask);
-            }
+    private static class OutstandingFuture {
+
+        private final CompletableFuture<?> future;
 
-            return this;
+        private final Runnable onCancel;
+
+        OutstandingFuture(CompletableFuture<?> future, Runnable onCancel) {
+            this.future = future;
+            this.onCancel = onCancel;
         }
+    }
 
+    // the components are compared by identity.
+    private static class DecoratedFieldKey {
 
-        public Builder topTaskList(String sourceName, List<String> topTaskList) {
-            topTaskBySourceName.put(sourceName, topTaskList);
-            return this;
+        private final Field field;
+
+        private final GraphQLFieldDefinition fieldDefinition;
+
+        private final DataFetcher<?> dataFetcher;
+
+        DecoratedFieldKey(Field field, GraphQLFieldDefinition fieldDefinition, DataFetcher<?> dataFetcher) {
+            this.field = field;
+            this.fieldDefinition = fieldDefinition;
+            this.dataFetcher = dataFetcher;
         }
 
-        public Builder queryTaskList(String sourceName, List<String> queryTaskList) {
-            queryTaskBySourceName.put(sourceName, queryTaskList);
-            return this;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DecoratedFieldKey)) {
+                return false;
+            }
+            DecoratedFieldKey that = (DecoratedFieldKey) o;
+            return field == that.field && fieldDefinition == that.fieldDefinition && dataFetcher == that.dataFetcher;
         }
 
-        public ExecutionEngineState build() {
-            return new ExecutionEngineState(containSkipByOrIncludeBy, fetchSourceTaskByPath, topTaskBySourceName, queryTaskBySourceName);
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(field);
+            result = 31 * result + System.identityHashCode(fieldDefinition);
+            result = 31 * result + System.identityHashCode(dataFetcher);
+            return result;
         }
     }
 }
@@ -26,6 +26,7 @@ import graphql.analysis.QueryVisitorFragmentSpreadEnvironment;
 import graphql.analysis.QueryVisitorInlineFragmentEnvironment;
 import graphql.com.google.common.base.Objects;
 import graphql.language.Directive;
+import graphql.schema.GraphQLSchema;
 import graphql.util.TraverserContext;
 
 import java.util.ArrayList;
@@ -34,6 +35,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import static calculator.common.CommonUtil.getArgumentFromDirective;
+import static calculator.common.CommonUtil.getDependenceSourceFromDirective;
 import static calculator.common.GraphQLUtil.isInList;
 import static calculator.common.GraphQLUtil.isListNode;
 import static calculator.common.GraphQLUtil.parentPathList;
@@ -44,11 +46,24 @@ import static calculator.engine.metadata.Directives.SKIP_BY;
 @Internal
 public class ExecutionEngineStateParser implements QueryVisitor {
 
-    private final ExecutionEngineState.Builder engineStateBuilder = new ExecutionEngineState.Builder();
+    private final ExecutionPlan.Builder executionPlanBuilder = ExecutionPlan.newExecutionPlan();
 
+    public ExecutionEngineStateParser() {
+    }
+
+    public ExecutionEngineStateParser(GraphQLSchema schema) {
+        executionPlanBuilder.schema(schema);
+    }
+
+    /**
+     * @return the immutable plan which can be shared by the executions of the same document.
+     */
+    public ExecutionPlan getExecutionPlan() {
+        return executionPlanBuilder.build();
+    }
 
     public ExecutionEngineState getExecutionEngineState() {
-        return engineStateBuilder.build();
+        return getExecutionPlan().newExecutionState();
     }
 
     @Override
@@ -57,6 +72,18 @@ public class ExecutionEngineStateParser implements QueryVisitor {
             return;
         }
         determineContainSkipByOrIncludeBy(environment.getField().getDirectives());
+        determineContainCalDirective(environment.getField().getDirectives());
+        if (environment.getFieldDefinition().getDirective(Directives.BATCH.getName()) != null) {
+            executionPlanBuilder.containBatchField();
+        }
+
+        for (Directive directive : environment.getField().getDirectives()) {
+            List<String> dependencySources = getDependenceSourceFromDirective(directive);
+            if (dependencySources != null && !dependencySources.isEmpty()) {
+                executionPlanBuilder.consumerFieldPath(pathForTraverse(environment));
+                break;
+            }
+        }
 
         List<Directive> directives = environment.getField().getDirectives(Directives.FETCH_SOURCE.getName());
         if (directives != null && !directives.isEmpty()) {
@@ -70,8 +97,12 @@ public class ExecutionEngineStateParser implements QueryVisitor {
             parseFetchSourceInfo(sourceName, true, sourceConvert, environment, topTaskPathList, queryTaskPathList);
             // traverserContext is shared in a visitor-operation.
             environment.getTraverserContext().setAccumulate(null);
-            engineStateBuilder.topTaskList(sourceName, topTaskPathList);
-            engineStateBuilder.queryTaskList(sourceName, queryTaskPathList);
+            executionPlanBuilder.topTaskList(sourceName, topTaskPathList);
+            executionPlanBuilder.queryTaskList(sourceName, queryTaskPathList);
+
+            if (!isInList(environment)) {
+                executionPlanBuilder.prefetchFields(SpeculativePrefetcher.collectPrefetchFields(environment));
+            }
         }
     }
 
@@ -113,7 +144,7 @@ public class ExecutionEngineStateParser implements QueryVisitor {
                         .resultKey(visitorEnv.getField().getResultKey())
                         .build();
                 visitorEnv.getTraverserContext().setAccumulate(task);
-                engineStateBuilder.fetchSourceTask(fieldFullPath, task);
+                executionPlanBuilder.fetchSourceTask(fieldFullPath, task);
             }
 
             ArrayList<String> queryPathList = parentPathList(visitorEnv);
@@ -128,7 +159,7 @@ public class ExecutionEngineStateParser implements QueryVisitor {
                         .isTopTask(false)
                         .taskFuture(new CompletableFuture<>())
                         .build();
-                engineStateBuilder.taskByPathIfAbsent(queryPath, queryTaskSupplier);
+                executionPlanBuilder.taskByPathIfAbsent(queryPath, queryTaskSupplier);
             }
             return;
         }
@@ -157,7 +188,7 @@ public class ExecutionEngineStateParser implements QueryVisitor {
                     .mapper(sourceConvert)
                     .build();
             visitorEnv.getTraverserContext().setAccumulate(currentTask);
-            engineStateBuilder.taskByPathIfAbsent(fieldFullPath, currentTask);
+            executionPlanBuilder.taskByPathIfAbsent(fieldFullPath, currentTask);
         } else {
             // 对于 [list-a,[b,[c,d]]] 这种情况，先解析c、然后解析d的时候递归会执行到这里
             currentTask = visitorEnv.getTraverserContext().getNewAccumulate();
@@ -173,6 +204,7 @@ public class ExecutionEngineStateParser implements QueryVisitor {
         }
 
         determineContainSkipByOrIncludeBy(visitorEnvironment.getInlineFragment().getDirectives());
+        determineContainCalDirective(visitorEnvironment.getInlineFragment().getDirectives());
     }
 
     @Override
@@ -182,13 +214,14 @@ public class ExecutionEngineStateParser implements QueryVisitor {
         }
 
         determineContainSkipByOrIncludeBy(visitorEnvironment.getFragmentSpread().getDirectives());
+        determineContainCalDirective(visitorEnvironment.getFragmentSpread().getDirectives());
     }
 
     /**
      * Determine whether the directives contain skipBy or includeBy.
      */
     private void determineContainSkipByOrIncludeBy(List<Directive> directives) {
-        if (engineStateBuilder.isContainSkipByOrIncludeBy()) {
+        if (executionPlanBuilder.isContainSkipByOrIncludeBy()) {
             return;
         }
 
@@ -196,7 +229,23 @@ public class ExecutionEngineStateParser implements QueryVisitor {
                 directive -> Objects.equal(SKIP_BY.getName(), directive.getName()) || Objects.equal(INCLUDE_BY.getName(), directive.getName())
         );
         if (containSkipByOrIncludeBy) {
-            engineStateBuilder.containSkipByOrIncludeBy();
+            executionPlanBuilder.containSkipByOrIncludeBy();
+        }
+    }
+
+    /**
+     * Determine whether the directives contain any query directive of calculator.
+     */
+    private void determineContainCalDirective(List<Directive> directives) {
+        if (executionPlanBuilder.isContainCalDirective()) {
+            return;
+        }
+
+        for (Directive directive : directives) {
+            if (Directives.getCalQueryDirectiveByName().containsKey(directive.getName())) {
+                executionPlanBuilder.containCalDirective();
+                return;
+            }
         }
     }
 
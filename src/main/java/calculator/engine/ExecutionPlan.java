@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+
+import calculator.engine.SpeculativePrefetcher.PrefetchField;
+import calculator.engine.annotation.Internal;
+import calculator.engine.metadata.FetchSourceTask;
+import calculator.engine.script.CompiledScript;
+import calculator.engine.script.ScriptEvaluator;
+import graphql.execution.ResultPath;
+import graphql.schema.GraphQLSchema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The immutable execution plan of a document, which only depends on the document and schema,
+ * and can be cached and shared by all the executions of the same document.
+ * <p>
+ * The {@link FetchSourceTask} held by plan are templates and never be completed,
+ * {@link #newExecutionState()} instantiates them with new futures for each execution.
+ */
+@Internal
+public class ExecutionPlan {
+
+    private static final FetchSourceTask[] EMPTY_TASKS = new FetchSourceTask[0];
+
+    private static final ExecutionPlan EMPTY_PLAN = new ExecutionPlan(
+            null, false, false, false, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptySet(),
+            Collections.emptyMap()
+    );
+
+    /**
+     * The dispatch priority of the fields on the path to @fetchSource, which are dispatched before their siblings.
+     */
+    public static final int SOURCE_PRIORITY = 0;
+
+    public static final int DEFAULT_PRIORITY = 1;
+
+    /**
+     * The dispatch priority of the fields depending on sources, which are dispatched after their siblings.
+     */
+    public static final int CONSUMER_PRIORITY = 2;
+
+    private final GraphQLSchema schema;
+
+    private final boolean containSkipByOrIncludeBy;
+
+    // whether the document selects the field annotated by @batch.
+    private final boolean containBatchField;
+
+    // whether the document uses any query directive of calculator.
+    private final boolean containCalDirective;
+
+    private final Map<String, FetchSourceTask> taskTemplateByPath;
+
+    private final Map<String, List<String>> topTaskBySourceName;
+
+    // <sourceName,List<fullFieldPath>>
+    private final Map<String, List<String>> queryTaskBySourceName;
+
+    // the fullPath of fields which use 'dependencySources'.
+    private final Set<String> consumerFieldPaths;
+
+    // the trie of the paths of tasks and consumers, the ResultPath of fetch is resolved to the id of path by trie.
+    private final PathTrie pathTrie;
+
+    // <pathId, dispatch priority>
+    private final int[] priorityByPathId;
+
+    // the fields which can be fetched speculatively, the parent field is in front of children.
+    private final List<PrefetchField> prefetchFields;
+
+    // <script, compiled script>, the scripts are bound once per plan and shared by executions.
+    private final Map<String, CompiledScript> compiledScriptByText = new ConcurrentHashMap<>();
+
+    // <parentType:fieldFullPath, the parsed arguments of decorated directives on field>, parsed once per plan.
+    private final Map<String, List<Object>> directiveArgumentsByField = new ConcurrentHashMap<>();
+
+    private ExecutionPlan(GraphQLSchema schema,
+                          boolean containSkipByOrIncludeBy,
+                          boolean containBatchField,
+                          boolean containCalDirective,
+                          Map<String, FetchSourceTask> taskTemplateByPath,
+                          Map<String, List<String>> topTaskBySourceName,
+                          Map<String, List<String>> queryTaskBySourceName,
+                          Set<String> consumerFieldPaths,
+                          Map<String, PrefetchField> prefetchFieldByPath) {
+        this.schema = schema;
+        this.containSkipByOrIncludeBy = containSkipByOrIncludeBy;
+        this.containBatchField = containBatchField;
+        this.containCalDirective = containCalDirective;
+        this.taskTemplateByPath = Collections.unmodifiableMap(taskTemplateByPath);
+        this.topTaskBySourceName = Collections.unmodifiableMap(topTaskBySourceName);
+        this.queryTaskBySourceName = Collections.unmodifiableMap(queryTaskBySourceName);
+        this.consumerFieldPaths = Collections.unmodifiableSet(consumerFieldPaths);
+
+        Set<String> indexedPaths = new LinkedHashSet<>(taskTemplateByPath.keySet());
+        indexedPaths.addAll(consumerFieldPaths);
+        this.pathTrie = PathTrie.newPathTrie(indexedPaths);
+        this.priorityByPathId = new int[pathTrie.size()];
+        for (int pathId = 0; pathId < priorityByPathId.length; pathId++) {
+            priorityByPathId[pathId] = consumerFieldPaths.contains(pathTrie.getPath(pathId)) ? CONSUMER_PRIORITY : DEFAULT_PRIORITY;
+        }
+        // the ancestors of @fetchSource are dispatched first too, the source can't be fetched before its parents.
+        for (String taskPath : taskTemplateByPath.keySet()) {
+            for (int pathId : pathTrie.getPrefixIds(taskPath)) {
+                priorityByPathId[pathId] = SOURCE_PRIORITY;
+            }
+        }
+        this.prefetchFields = Collections.unmodifiableList(new ArrayList<>(prefetchFieldByPath.values()));
+    }
+
+    public static ExecutionPlan emptyPlan() {
+        return EMPTY_PLAN;
+    }
+
+    /**
+     * @return the schema which the plan is parsed by, null for empty plan.
+     */
+    public GraphQLSchema getSchema() {
+        return schema;
+    }
+
+    public boolean isContainSkipByOrIncludeBy() {
+        return containSkipByOrIncludeBy;
+    }
+
+    public boolean isContainBatchField() {
+        return containBatchField;
+    }
+
+    /**
+     * @return whether the document uses no directive of calculator, the engine does nothing for its executions.
+     */
+    public boolean isDirectiveFree() {
+        return !containCalDirective && !containBatchField && taskTemplateByPath.isEmpty();
+    }
+
+    public Map<String, List<String>> getTopTaskBySourceName() {
+        return topTaskBySourceName;
+    }
+
+    public Map<String, List<String>> getQueryTaskBySourceName() {
+        return queryTaskBySourceName;
+    }
+
+    /**
+     * @return whether there are fields depending on the @fetchSource in this document.
+     */
+    public boolean isContainDependency() {
+        return !consumerFieldPaths.isEmpty() && !taskTemplateByPath.isEmpty();
+    }
+
+    /**
+     * Get the dispatch priority of field, the siblings are dispatched by ascending priority, so that
+     * the sources are resolved as early as possible and the consumers are composed on the resolved sources.
+     *
+     * @param fieldFullPath the full path of field
+     * @return the dispatch priority of field
+     */
+    public int getDispatchPriority(String fieldFullPath) {
+        int pathId = pathTrie.getPathId(fieldFullPath);
+        return pathId == PathTrie.NO_PATH ? DEFAULT_PRIORITY : priorityByPathId[pathId];
+    }
+
+    /**
+     * @return the fields on the path of @fetchSource which can be fetched when execution starts, parents first.
+     */
+    public List<PrefetchField> getPrefetchFields() {
+        return prefetchFields;
+    }
+
+    /**
+     * Get the dispatch priority of field by the result path, the string path of field is not built.
+     *
+     * @param resultPath the result path of field
+     * @return the dispatch priority of field
+     */
+    public int getDispatchPriority(ResultPath resultPath) {
+        int pathId = pathTrie.resolve(resultPath);
+        return pathId == PathTrie.NO_PATH ? DEFAULT_PRIORITY : priorityByPathId[pathId];
+    }
+
+    /**
+     * @return the trie of the paths of @fetchSource tasks and the fields depending on sources.
+     */
+    public PathTrie getPathTrie() {
+        return pathTrie;
+    }
+
+    /**
+     * Get the compiled handle of the script used in this document, the script will be compiled only once.
+     *
+     * @param script          script
+     * @param scriptEvaluator the evaluator to compile script
+     * @return the compiled script
+     */
+    public CompiledScript compileScript(String script, ScriptEvaluator scriptEvaluator) {
+        CompiledScript compiledScript = compiledScriptByText.get(script);
+        if (compiledScript != null) {
+            return compiledScript;
+        }
+
+        return compiledScriptByText.computeIfAbsent(script, scriptEvaluator::compile);
+    }
+
+    /**
+     * Get the parsed arguments of the decorated directives on field, the arguments are parsed only once
+     * and shared by all the executions of the same document.
+     *
+     * @param fieldKey the parent type name and the full path of field, the fields of a union share the same path
+     * @param parser   the function to parse the arguments of the directives on field
+     * @return the parsed arguments of directives, in the order of directives on field
+     */
+    public List<Object> getDirectiveArguments(String fieldKey, Function<String, List<Object>> parser) {
+        List<Object> directiveArguments = directiveArgumentsByField.get(fieldKey);
+        if (directiveArguments != null) {
+            return directiveArguments;
+        }
+
+        return directiveArgumentsByField.computeIfAbsent(fieldKey, parser);
+    }
+
+    /**
+     * Create the state for an execution, only the futures and list element collectors are allocated.
+     *
+     * @return the state for an execution
+     */
+    public ExecutionEngineState newExecutionState() {
+        if (taskTemplateByPath.isEmpty()) {
+            return new ExecutionEngineState(this, Collections.emptyMap(), EMPTY_TASKS);
+        }
+
+        Map<FetchSourceTask, FetchSourceTask> taskByTemplate = new IdentityHashMap<>(taskTemplateByPath.size());
+        Map<String, FetchSourceTask> fetchSourceTaskByPath = new HashMap<>(Math.max(16, (int) (taskTemplateByPath.size() / 0.75f) + 1));
+        FetchSourceTask[] fetchSourceTaskByPathId = new FetchSourceTask[pathTrie.size()];
+        for (Map.Entry<String, FetchSourceTask> entry : taskTemplateByPath.entrySet()) {
+            FetchSourceTask task = instantiate(entry.getValue(), taskByTemplate);
+            fetchSourceTaskByPath.put(entry.getKey(), task);
+            fetchSourceTaskByPathId[pathTrie.getPathId(entry.getKey())] = task;
+        }
+
+        return new ExecutionEngineState(this, fetchSourceTaskByPath, fetchSourceTaskByPathId);
+    }
+
+    private FetchSourceTask instantiate(FetchSourceTask template, Map<FetchSourceTask, FetchSourceTask> taskByTemplate) {
+        FetchSourceTask task = taskByTemplate.get(template);
+        if (task != null) {
+            return task;
+        }
+
+        task = FetchSourceTask.newFetchSourceTask()
+                .sourceName(template.getSourceName())
+                .isAnnotatedNode(template.isAnnotatedNode())
+                .isListType(template.isListType())
+                .isInList(template.isInList())
+                .isTopTask(template.isTopTask())
+                .taskFuture(new CompletableFuture<>())
+                .mapper(template.getMapper())
+                .resultKey(template.getResultKey())
+                .build();
+        taskByTemplate.put(template, task);
+
+        for (FetchSourceTask childTemplate : template.getChildrenTaskList()) {
+            task.addChildrenTaskList(instantiate(childTemplate, taskByTemplate));
+        }
+        return task;
+    }
+
+    public static Builder newExecutionPlan() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private GraphQLSchema schema;
+
+        private boolean containSkipByOrIncludeBy = false;
+
+        private boolean containBatchField = false;
+
+        private boolean containCalDirective = false;
+
+        private final Map<String, FetchSourceTask> fetchSourceTaskByPath = new LinkedHashMap<>();
+
+        private final Map<String, List<String>> topTaskBySourceName = new LinkedHashMap<>();
+
+        private final Map<String, List<String>> queryTaskBySourceName = new LinkedHashMap<>();
+
+        private final Set<String> consumerFieldPaths = new LinkedHashSet<>();
+
+        private final Map<String, PrefetchField> prefetchFieldByPath = new LinkedHashMap<>();
+
+        public Builder schema(GraphQLSchema schema) {
+            this.schema = schema;
+            return this;
+        }
+
+        public Builder containSkipByOrIncludeBy() {
+            containSkipByOrIncludeBy = true;
+            return this;
+        }
+
+        public boolean isContainSkipByOrIncludeBy() {
+            return containSkipByOrIncludeBy;
+        }
+
+        public Builder containBatchField() {
+            containBatchField = true;
+            return this;
+        }
+
+        public Builder containCalDirective() {
+            containCalDirective = true;
+            return this;
+        }
+
+        public boolean isContainCalDirective() {
+            return containCalDirective;
+        }
+
+        public Builder fetchSourceTask(String fieldFullPath, FetchSourceTask fetchSourceTask) {
+            fetchSourceTaskByPath.put(fieldFullPath, fetchSourceTask);
+            return this;
+        }
+
+        public Builder taskByPathIfAbsent(String fieldFullPath, Supplier<FetchSourceTask> fetchSourceTaskSupplier) {
+            if (!fetchSourceTaskByPath.containsKey(fieldFullPath)) {
+                fetchSourceTaskByPath.put(fieldFullPath, fetchSourceTaskSupplier.get());
+            }
+
+            return this;
+        }
+
+        public Builder taskByPathIfAbsent(String fieldFullPath, FetchSourceTask fetchSourceTask) {
+            if (!fetchSourceTaskByPath.containsKey(fieldFullPath)) {
+                fetchSourceTaskByPath.put(fieldFullPath, fetchSourceTask);
+            }
+
+            return this;
+        }
+
+        public Builder topTaskList(String sourceName, List<String> topTaskList) {
+            topTaskBySourceName.put(sourceName, Collections.unmodifiableList(topTaskList));
+            return this;
+        }
+
+        public Builder queryTaskList(String sourceName, List<String> queryTaskList) {
+            queryTaskBySourceName.put(sourceName, Collections.unmodifiableList(queryTaskList));
+            return this;
+        }
+
+        public Builder consumerFieldPath(String fieldFullPath) {
+            consumerFieldPaths.add(fieldFullPath);
+            return this;
+        }
+
+        public Builder prefetchFields(Collection<PrefetchField> prefetchFields) {
+            for (PrefetchField prefetchField : prefetchFields) {
+                prefetchFieldByPath.putIfAbsent(prefetchField.getFieldFullPath(), prefetchField);
+            }
+            return this;
+        }
+
+        public ExecutionPlan build() {
+            return new ExecutionPlan(
+                    schema, containSkipByOrIncludeBy, containBatchField, containCalDirective, fetchSourceTaskByPath, topTaskBySourceName, queryTaskBySourceName,
+                    consumerFieldPaths, prefetchFieldByPath
+            );
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.PublicApi;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static calculator.common.CommonUtil.isBasicType;
+
+/**
+ * The ObjectMapper which wraps object as read-only Map/List view instead of copying it, the nested value
+ * is wrapped only when it is accessed. The view is backed by the original object, so the object should not
+ * be modified while the view is used by script.
+ *
+ * <p>The bean is viewed by its fields, and the public getters which are not backed by field can be included
+ * by {@code new MapViewObjectMapper(true)}. The getter is invoked only when the property is accessed, so the
+ * reference cycle by getters is not traversed unless the script accesses it.
+ *
+ * <p>Can be used by {@code DefaultConfig.newConfig().objectMapper(new MapViewObjectMapper())}.
+ */
+@PublicApi
+public class MapViewObjectMapper implements ObjectMapper {
+
+    private final boolean includeGetter;
+
+    public MapViewObjectMapper() {
+        this(false);
+    }
+
+    /**
+     * @param includeGetter whether to include the public getters which are not backed by field
+     */
+    public MapViewObjectMapper(boolean includeGetter) {
+        this.includeGetter = includeGetter;
+    }
+
+    @Override
+    public Object toSimpleCollection(Object object) {
+        if (object == null) {
+            return null;
+        }
+
+        if (object instanceof List) {
+            return new ListView((List<Object>) object);
+        } else if (object instanceof Collection) {
+            return new ListView(Arrays.asList(((Collection<?>) object).toArray()));
+        } else if (object instanceof Object[]) {
+            return new ListView(Arrays.asList((Object[]) object));
+        } else if (object instanceof Map) {
+            return new MapView((Map<Object, Object>) object);
+        } else if (object instanceof Iterator) {
+            // iterator can be traversed only once.
+            return new ListView(drain((Iterator<Object>) object));
+        } else if (object instanceof Enumeration) {
+            return new ListView(Collections.list((Enumeration<Object>) object));
+        } else if (isBasicType(object)) {
+            return object;
+        } else {
+            return new BeanView(object, includeGetter ? BeanAccessor.withGetter(object.getClass()) : BeanAccessor.of(object.getClass()));
+        }
+    }
+
+    @Override
+    public Object toSimpleCollection(Object object, Set<String> propertyNames) {
+        Object view = toSimpleCollection(object);
+        if (!(view instanceof Map)) {
+            return view;
+        }
+
+        // only the used properties are resolved, and the nested values are still views.
+        Map<Object, Object> mapView = (Map<Object, Object>) view;
+        Map<Object, Object> result = new LinkedHashMap<>();
+        for (String propertyName : propertyNames) {
+            if (mapView.containsKey(propertyName)) {
+                result.put(propertyName, mapView.get(propertyName));
+            }
+        }
+        return result;
+    }
+
+    private static List<Object> drain(Iterator<Object> iterator) {
+        List<Object> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private class ListView extends AbstractList<Object> {
+
+        private final List<Object> list;
+
+        ListView(List<Object> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Object get(int index) {
+            return toSimpleCollection(list.get(index));
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+
+    private class MapView extends AbstractMap<Object, Object> {
+
+        private final Map<Object, Object> map;
+
+        MapView(Map<Object, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return toSimpleCollection(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return new AbstractSet<Entry<Object, Object>>() {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator() {
+                    Iterator<Entry<Object, Object>> iterator = map.entrySet().iterator();
+                    return new Iterator<Entry<Object, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Object, Object> next() {
+                            Entry<Object, Object> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), toSimpleCollection(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+    }
+
+    private class BeanView extends AbstractMap<Object, Object> {
+
+        private final Object bean;
+
+        private final BeanAccessor beanAccessor;
+
+        BeanView(Object bean, BeanAccessor beanAccessor) {
+            this.bean = bean;
+            this.beanAccessor = beanAccessor;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+
+            BeanAccessor.PropertyAccessor accessor = beanAccessor.getAccessor((String) key);
+            return accessor != null ? toSimpleCollection(accessor.get(bean)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && beanAccessor.getAccessor((String) key) != null;
+        }
+
+        @Override
+        public int size() {
+            return beanAccessor.getAccessors().length;
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            BeanAccessor.PropertyAccessor[] accessors = beanAccessor.getAccessors();
+            return new AbstractSet<Entry<Object, Object>>() {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator() {
+                    return new Iterator<Entry<Object, Object>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < accessors.length;
+                        }
+
+                        @Override
+                        public Entry<Object, Object> next() {
+                            if (index >= accessors.length) {
+                                throw new NoSuchElementException();
+                            }
+                            BeanAccessor.PropertyAccessor accessor = accessors[index++];
+                            return new SimpleImmutableEntry<>(accessor.getName(), toSimpleCollection(accessor.get(bean)));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return accessors.length;
+                }
+            };
+        }
+    }
+}
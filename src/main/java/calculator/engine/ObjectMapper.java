@@ -20,9 +20,23 @@ package calculator.engine;
 
 import calculator.engine.annotation.PublicApi;
 
+import java.util.Set;
+
 @PublicApi
 public interface ObjectMapper {
 
     Object toSimpleCollection(Object object);
 
+    /**
+     * Convert object to simple collection, only the given top-level properties is necessary to be converted
+     * if the object is a map or java bean.
+     *
+     * @param object        object
+     * @param propertyNames the top-level properties which will be used
+     * @return simple collection
+     */
+    default Object toSimpleCollection(Object object, Set<String> propertyNames) {
+        return toSimpleCollection(object);
+    }
+
 }
@@ -17,8 +17,12 @@
 
 package calculator.engine;
 
+import calculator.config.Config;
 import calculator.engine.annotation.Internal;
 import calculator.engine.metadata.Directives;
+import graphql.GraphQLError;
+import graphql.execution.DataFetcherResult;
+import graphql.language.BooleanValue;
 import graphql.language.IntValue;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
@@ -33,31 +37,50 @@ import graphql.schema.GraphQLTypeVisitor;
 import graphql.schema.GraphQLTypeVisitorStub;
 import graphql.util.TraversalControl;
 import graphql.util.TraverserContext;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @Internal
 public class PartitionDataFetcher implements DataFetcher<Object> {
 
-    private static final Logger logger = LoggerFactory.getLogger(PartitionDataFetcher.class);
-
     private final int partitionSize;
 
+    // the maximum number of partitions in flight, the partitions are dispatched one by one on calling thread if it's 1.
+    private final int parallelism;
+
     private final String argumentName;
 
     private final DataFetcher<Object> delegate;
 
-    private PartitionDataFetcher(int partitionSize, String argumentName, DataFetcher<Object> delegate) {
+    private final Executor executor;
+
+    // tune the partition size by observed latency if adaptive, and partitionSize is the maximum size.
+    private final AdaptivePartitionSizer partitionSizer;
+
+    private PartitionDataFetcher(int partitionSize,
+                                 int parallelism,
+                                 boolean adaptive,
+                                 String argumentName,
+                                 DataFetcher<Object> delegate,
+                                 Executor executor) {
         this.partitionSize = partitionSize;
+        this.parallelism = parallelism;
         this.argumentName = argumentName;
         this.delegate = delegate;
+        this.executor = executor;
+        this.partitionSizer = adaptive ? new AdaptivePartitionSizer(partitionSize) : null;
     }
 
     @Override
@@ -68,85 +91,317 @@ public class PartitionDataFetcher implements DataFetcher<Object> {
             return delegate.get(environment);
         }
 
-        List result = new ArrayList<>();
-        boolean isAsyncResult = false;
-        for (int i = 0; i < argumentValue.size(); i += partitionSize) {
-            int toIndex = Math.min((i + 1) * partitionSize, argumentValue.size());
-            List<Object> partitionArgumentValue = argumentValue.subList(i, toIndex);
-
-            Map<String, Object> newArguments = new LinkedHashMap<>(environment.getArguments());
-            newArguments.put(argumentName, partitionArgumentValue);
+        int size = partitionSizer != null
+                ? partitionSizer.partitionSize(argumentValue.size(), parallelism)
+                : partitionSize;
+        List<List<Object>> partitions = new ArrayList<>();
+        for (int i = 0; i < argumentValue.size(); i += size) {
+            int toIndex = Math.min(i + size, argumentValue.size());
+            partitions.add(argumentValue.subList(i, toIndex));
+        }
 
-            DataFetchingEnvironment partitionEnv = DataFetchingEnvironmentImpl
-                    .newDataFetchingEnvironment(environment)
-                    .arguments(newArguments)
-                    .build();
+        if (parallelism > 1 && partitions.size() > 1) {
+            return new PartitionDispatcher(environment, partitions).dispatch();
+        }
 
-            Object delegateResult = delegate.get(partitionEnv);
-            if (delegateResult instanceof CompletableFuture) {
+        List<Object> partitionResults = new ArrayList<>(partitions.size());
+        boolean isAsyncResult = false;
+        for (List<Object> partitionArgumentValue : partitions) {
+            Object delegateResult = fetchPartition(environment, partitionArgumentValue);
+            if (delegateResult instanceof CompletionStage) {
                 isAsyncResult = true;
-                result.add(delegateResult);
-            } else if (delegateResult instanceof List) {
-                result.addAll((List) delegateResult);
-            } else if (delegateResult != null) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("unexpected result type: {}", delegateResult.getClass().getName());
-                }
             }
+            partitionResults.add(delegateResult);
         }
 
-        if(isAsyncResult){
-            return flatFutureList(result);
-        }else{
-            return result;
+        if (isAsyncResult) {
+            return flatFutureList(partitionResults);
         }
+        return mergeResults(partitionResults);
     }
 
-    private CompletableFuture<List<Object>> flatFutureList(List<CompletableFuture<List<Object>>> futureList) {
-        CompletableFuture resultFuture = new CompletableFuture();
-        CompletableFuture<List<Object>>[] arrayOfFutures = futureList.toArray(new CompletableFuture[0]);
+    private Object fetchPartition(DataFetchingEnvironment environment, List<Object> partitionArgumentValue) throws Exception {
+        Map<String, Object> newArguments = new LinkedHashMap<>(environment.getArguments());
+        newArguments.put(argumentName, partitionArgumentValue);
+
+        DataFetchingEnvironment partitionEnv = DataFetchingEnvironmentImpl
+                .newDataFetchingEnvironment(environment)
+                .arguments(newArguments)
+                .build();
+
+        if (partitionSizer == null) {
+            return delegate.get(partitionEnv);
+        }
+
+        long startNanos = System.nanoTime();
+        Object delegateResult = delegate.get(partitionEnv);
+        if (delegateResult instanceof CompletionStage) {
+            ((CompletionStage<?>) delegateResult).whenComplete((ignore, ex) -> {
+                if (ex == null) {
+                    partitionSizer.record(partitionArgumentValue.size(), System.nanoTime() - startNanos);
+                }
+            });
+        } else {
+            partitionSizer.record(partitionArgumentValue.size(), System.nanoTime() - startNanos);
+        }
+        return delegateResult;
+    }
+
+    private CompletableFuture<Object> flatFutureList(List<Object> partitionResults) {
+        CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+        CompletableFuture<Object>[] arrayOfFutures = new CompletableFuture[partitionResults.size()];
+        for (int i = 0; i < arrayOfFutures.length; i++) {
+            Object partitionResult = partitionResults.get(i);
+            arrayOfFutures[i] = partitionResult instanceof CompletionStage
+                    ? ((CompletionStage<Object>) partitionResult).toCompletableFuture()
+                    : CompletableFuture.completedFuture(partitionResult);
+        }
+        // fail as soon as any partition is failed, instead of waiting for the others.
+        for (CompletableFuture<Object> future : arrayOfFutures) {
+            future.whenComplete((ignored, exception) -> {
+                if (exception != null) {
+                    resultFuture.completeExceptionally(exception);
+                }
+            });
+        }
         CompletableFuture
                 .allOf(arrayOfFutures)
                 .whenComplete((ignored, exception) -> {
                     if (exception != null) {
-                        resultFuture.completeExceptionally(exception);
                         return;
                     }
                     List<Object> results = new ArrayList<>(arrayOfFutures.length);
-                    for (CompletableFuture<List<Object>> future : arrayOfFutures) {
-                        List<Object> joinResult = future.join();
-                        if (joinResult != null || !joinResult.isEmpty()) {
-                            results.addAll(joinResult);
-                        }
+                    for (CompletableFuture<Object> future : arrayOfFutures) {
+                        results.add(future.join());
                     }
-                    resultFuture.complete(results);
+                    completeWithMergedResults(resultFuture, results);
                 });
+        // propagate the failure and the cancellation of execution to the partitions in flight.
+        resultFuture.whenComplete((ignored, exception) -> {
+            if (exception != null) {
+                for (CompletableFuture<Object> future : arrayOfFutures) {
+                    future.cancel(false);
+                }
+            }
+        });
         return resultFuture;
     }
 
-    static GraphQLTypeVisitor TYPE_VISITOR = new GraphQLTypeVisitorStub() {
-        @Override
-        public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+    private static void completeWithMergedResults(CompletableFuture<Object> resultFuture, List<Object> partitionResults) {
+        Object mergedResult;
+        try {
+            mergedResult = mergeResults(partitionResults);
+        } catch (Throwable t) {
+            resultFuture.completeExceptionally(t);
+            return;
+        }
+        resultFuture.complete(mergedResult);
+    }
+
+    /**
+     * Merge the results by the order of partitions, the partition may return List or DataFetcherResult of List.
+     *
+     * @return the merged List, or DataFetcherResult with the errors of all the partitions if any partition returns DataFetcherResult
+     */
+    static Object mergeResults(List<Object> partitionResults) {
+        List<Object> data = new ArrayList<>();
+        List<GraphQLError> errors = new ArrayList<>();
+        boolean isDataFetcherResult = false;
+        for (Object partitionResult : partitionResults) {
+            if (partitionResult instanceof DataFetcherResult) {
+                isDataFetcherResult = true;
+                errors.addAll(((DataFetcherResult<?>) partitionResult).getErrors());
+                partitionResult = ((DataFetcherResult<?>) partitionResult).getData();
+            }
 
-            for (GraphQLArgument argument : fieldDefinition.getArguments()) {
-                if (argument.getDirective(Directives.PARTITION.getName()) != null) {
-                    GraphQLCodeRegistry.Builder codeRegistry = context.getVarFromParents(GraphQLCodeRegistry.Builder.class);
-                    GraphQLFieldsContainer parent = (GraphQLFieldsContainer) context.getParentNode();
-                    DataFetcher originalDataFetcher = codeRegistry.getDataFetcher(parent, fieldDefinition);
+            if (partitionResult instanceof List) {
+                data.addAll((List<?>) partitionResult);
+            } else if (partitionResult != null) {
+                throw new IllegalStateException(String.format(
+                        "the result of partition must be List or DataFetcherResult of List, instead of %s.",
+                        partitionResult.getClass().getName()
+                ));
+            }
+        }
+
+        if (!isDataFetcherResult) {
+            return data;
+        }
+        return DataFetcherResult.newResult().data(data).errors(errors).build();
+    }
 
-                    GraphQLDirective partitionDirective = argument.getDirective(Directives.PARTITION.getName());
+    /**
+     * Dispatch the partitions on executor, at most {@code parallelism} partitions are in flight,
+     * and the next partition is dispatched when one of them is completed.
+     */
+    private class PartitionDispatcher {
 
-                    GraphQLArgument directiveArgument = partitionDirective.getArgument("size");
-                    IntValue intValue = (IntValue) directiveArgument.getArgumentValue().getValue();
-                    DataFetcher<?> partition = new PartitionDataFetcher(
-                            intValue.getValue().intValue(), argument.getName(), originalDataFetcher
-                    );
+        private final DataFetchingEnvironment environment;
 
-                    codeRegistry.dataFetcher(parent, fieldDefinition, partition);
+        private final List<List<Object>> partitions;
+
+        private final Object[] partitionResults;
+
+        private final AtomicInteger nextIndex = new AtomicInteger();
+
+        private final AtomicInteger remaining;
+
+        // the count of requested dispatches, the dispatches are run by the only loop which takes it from 0.
+        private final AtomicInteger dispatchRequests = new AtomicInteger();
+
+        private final CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+
+        // the futures of dispatched partitions, they are cancelled if the field is failed or cancelled.
+        private final Queue<CompletableFuture<?>> partitionFutures = new ConcurrentLinkedQueue<>();
+
+        PartitionDispatcher(DataFetchingEnvironment environment, List<List<Object>> partitions) {
+            this.environment = environment;
+            this.partitions = partitions;
+            this.partitionResults = new Object[partitions.size()];
+            this.remaining = new AtomicInteger(partitions.size());
+            // stop the queued partitions and cancel the partitions in flight once the field is failed or cancelled.
+            this.resultFuture.whenComplete((ignored, exception) -> {
+                if (exception != null) {
+                    nextIndex.set(partitions.size());
+                    cancelPartitions();
                 }
+            });
+        }
+
+        CompletableFuture<Object> dispatch() {
+            int initialCount = Math.min(parallelism, partitions.size());
+            for (int i = 0; i < initialCount; i++) {
+                requestDispatch();
             }
+            return resultFuture;
+        }
 
-            return TraversalControl.CONTINUE;
+        // the partition completed synchronously requests the next dispatch in the running loop instead of recursion.
+        private void requestDispatch() {
+            if (dispatchRequests.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                dispatchNext();
+            } while (dispatchRequests.decrementAndGet() != 0);
         }
-    };
+
+        private void dispatchNext() {
+            int index = nextIndex.getAndIncrement();
+            if (index >= partitions.size() || resultFuture.isDone()) {
+                return;
+            }
+
+            CompletableFuture<Object> fetchFuture = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetchPartition(environment, partitions.get(index));
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+            trackPartition(fetchFuture);
+
+            fetchFuture.thenCompose(result -> {
+                if (!(result instanceof CompletionStage)) {
+                    return CompletableFuture.completedFuture(result);
+                }
+
+                CompletableFuture<Object> partitionFuture = ((CompletionStage<Object>) result).toCompletableFuture();
+                trackPartition(partitionFuture);
+                return partitionFuture;
+            }).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    resultFuture.completeExceptionally(ex);
+                    return;
+                }
+
+                partitionResults[index] = result;
+                if (remaining.decrementAndGet() == 0) {
+                    completeWithMergedResults(resultFuture, Arrays.asList(partitionResults));
+                } else {
+                    requestDispatch();
+                }
+            });
+        }
+
+        private void trackPartition(CompletableFuture<?> partitionFuture) {
+            partitionFutures.add(partitionFuture);
+            // the field is failed or cancelled concurrently.
+            if (resultFuture.isCompletedExceptionally()) {
+                cancelPartitions();
+            }
+        }
+
+        private void cancelPartitions() {
+            CompletableFuture<?> partitionFuture;
+            while ((partitionFuture = partitionFutures.poll()) != null) {
+                partitionFuture.cancel(false);
+            }
+        }
+    }
+
+    static GraphQLTypeVisitor typeVisitor(Config config) {
+        return new GraphQLTypeVisitorStub() {
+            @Override
+            public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+
+                for (GraphQLArgument argument : fieldDefinition.getArguments()) {
+                    if (argument.getDirective(Directives.PARTITION.getName()) != null) {
+                        GraphQLCodeRegistry.Builder codeRegistry = context.getVarFromParents(GraphQLCodeRegistry.Builder.class);
+                        GraphQLFieldsContainer parent = (GraphQLFieldsContainer) context.getParentNode();
+                        DataFetcher originalDataFetcher = codeRegistry.getDataFetcher(parent, fieldDefinition);
+
+                        GraphQLDirective partitionDirective = argument.getDirective(Directives.PARTITION.getName());
+
+                        GraphQLArgument directiveArgument = partitionDirective.getArgument("size");
+                        IntValue intValue = (IntValue) directiveArgument.getArgumentValue().getValue();
+                        DataFetcher<?> partition = new PartitionDataFetcher(
+                                intValue.getValue().intValue(),
+                                getIntArgument(partitionDirective, "parallelism", 1),
+                                getBooleanArgument(partitionDirective, "adaptive"),
+                                argument.getName(),
+                                originalDataFetcher,
+                                config.getExecutor()
+                        );
+
+                        codeRegistry.dataFetcher(parent, fieldDefinition, partition);
+                    }
+                }
+
+                return TraversalControl.CONTINUE;
+            }
+        };
+    }
+
+    // the arguments except 'size' are optional, the directive defined in schema may not contain them.
+    static int getIntArgument(GraphQLDirective partitionDirective, String argumentName, int defaultValue) {
+        Object value = getArgumentValue(partitionDirective, argumentName);
+        if (value instanceof IntValue) {
+            return ((IntValue) value).getValue().intValue();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return defaultValue;
+    }
+
+    static boolean getBooleanArgument(GraphQLDirective partitionDirective, String argumentName) {
+        Object value = getArgumentValue(partitionDirective, argumentName);
+        if (value instanceof BooleanValue) {
+            return ((BooleanValue) value).isValue();
+        }
+        return Boolean.TRUE.equals(value);
+    }
+
+    private static Object getArgumentValue(GraphQLDirective partitionDirective, String argumentName) {
+        GraphQLArgument argument = partitionDirective.getArgument(argumentName);
+        if (argument == null) {
+            return null;
+        }
+
+        return argument.hasSetValue()
+                ? argument.getArgumentValue().getValue()
+                : argument.getArgumentDefaultValue().getValue();
+    }
 }
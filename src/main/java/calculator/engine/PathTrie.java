@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.Internal;
+import graphql.execution.ResultPath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static calculator.common.GraphQLUtil.PATH_SEPARATOR;
+
+/**
+ * The trie of the field full paths used in an execution plan, each path is assigned a compact integer id,
+ * so that the {@link ResultPath} of a fetch can be resolved to the id without building the string path.
+ * <p>
+ * The id of the root is 0, and the ids of paths are in [1, size), the list indexes of ResultPath are ignored.
+ * The trie is immutable after created and can be shared by executions.
+ */
+@Internal
+public class PathTrie {
+
+    public static final int NO_PATH = -1;
+
+    private static final PathTrie EMPTY_TRIE = new PathTrie(new ArrayList<>());
+
+    private final Node root = new Node(0);
+
+    private final List<String> pathById = new ArrayList<>();
+
+    // the names of all the segments in trie, the result path whose last segment is not in trie is excluded quickly.
+    private final Set<String> segmentNames = new HashSet<>();
+
+    private PathTrie(Collection<String> fieldFullPaths) {
+        pathById.add("");
+        for (String fieldFullPath : fieldFullPaths) {
+            addPath(fieldFullPath);
+        }
+    }
+
+    public static PathTrie emptyTrie() {
+        return EMPTY_TRIE;
+    }
+
+    /**
+     * Create the trie of the paths.
+     *
+     * @param fieldFullPaths the full path of fields, the segments are separated by '.'
+     * @return the trie of paths
+     */
+    public static PathTrie newPathTrie(Collection<String> fieldFullPaths) {
+        if (fieldFullPaths.isEmpty()) {
+            return EMPTY_TRIE;
+        }
+        return new PathTrie(fieldFullPaths);
+    }
+
+    private void addPath(String fieldFullPath) {
+        Node node = root;
+        StringBuilder pathBuilder = new StringBuilder();
+        for (String segmentName : fieldFullPath.split("\\" + PATH_SEPARATOR)) {
+            if (pathBuilder.length() > 0) {
+                pathBuilder.append(PATH_SEPARATOR);
+            }
+            pathBuilder.append(segmentName);
+
+            Node child = node.children.get(segmentName);
+            if (child == null) {
+                child = new Node(pathById.size());
+                pathById.add(pathBuilder.toString());
+                node.children.put(segmentName, child);
+                segmentNames.add(segmentName);
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * @return the count of ids, including the root.
+     */
+    public int size() {
+        return pathById.size();
+    }
+
+    /**
+     * Get the id of field full path.
+     *
+     * @param fieldFullPath the full path of field
+     * @return the id of path, {@link #NO_PATH} if the path is not in trie
+     */
+    public int getPathId(String fieldFullPath) {
+        Node node = root;
+        for (String segmentName : fieldFullPath.split("\\" + PATH_SEPARATOR)) {
+            node = node.children.get(segmentName);
+            if (node == null) {
+                return NO_PATH;
+            }
+        }
+        return node.id;
+    }
+
+    /**
+     * Get the ids of the field full path and all its ancestors, parents first.
+     *
+     * @param fieldFullPath the full path of field
+     * @return the ids of path and its ancestors, empty if the path is not in trie
+     */
+    public int[] getPrefixIds(String fieldFullPath) {
+        String[] segments = fieldFullPath.split("\\" + PATH_SEPARATOR);
+        int[] prefixIds = new int[segments.length];
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            node = node.children.get(segments[i]);
+            if (node == null) {
+                return new int[0];
+            }
+            prefixIds[i] = node.id;
+        }
+        return prefixIds;
+    }
+
+    /**
+     * @return the field full path of the id.
+     */
+    public String getPath(int pathId) {
+        return pathById.get(pathId);
+    }
+
+    /**
+     * Resolve the id of the result path of a field, the list indexes in the path are ignored.
+     *
+     * @param resultPath the result path of field
+     * @return the id of path, {@link #NO_PATH} if the path is not in trie
+     */
+    public int resolve(ResultPath resultPath) {
+        if (segmentNames.isEmpty()) {
+            return NO_PATH;
+        }
+
+        ResultPath fieldPath = resultPath;
+        while (fieldPath != null && !fieldPath.isRootPath() && !fieldPath.isNamedSegment()) {
+            fieldPath = fieldPath.getParent();
+        }
+        if (fieldPath == null || fieldPath.isRootPath() || !segmentNames.contains(fieldPath.getSegmentName())) {
+            return NO_PATH;
+        }
+
+        Node node = resolveNode(fieldPath);
+        return node != null ? node.id : NO_PATH;
+    }
+
+    private Node resolveNode(ResultPath resultPath) {
+        if (resultPath == null || resultPath.isRootPath()) {
+            return root;
+        }
+
+        Node parentNode = resolveNode(resultPath.getParent());
+        if (parentNode == null) {
+            return null;
+        }
+
+        if (!resultPath.isNamedSegment()) {
+            return parentNode;
+        }
+
+        String segmentName = resultPath.getSegmentName();
+        if (segmentName == null || segmentName.isEmpty()) {
+            return parentNode;
+        }
+        return parentNode.children.get(segmentName);
+    }
+
+    private static class Node {
+
+        private final int id;
+
+        private final Map<String, Node> children = new HashMap<>(4);
+
+        private Node(int id) {
+            this.id = id;
+        }
+    }
+}
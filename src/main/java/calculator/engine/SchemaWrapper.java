@@ -28,6 +28,7 @@ import graphql.schema.GraphQLSchema;
 import graphql.schema.SchemaTraverser;
 import graphql.util.TraverserResult;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -56,7 +57,13 @@ public class SchemaWrapper {
         SchemaTraverser schemaTraverser = new SchemaTraverser();
         GraphQLCodeRegistry.Builder codeRegistry = GraphQLCodeRegistry.newCodeRegistry(resultSchema.getCodeRegistry());
         TraverserResult traverserResult = schemaTraverser.depthFirstFullSchema(
-                Collections.singletonList(PartitionDataFetcher.TYPE_VISITOR),
+                // the bulkhead wraps the original DataFetcher, so that the fetches served by cache do not take permits.
+                Arrays.asList(
+                        BulkheadDataFetcher.typeVisitor(config),
+                        PartitionDataFetcher.typeVisitor(config),
+                        BatchDataFetcher.typeVisitor(config),
+                        CachedDataFetcher.typeVisitor(config)
+                ),
                 resultSchema,
                 Collections.singletonMap(GraphQLCodeRegistry.Builder.class, codeRegistry)
         );
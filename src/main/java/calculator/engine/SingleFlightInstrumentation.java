@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.PublicApi;
+import calculator.engine.metadata.Directives;
+import calculator.graphql.AsyncDataFetcherInterface;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Share the in-flight invocation of DataFetcher by the identical fetches of the fields annotated by @singleFlight,
+ * e.g. the field fetched by aliases, fragments and @fetchSource.
+ * <p>
+ * The fetches are identical if they have the same field coordinate, arguments and source object,
+ * and the saved invocations count is reported by extension {@link #SAVED_CALLS_KEY} of result.
+ */
+@PublicApi
+public class SingleFlightInstrumentation extends SimpleInstrumentation {
+
+    public static final String SAVED_CALLS_KEY = "singleFlightSavedCalls";
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new SingleFlightState();
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        if (!(state instanceof SingleFlightState)) {
+            return dataFetcher;
+        }
+
+        GraphQLFieldDefinition fieldDefinition = parameters.getEnvironment().getFieldDefinition();
+        if (fieldDefinition.getDirective(Directives.SINGLE_FLIGHT.getName()) == null) {
+            return dataFetcher;
+        }
+
+        // keep the identity of fetcher for the same field, which is used as cache key by ExecutionEngine.
+        return ((SingleFlightState) state).singleFlightFetcher(dataFetcher);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult, InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        if (!(state instanceof SingleFlightState)) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+
+        long savedCalls = ((SingleFlightState) state).savedCalls.sum();
+        if (savedCalls == 0) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+
+        Map<Object, Object> extensions = new LinkedHashMap<>();
+        if (executionResult.getExtensions() != null) {
+            extensions.putAll(executionResult.getExtensions());
+        }
+        extensions.put(SAVED_CALLS_KEY, savedCalls);
+        return CompletableFuture.completedFuture(
+                ExecutionResultImpl.newExecutionResult().from(executionResult).extensions(extensions).build()
+        );
+    }
+
+    static class SingleFlightState implements InstrumentationState {
+
+        private final Map<InvocationKey, Flight> flightByKey = new ConcurrentHashMap<>();
+
+        private final Map<DataFetcher<?>, DataFetcher<?>> singleFlightFetcherByOriginal = new ConcurrentHashMap<>();
+
+        private final LongAdder savedCalls = new LongAdder();
+
+        DataFetcher<?> singleFlightFetcher(DataFetcher<?> dataFetcher) {
+            return singleFlightFetcherByOriginal.computeIfAbsent(dataFetcher, original -> {
+                if (original instanceof AsyncDataFetcherInterface) {
+                    return new AsyncSingleFlightFetcher(original, (AsyncDataFetcherInterface<?>) original);
+                }
+                return environment -> fetch(original, environment);
+            });
+        }
+
+        private Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) throws Exception {
+            GraphQLNamedType parentType = (GraphQLNamedType) GraphQLTypeUtil.unwrapAll(environment.getParentType());
+            InvocationKey key = new InvocationKey(
+                    parentType.getName() + "." + environment.getFieldDefinition().getName(),
+                    environment.getArguments(),
+                    environment.getSource()
+            );
+
+            Flight flight = new Flight(key);
+            Flight existing;
+            while ((existing = flightByKey.putIfAbsent(key, flight)) != null) {
+                CompletableFuture<Object> waiter = existing.join();
+                if (waiter != null) {
+                    savedCalls.increment();
+                    return waiter;
+                }
+                // the existing invocation has been cancelled by all the waiters.
+                flightByKey.remove(key, existing);
+            }
+
+            Object result;
+            try {
+                result = dataFetcher.get(environment);
+            } catch (Exception e) {
+                flightByKey.remove(key, flight);
+                flight.resultFuture.completeExceptionally(e);
+                throw e;
+            }
+
+            if (!(result instanceof CompletionStage)) {
+                flightByKey.remove(key, flight);
+                flight.resultFuture.complete(result);
+                return result;
+            }
+
+            CompletableFuture<?> invocationFuture = ((CompletionStage<?>) result).toCompletableFuture();
+            flight.canceller = () -> {
+                invocationFuture.cancel(false);
+                if (dataFetcher instanceof AsyncDataFetcherInterface) {
+                    ((AsyncDataFetcherInterface<?>) dataFetcher).onCancel(environment);
+                }
+            };
+            invocationFuture.whenComplete((value, ex) -> {
+                flightByKey.remove(key, flight);
+                if (ex != null) {
+                    flight.resultFuture.completeExceptionally(ex);
+                } else {
+                    flight.resultFuture.complete(value);
+                }
+            });
+            return flight.newWaiter();
+        }
+
+        /**
+         * The shared invocation, which is cancelled only if all the fetches waiting for it are cancelled,
+         * so that the cancellation of one fetch doesn't fail the others.
+         */
+        private class Flight {
+
+            private final InvocationKey key;
+
+            private final CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+
+            // cancel the invocation and signal the original fetcher, set once the invocation is in flight.
+            private volatile Runnable canceller;
+
+            // guarded by this, including the fetch which invokes the DataFetcher.
+            private int waiterCount = 1;
+
+            // guarded by this
+            private boolean cancelled;
+
+            Flight(InvocationKey key) {
+                this.key = key;
+            }
+
+            /**
+             * @return the future of the fetch waiting for the invocation, null if the invocation has been cancelled.
+             */
+            synchronized CompletableFuture<Object> join() {
+                if (cancelled) {
+                    return null;
+                }
+                waiterCount++;
+                return newWaiter();
+            }
+
+            // the waiter can be cancelled individually without cancelling the shared result.
+            CompletableFuture<Object> newWaiter() {
+                CompletableFuture<Object> waiter = resultFuture.thenApply(Function.identity());
+                waiter.whenComplete((value, ex) -> {
+                    if (waiter.isCancelled()) {
+                        release();
+                    }
+                });
+                return waiter;
+            }
+
+            private void release() {
+                synchronized (this) {
+                    waiterCount--;
+                    if (waiterCount > 0 || resultFuture.isDone()) {
+                        return;
+                    }
+                    cancelled = true;
+                }
+
+                flightByKey.remove(key, this);
+                Runnable canceller = this.canceller;
+                if (canceller != null) {
+                    canceller.run();
+                }
+                resultFuture.cancel(false);
+            }
+        }
+
+        // keep the async interface of original fetcher, which is signalled by the flight if the invocation is cancelled.
+        private class AsyncSingleFlightFetcher implements DataFetcher<Object>, AsyncDataFetcherInterface<Object> {
+
+            private final DataFetcher<?> original;
+
+            private final AsyncDataFetcherInterface<?> asyncFetcher;
+
+            private final DataFetcher<Object> wrappedDataFetcher;
+
+            AsyncSingleFlightFetcher(DataFetcher<?> original, AsyncDataFetcherInterface<?> asyncFetcher) {
+                this.original = original;
+                this.asyncFetcher = asyncFetcher;
+                this.wrappedDataFetcher = environment -> fetch(asyncFetcher.getWrappedDataFetcher(), environment);
+            }
+
+            @Override
+            public Object get(DataFetchingEnvironment environment) throws Exception {
+                return fetch(original, environment);
+            }
+
+            @Override
+            public DataFetcher<Object> getWrappedDataFetcher() {
+                return wrappedDataFetcher;
+            }
+
+            @Override
+            public Executor getExecutor() {
+                return asyncFetcher.getExecutor();
+            }
+        }
+    }
+
+    // the source object is compared by identity.
+    private static class InvocationKey {
+
+        private final String fieldCoordinate;
+
+        private final Map<String, Object> arguments;
+
+        private final Object source;
+
+        InvocationKey(String fieldCoordinate, Map<String, Object> arguments, Object source) {
+            this.fieldCoordinate = fieldCoordinate;
+            this.arguments = arguments;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof InvocationKey)) {
+                return false;
+            }
+            InvocationKey that = (InvocationKey) o;
+            return source == that.source
+                    && fieldCoordinate.equals(that.fieldCoordinate)
+                    && Objects.equals(arguments, that.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * fieldCoordinate.hashCode() + Objects.hashCode(arguments)) + System.identityHashCode(source);
+        }
+    }
+}
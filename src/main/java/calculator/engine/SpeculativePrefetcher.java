@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.annotation.Internal;
+import calculator.engine.metadata.Directives;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.collect.ImmutableMapWithNullValues;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.MergedField;
+import graphql.execution.ResultPath;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.Directive;
+import graphql.language.Field;
+import graphql.language.NullValue;
+import graphql.language.OperationDefinition;
+import graphql.language.SelectionSetContainer;
+import graphql.language.Value;
+import graphql.language.VariableReference;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static calculator.common.GraphQLUtil.pathForTraverse;
+
+/**
+ * Fetch the fields on the path of @fetchSource speculatively when the validated operation starts executing,
+ * instead of waiting for graphql-java to reach them in traversal.
+ * <p>
+ * A field is prefetched only if the fields on its path are all annotated by {@code @prefetch} in schema, which means
+ * the DataFetcher is side-effect-free, and the path starts from query type and is not in list. The arguments of
+ * prefetched fields should be scalars or lists of scalars, and no directive except @fetchSource is used on them.
+ * The prefetched futures are handed to the normal resolution, which fetches the field again if the prefetching fails.
+ * <p>
+ * The speculative fetch invokes the DataFetcher of code registry directly, the instrumentations only wrap the DataFetcher
+ * of graphql-java fetch which the prefetched future is handed to, so that the field is instrumented once.
+ */
+@Internal
+public class SpeculativePrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpeculativePrefetcher.class);
+
+    // the argument values can not be resolved before execution.
+    private static final Object UNRESOLVED = new Object();
+
+    /**
+     * Collect the fields on the path of the @fetchSource field which can be prefetched.
+     *
+     * @param environment the environment of field annotated by @fetchSource
+     * @return the prefetch fields from top to bottom, empty if the path can not be prefetched
+     */
+    static List<PrefetchField> collectPrefetchFields(QueryVisitorFieldEnvironment environment) {
+        List<PrefetchField> prefetchFields = new ArrayList<>();
+        QueryVisitorFieldEnvironment tmpEnv = environment;
+        while (tmpEnv != null) {
+            if (!isPrefetchable(tmpEnv)) {
+                return Collections.emptyList();
+            }
+
+            QueryVisitorFieldEnvironment parentEnv = tmpEnv.getParentEnvironment();
+            prefetchFields.add(new PrefetchField(
+                    pathForTraverse(tmpEnv),
+                    parentEnv != null ? pathForTraverse(parentEnv) : null,
+                    tmpEnv.getField(),
+                    (GraphQLObjectType) tmpEnv.getFieldsContainer(),
+                    tmpEnv.getFieldDefinition()
+            ));
+
+            // the root field must be the field of query type, the fields of mutation have side effects.
+            if (parentEnv == null) {
+                GraphQLObjectType queryType = tmpEnv.getSchema().getQueryType();
+                if (!Objects.equals(queryType.getName(), tmpEnv.getFieldsContainer().getName())) {
+                    return Collections.emptyList();
+                }
+            }
+            tmpEnv = parentEnv;
+        }
+
+        Collections.reverse(prefetchFields);
+        return prefetchFields;
+    }
+
+    private static boolean isPrefetchable(QueryVisitorFieldEnvironment environment) {
+        GraphQLFieldsContainer fieldsContainer = environment.getFieldsContainer();
+        if (!(fieldsContainer instanceof GraphQLObjectType)) {
+            return false;
+        }
+
+        // the field in fragment may be skipped by the directive on fragment.
+        SelectionSetContainer<?> selectionSetContainer = environment.getSelectionSetContainer();
+        if (!(selectionSetContainer instanceof Field) && !(selectionSetContainer instanceof OperationDefinition)) {
+            return false;
+        }
+
+        if (environment.getFieldDefinition().getDirective(Directives.PREFETCH.getName()) == null) {
+            return false;
+        }
+
+        // the ancestor must not be list, and the field resolved by the interface or union type is not supported.
+        if (environment.getParentEnvironment() != null) {
+            GraphQLType parentType = GraphQLTypeUtil.unwrapNonNull(environment.getParentEnvironment().getFieldDefinition().getType());
+            if (!(parentType instanceof GraphQLObjectType)) {
+                return false;
+            }
+        }
+
+        for (Directive directive : environment.getField().getDirectives()) {
+            if (!Objects.equals(directive.getName(), Directives.FETCH_SOURCE.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start fetching the prefetch fields of plan, it's invoked after the document is validated and the operation is determined.
+     *
+     * @param executionPlan    the plan of document
+     * @param executionContext the context of execution
+     * @return the future of prefetched value by field full path
+     */
+    static Map<String, CompletableFuture<Object>> prefetch(ExecutionPlan executionPlan, ExecutionContext executionContext) {
+        if (executionContext.getOperationDefinition().getOperation() != OperationDefinition.Operation.QUERY) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> variables = executionContext.getCoercedVariables().toMap();
+        Map<String, CompletableFuture<Object>> prefetchedFutureByPath = new LinkedHashMap<>();
+        Map<String, ExecutionStepInfo> stepInfoByPath = new LinkedHashMap<>();
+        // the parent field is in front of children.
+        for (PrefetchField prefetchField : executionPlan.getPrefetchFields()) {
+            Map<String, Object> arguments = resolveArguments(prefetchField, variables);
+            if (arguments == null) {
+                continue;
+            }
+
+            ExecutionStepInfo parentStepInfo = prefetchField.parentPath == null
+                    ? ExecutionStepInfo.newExecutionStepInfo()
+                    .type(executionContext.getGraphQLSchema().getQueryType())
+                    .path(ResultPath.rootPath())
+                    .build()
+                    : stepInfoByPath.get(prefetchField.parentPath);
+            if (parentStepInfo == null) {
+                continue;
+            }
+            ExecutionStepInfo stepInfo = ExecutionStepInfo.newExecutionStepInfo()
+                    .type(prefetchField.fieldDefinition.getType())
+                    .fieldDefinition(prefetchField.fieldDefinition)
+                    .fieldContainer(prefetchField.parentType)
+                    .field(MergedField.newMergedField(prefetchField.field).build())
+                    .path(parentStepInfo.getPath().segment(prefetchField.field.getResultKey()))
+                    .parentInfo(parentStepInfo)
+                    .arguments(() -> ImmutableMapWithNullValues.copyOf(arguments))
+                    .build();
+            stepInfoByPath.put(prefetchField.fieldFullPath, stepInfo);
+
+            CompletableFuture<Object> future;
+            if (prefetchField.parentPath == null) {
+                future = fetch(executionContext, prefetchField, stepInfo, executionContext.getRoot(), arguments);
+            } else {
+                CompletableFuture<Object> parentFuture = prefetchedFutureByPath.get(prefetchField.parentPath);
+                if (parentFuture == null) {
+                    continue;
+                }
+
+                future = parentFuture.thenCompose(parentValue -> {
+                    Object source = parentValue instanceof DataFetcherResult
+                            ? ((DataFetcherResult<?>) parentValue).getData()
+                            : parentValue;
+                    if (source == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return fetch(executionContext, prefetchField, stepInfo, source, arguments);
+                });
+            }
+            prefetchedFutureByPath.put(prefetchField.fieldFullPath, future);
+        }
+        return prefetchedFutureByPath;
+    }
+
+    private static CompletableFuture<Object> fetch(ExecutionContext executionContext,
+                                                   PrefetchField prefetchField,
+                                                   ExecutionStepInfo stepInfo,
+                                                   Object source,
+                                                   Map<String, Object> arguments) {
+        GraphQLSchema schema = executionContext.getGraphQLSchema();
+        DataFetchingEnvironment environment = DataFetchingEnvironmentImpl.newDataFetchingEnvironment(executionContext)
+                .source(source)
+                .localContext(executionContext.getLocalContext())
+                .arguments(arguments)
+                .fieldDefinition(prefetchField.fieldDefinition)
+                .fieldType(prefetchField.fieldDefinition.getType())
+                .parentType(prefetchField.parentType)
+                .mergedField(stepInfo.getField())
+                .executionStepInfo(stepInfo)
+                .build();
+
+        try {
+            // the instrumentations of execution, e.g. tracing and authorization, wrap the fetch of graphql-java
+            // which the prefetched future is handed to, the DataFetcher is not instrumented twice.
+            DataFetcher<?> dataFetcher = schema.getCodeRegistry().getDataFetcher(prefetchField.parentType, prefetchField.fieldDefinition);
+            Object result = dataFetcher.get(environment);
+            if (result instanceof CompletionStage) {
+                return ((CompletionStage<Object>) result).toCompletableFuture();
+            }
+            return CompletableFuture.completedFuture(result);
+        } catch (Throwable t) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("prefetch {} failed, it will be fetched by graphql-java.", prefetchField.fieldFullPath, t);
+            }
+            CompletableFuture<Object> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(t);
+            return failedFuture;
+        }
+    }
+
+    // only the scalar arguments which are set in query are resolved, return null if it can not be resolved.
+    private static Map<String, Object> resolveArguments(PrefetchField prefetchField, Map<String, Object> variables) {
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        for (GraphQLArgument argumentDefinition : prefetchField.fieldDefinition.getArguments()) {
+            Argument argument = prefetchField.field.getArgument(argumentDefinition.getName());
+            if (argument == null) {
+                if (argumentDefinition.hasSetDefaultValue()) {
+                    return null;
+                }
+                continue;
+            }
+
+            Object value;
+            try {
+                value = resolveValue(GraphQLTypeUtil.unwrapNonNull(argumentDefinition.getType()), argument.getValue(), variables);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            if (value == UNRESOLVED) {
+                return null;
+            }
+            arguments.put(argumentDefinition.getName(), value);
+        }
+        return arguments;
+    }
+
+    private static Object resolveValue(GraphQLType type, Value<?> value, Map<String, Object> variables) {
+        if (value instanceof VariableReference) {
+            String variableName = ((VariableReference) value).getName();
+            if (!variables.containsKey(variableName)) {
+                return UNRESOLVED;
+            }
+            // the variables have been coerced by graphql-java.
+            return variables.get(variableName);
+        }
+
+        if (value instanceof NullValue) {
+            return null;
+        }
+
+        if (type instanceof GraphQLScalarType) {
+            return ((GraphQLScalarType) type).getCoercing().parseLiteral(value);
+        }
+
+        if (type instanceof GraphQLList && value instanceof ArrayValue) {
+            GraphQLType elementType = GraphQLTypeUtil.unwrapNonNull(((GraphQLList) type).getWrappedType());
+            List<Object> listValue = new ArrayList<>();
+            for (Value<?> element : ((ArrayValue) value).getValues()) {
+                Object elementValue = resolveValue(elementType, element, variables);
+                if (elementValue == UNRESOLVED) {
+                    return UNRESOLVED;
+                }
+                listValue.add(elementValue);
+            }
+            return listValue;
+        }
+
+        return UNRESOLVED;
+    }
+
+    static class PrefetchField {
+
+        private final String fieldFullPath;
+
+        // null if it's the root field
+        private final String parentPath;
+
+        private final Field field;
+
+        private final GraphQLObjectType parentType;
+
+        private final GraphQLFieldDefinition fieldDefinition;
+
+        PrefetchField(String fieldFullPath,
+                      String parentPath,
+                      Field field,
+                      GraphQLObjectType parentType,
+                      GraphQLFieldDefinition fieldDefinition) {
+            this.fieldFullPath = fieldFullPath;
+            this.parentPath = parentPath;
+            this.field = field;
+            this.parentType = parentType;
+            this.fieldDefinition = fieldDefinition;
+        }
+
+        String getFieldFullPath() {
+            return fieldFullPath;
+        }
+    }
+}
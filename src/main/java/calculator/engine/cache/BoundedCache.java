@@ -0,0 +1,525 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package calculator.engine.cache;
+
+import calculator.engine.annotation.PublicApi;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A concurrent cache bounded by entry count and by total weight, evicting entries by segmented LRU,
+ * and the entries can be expired after a fixed duration since they are written.
+ * <p>
+ * New entries are put into the probation segment, and promoted to the protected segment when they are hit again,
+ * so a burst of one-off keys only flushes the probation segment instead of the frequently used entries.
+ * There is no frequency sketch as W-TinyLFU, so a key read twice is promoted regardless of how rarely it is used,
+ * and a scan of keys read twice still evicts the protected entries.
+ * <p>
+ * The value is loaded outside of any lock, the concurrent callers of the same key wait for the same loading
+ * instead of loading repeatedly. The reordering of read is lossy: it is skipped if the policy lock is held
+ * by other thread, which keeps the read path free of lock contention.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ */
+@PublicApi
+public class BoundedCache<K, V> {
+
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+
+    private final long maximumSize;
+
+    private final long maximumWeight;
+
+    private final Weigher<? super K, ? super V> weigher;
+
+    // Long.MAX_VALUE if the entries never expire.
+    private final long expireAfterWriteNanos;
+
+    private final Ticker ticker;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // the following fields are guarded by evictionLock.
+    private final LinkedDeque<K, V> probationDeque = new LinkedDeque<>();
+
+    private final LinkedDeque<K, V> protectedDeque = new LinkedDeque<>();
+
+    private long size;
+
+    private long weightedSize;
+
+    private long protectedSize;
+
+    private long protectedWeightedSize;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private BoundedCache(long maximumSize,
+                         long maximumWeight,
+                         Weigher<? super K, ? super V> weigher,
+                         long expireAfterWriteNanos,
+                         Ticker ticker) {
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.ticker = ticker;
+        this.data = new ConcurrentHashMap<>((int) Math.min(maximumSize, 1024));
+    }
+
+    /**
+     * Returns the value associated with the key, loading it by {@code loader} if absent.
+     * The concurrent invocations of the same absent key will wait for the only one loading.
+     *
+     * @param key    key
+     * @param loader the function to load the value, and the null value will not be cached
+     * @return the value associated with the key
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Objects.requireNonNull(key, "key can not be null.");
+        Objects.requireNonNull(loader, "loader can not be null.");
+
+        Node<K, V> node = data.get(key);
+        if (node != null && !expireIfNecessary(node)) {
+            return joinExisting(node);
+        }
+
+        Node<K, V> newNode = new Node<>(key);
+        Node<K, V> prior = data.putIfAbsent(key, newNode);
+        if (prior != null) {
+            return joinExisting(prior);
+        }
+
+        missCount.increment();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            loadFailureCount.increment();
+            data.remove(key, newNode);
+            newNode.future.completeExceptionally(e);
+            throw e;
+        }
+
+        if (value == null) {
+            data.remove(key, newNode);
+            newNode.future.complete(null);
+            return null;
+        }
+
+        newNode.writeTime = ticker.read();
+        newNode.future.complete(value);
+        afterWrite(newNode, weigher.weigh(key, value));
+        return value;
+    }
+
+    /**
+     * Returns the value associated with the key, or null if absent or still loading.
+     *
+     * @param key key
+     * @return the value associated with the key
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null || !node.future.isDone() || node.future.isCompletedExceptionally() || expireIfNecessary(node)) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        afterRead(node);
+        return node.future.join();
+    }
+
+    /**
+     * Associates the value with the key, replacing the existing value.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(K key, V value) {
+        Objects.requireNonNull(key, "key can not be null.");
+        Objects.requireNonNull(value, "value can not be null.");
+
+        Node<K, V> newNode = new Node<>(key);
+        newNode.writeTime = ticker.read();
+        newNode.future.complete(value);
+        Node<K, V> prior = data.put(key, newNode);
+        if (prior != null) {
+            removeFromPolicy(prior);
+        }
+        afterWrite(newNode, weigher.weigh(key, value));
+    }
+
+    /**
+     * Discards the value associated with the key.
+     *
+     * @param key key
+     */
+    public void invalidate(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node != null) {
+            removeFromPolicy(node);
+        }
+    }
+
+    /**
+     * Discards all the entries in the cache.
+     */
+    public void invalidateAll() {
+        for (K key : data.keySet()) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * @return the approximate number of entries in the cache, including the entries in loading
+     */
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    /**
+     * @return the total weight of loaded entries
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadFailureCount.sum(), evictionCount.sum());
+    }
+
+    /**
+     * Remove the node if it's expired, the node in loading never expires.
+     *
+     * @return true if the node is expired
+     */
+    private boolean expireIfNecessary(Node<K, V> node) {
+        if (expireAfterWriteNanos == Long.MAX_VALUE || !node.future.isDone()) {
+            return false;
+        }
+
+        if (ticker.read() - node.writeTime < expireAfterWriteNanos) {
+            return false;
+        }
+
+        if (data.remove(node.key, node)) {
+            removeFromPolicy(node);
+            evictionCount.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Get the value of the existing node, the caller waiting for the loading of other caller
+     * is counted as hit only if the loading succeeds.
+     */
+    private V joinExisting(Node<K, V> node) {
+        V value;
+        try {
+            value = join(node);
+        } catch (RuntimeException | Error e) {
+            missCount.increment();
+            throw e;
+        }
+
+        if (value == null) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        afterRead(node);
+        return value;
+    }
+
+    private V join(Node<K, V> node) {
+        try {
+            return node.future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void afterRead(Node<K, V> node) {
+        // lossy: skip reordering if other thread is maintaining the policy.
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            if (node.segment == Segment.PROBATION) {
+                probationDeque.unlink(node);
+                protectedDeque.addLast(node);
+                node.segment = Segment.PROTECTED;
+                protectedSize++;
+                protectedWeightedSize += node.weight;
+                demoteProtected();
+            } else if (node.segment == Segment.PROTECTED) {
+                protectedDeque.moveToBack(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterWrite(Node<K, V> node, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight can not be negative.");
+        }
+
+        evictionLock.lock();
+        try {
+            // the entry has been removed or replaced before linked.
+            if (data.get(node.key) != node) {
+                return;
+            }
+
+            node.weight = weight;
+            node.segment = Segment.PROBATION;
+            probationDeque.addLast(node);
+            size++;
+            weightedSize += weight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void removeFromPolicy(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // guarded by evictionLock
+    private void unlink(Node<K, V> node) {
+        if (node.segment == Segment.PROBATION) {
+            probationDeque.unlink(node);
+        } else if (node.segment == Segment.PROTECTED) {
+            protectedDeque.unlink(node);
+            protectedSize--;
+            protectedWeightedSize -= node.weight;
+        } else {
+            return;
+        }
+
+        node.segment = Segment.NONE;
+        size--;
+        weightedSize -= node.weight;
+    }
+
+    // guarded by evictionLock
+    private void demoteProtected() {
+        long maxProtectedSize = (long) (maximumSize * PROTECTED_RATIO);
+        long maxProtectedWeight = (long) (maximumWeight * PROTECTED_RATIO);
+        while (protectedSize > maxProtectedSize || protectedWeightedSize > maxProtectedWeight) {
+            Node<K, V> demoted = protectedDeque.peekFirst();
+            if (demoted == null) {
+                return;
+            }
+            protectedDeque.unlink(demoted);
+            protectedSize--;
+            protectedWeightedSize -= demoted.weight;
+            demoted.segment = Segment.PROBATION;
+            probationDeque.addLast(demoted);
+        }
+    }
+
+    // guarded by evictionLock
+    private void evict() {
+        while (size > maximumSize || weightedSize > maximumWeight) {
+            Node<K, V> victim = probationDeque.peekFirst();
+            if (victim == null) {
+                victim = protectedDeque.peekFirst();
+            }
+            if (victim == null) {
+                return;
+            }
+
+            unlink(victim);
+            if (data.remove(victim.key, victim)) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    public static <K, V> Builder<K, V> newCache() {
+        return new Builder<>();
+    }
+
+    public static class Builder<K, V> {
+
+        private long maximumSize = Long.MAX_VALUE;
+
+        private long maximumWeight = Long.MAX_VALUE;
+
+        private Weigher<? super K, ? super V> weigher = (key, value) -> 1;
+
+        private long expireAfterWriteNanos = Long.MAX_VALUE;
+
+        private Ticker ticker = Ticker.systemTicker();
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximumSize must be positive.");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            if (maximumWeight <= 0) {
+                throw new IllegalArgumentException("maximumWeight must be positive.");
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+            Objects.requireNonNull(weigher, "weigher can not be null.");
+            this.weigher = weigher;
+            return this;
+        }
+
+        public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be positive.");
+            }
+            Objects.requireNonNull(unit, "unit can not be null.");
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        public Builder<K, V> ticker(Ticker ticker) {
+            Objects.requireNonNull(ticker, "ticker can not be null.");
+            this.ticker = ticker;
+            return this;
+        }
+
+        public BoundedCache<K, V> build() {
+            return new BoundedCache<>(maximumSize, maximumWeight, weigher, expireAfterWriteNanos, ticker);
+        }
+    }
+
+    private enum Segment {
+        NONE, PROBATION, PROTECTED
+    }
+
+    private static class Node<K, V> {
+
+        private final K key;
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        // written before the future is completed, and read after the future is done.
+        private volatile long writeTime;
+
+        // the following fields are guarded by evictionLock.
+        private long weight;
+
+        private Segment segment = Segment.NONE;
+
+        private Node<K, V> prev;
+
+        private Node<K, V> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private static class LinkedDeque<K, V> {
+
+        private Node<K, V> first;
+
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void unlink(Node<K, V> node) {
+            Node<K, V> prev = node.prev;
+            Node<K, V> next = node.next;
+            if (prev == null) {
+                first = next;
+            } else {
+                prev.next = next;
+            }
+
+            if (next == null) {
+                last = prev;
+            } else {
+                next.prev = prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package calculator.engine.cache;
+
+import calculator.engine.annotation.PublicApi;
+
+/**
+ * The immutable snapshot of the statistics of {@link BoundedCache}.
+ */
+@PublicApi
+public class CacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long loadFailureCount;
+
+    private final long evictionCount;
+
+    public CacheStats(long hitCount, long missCount, long loadFailureCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadFailureCount = loadFailureCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * @return the ratio of requests which were hits, 1.0 if there is no request.
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
@@ -27,6 +27,9 @@
  * - cacheName：使用的缓存名称
  * - ext: 额外配置；
  * - 其他：同guava；
+ *
+ * {@link calculator.engine.cache.BoundedCache} is the bounded, weighted and evicting cache used by the engine,
+ * e.g. the parsed document cache of {@link calculator.engine.ExecutionEngine}.
  */
 
 @Beta
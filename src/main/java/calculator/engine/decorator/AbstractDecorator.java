@@ -23,18 +23,18 @@ import calculator.engine.metadata.FetchSourceTask;
 import graphql.execution.DataFetcherResult;
 import graphql.execution.ValueUnboxer;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-
-import static java.util.stream.Collectors.toList;
+import java.util.function.Function;
 
 @Internal
 public abstract class AbstractDecorator implements Decorator {
 
-    private static final Object DUMMY_VALUE = new Object();
-
     protected Object unWrapDataFetcherResult(Object originalResult, ValueUnboxer valueUnboxer) {
         Object nonFutureResult = originalResult instanceof CompletionStage
                 ? ((CompletionStage<?>) originalResult).toCompletableFuture().join()
@@ -47,6 +47,17 @@ public abstract class AbstractDecorator implements Decorator {
         return valueUnboxer.unbox(fetchData);
     }
 
+    /**
+     * Apply the function to the result of DataFetcher, the future result is composed by {@code thenApply}
+     * instead of blocking the thread until it is completed.
+     */
+    protected Object thenApplyResult(Object originalResult, Function<Object, Object> function) {
+        if (originalResult instanceof CompletionStage) {
+            return ((CompletionStage<Object>) originalResult).thenApply(function);
+        }
+        return function.apply(originalResult);
+    }
+
     protected Object wrapResult(Object originalResult, Object data) {
         if (originalResult instanceof DataFetcherResult) {
             return DataFetcherResult.newResult()
@@ -59,53 +70,61 @@ public abstract class AbstractDecorator implements Decorator {
         return data;
     }
 
-    protected FetchSourceTask getFetchSourceFromState(ExecutionEngineState engineState, String sourceName) {
-        Map<String, FetchSourceTask> fetchSourceTaskByPath = engineState.getFetchSourceTaskByPath();
-        Map<String, List<String>> queryTaskBySourceName = engineState.getQueryTaskBySourceName();
-        List<String> queryTaskNameList = queryTaskBySourceName.get(sourceName);
+    /**
+     * Get the env of dependency sources, the value of source which is failed will be null.
+     *
+     * @param engineState       the state of execution
+     * @param dependencySources the name of dependency sources
+     * @return the future of {@code <sourceName, sourceValue>}, which is completed when all the sources are resolved
+     */
+    protected CompletableFuture<Map<String, Object>> getDependencySourceEnv(ExecutionEngineState engineState,
+                                                                        List<String> dependencySources) {
+        if (dependencySources == null || dependencySources.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
 
-        List<CompletableFuture<Object>> queryTaskList = queryTaskNameList.stream()
-                .map(fieldPath -> fetchSourceTaskByPath.get(fieldPath).getTaskFuture())
-                .collect(toList());
+        List<CompletableFuture<Object>> sourceValueFutures = new ArrayList<>(dependencySources.size());
+        for (String dependencySource : dependencySources) {
+            sourceValueFutures.add(getFetchSourceValue(engineState, dependencySource));
+        }
+
+        return CompletableFuture.allOf(sourceValueFutures.toArray(new CompletableFuture[0])).thenApply(ignore -> {
+            Map<String, Object> sourceEnv = new LinkedHashMap<>();
+            for (int i = 0; i < dependencySources.size(); i++) {
+                sourceEnv.put(dependencySources.get(i), sourceValueFutures.get(i).join());
+            }
+            return sourceEnv;
+        });
+    }
 
-        Map<String, List<String>> topTaskBySourceName = engineState.getTopTaskBySourceName();
-        List<String> topTaskNameList = topTaskBySourceName.get(sourceName);
-        List<FetchSourceTask> topTaskList = topTaskNameList.stream().map(fetchSourceTaskByPath::get).collect(toList());
-        FetchSourceTask valueTask = topTaskList.get(topTaskList.size() - 1);
+    /**
+     * Get the future of fetch source value, which is completed with null if the source or any node in
+     * the path of source is failed or null.
+     */
+    protected CompletableFuture<Object> getFetchSourceValue(ExecutionEngineState engineState, String sourceName) {
+        return engineState.computeSourceValueFutureIfAbsent(sourceName, name -> {
+            FetchSourceTask valueTask = getFetchSourceTask(engineState, name);
+            return valueTask.getTaskFuture().handle((result, ex) -> ex != null ? null : result);
+        });
+    }
 
-        for (CompletableFuture<Object> queryTask : queryTaskList) {
-            queryTask.handle((result, ex) -> {
+    private FetchSourceTask getFetchSourceTask(ExecutionEngineState engineState, String sourceName) {
+        Map<String, FetchSourceTask> fetchSourceTaskByPath = engineState.getFetchSourceTaskByPath();
+        List<String> queryTaskNameList = engineState.getQueryTaskBySourceName().get(sourceName);
+        List<String> topTaskNameList = engineState.getTopTaskBySourceName().get(sourceName);
+        FetchSourceTask valueTask = fetchSourceTaskByPath.get(topTaskNameList.get(topTaskNameList.size() - 1));
+
+        // the value task will not be fetched if any node in the path is failed or null.
+        List<String> taskNameInPath = new ArrayList<>(queryTaskNameList);
+        taskNameInPath.addAll(topTaskNameList);
+        for (String taskName : taskNameInPath) {
+            fetchSourceTaskByPath.get(taskName).getTaskFuture().whenComplete((result, ex) -> {
                 if (ex != null) {
                     valueTask.getTaskFuture().completeExceptionally(ex);
-                }
-
-                if (result == null) {
+                } else if (result == null) {
                     valueTask.getTaskFuture().complete(null);
                 }
-                return DUMMY_VALUE;
-            }).join();
-
-            if (valueTask.getTaskFuture().isDone()) {
-                return valueTask;
-            }
-        }
-
-        for (FetchSourceTask taskInValuePath : topTaskList) {
-            taskInValuePath.getTaskFuture().handle((result, ex) -> {
-                        if (ex != null) {
-                            valueTask.getTaskFuture().completeExceptionally(ex);
-                        }
-
-                        if (result == null) {
-                            valueTask.getTaskFuture().complete(null);
-                        }
-                        return DUMMY_VALUE;
-                    }
-            ).join();
-
-            if (valueTask.getTaskFuture().isDone()) {
-                return valueTask;
-            }
+            });
         }
 
         return valueTask;
@@ -21,153 +21,172 @@ import calculator.common.GraphQLUtil;
 import calculator.engine.annotation.Internal;
 import calculator.engine.metadata.DataFetcherDefinition;
 import calculator.engine.metadata.Directives;
-import calculator.engine.metadata.FetchSourceTask;
+import calculator.engine.script.CompiledScript;
 import graphql.language.Directive;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.DataFetchingEnvironmentImpl;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static calculator.common.CommonUtil.getArgumentFromDirective;
 import static calculator.common.CommonUtil.getDependenceSourceFromDirective;
 import static calculator.engine.metadata.Directives.ARGUMENT_TRANSFORM;
-import static graphql.schema.AsyncDataFetcher.async;
 import static java.util.stream.Collectors.toList;
 
 @Internal
 public class ArgumentTransformDecorator extends AbstractDecorator {
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
+    public boolean supportDirective(Directive directive) {
         return Objects.equals(ARGUMENT_TRANSFORM.getName(), directive.getName());
     }
 
     @Override
-    public DataFetcher<?> decorate(Directive directive, DecorateEnvironment environment) {
+    public Object parseArguments(Directive directive) {
         Supplier<Directives.ParamTransformType> defaultOperateType = () -> (Directives.ParamTransformType) ARGUMENT_TRANSFORM
                 .getArgument("operateType")
                 .getArgumentDefaultValue()
                 .getValue();
         String operateType = getArgumentFromDirective(directive, "operateType");
-        final String finalOperateType = operateType != null ? operateType : defaultOperateType.get().name();
+        return new ArgumentTransformArguments(
+                operateType != null ? operateType : defaultOperateType.get().name(),
+                getArgumentFromDirective(directive, "argumentName"),
+                getArgumentFromDirective(directive, "expression"),
+                getDependenceSourceFromDirective(directive)
+        );
+    }
 
-        String argumentName = getArgumentFromDirective(directive, "argumentName");
-        String expression = getArgumentFromDirective(directive, "expression");
-        List<String> dependencySources = getDependenceSourceFromDirective(directive);
+    @Override
+    public DataFetcher<?> decorate(Directive directive, DecorateEnvironment environment) {
+        ArgumentTransformArguments arguments = environment.getDirectiveArguments();
+        String operateType = arguments.operateType;
+        String argumentName = arguments.argumentName;
+        CompiledScript compiledExpression = environment.compileScript(arguments.expression);
+        List<String> dependencySources = arguments.dependencySources;
 
         DataFetcherDefinition dataFetcherDefinition = GraphQLUtil.getDataFetcherDefinition(environment.getOriginalDataFetcher());
+        DataFetcher<?> originalFetcher = dataFetcherDefinition.getOriginalFetcher();
 
-        DataFetcher<?> wrappedDataFetcher = fetchingEnvironment -> {
-            Map<String, Object> sourceEnv = new LinkedHashMap<>();
-            if (dependencySources != null && !dependencySources.isEmpty()) {
-                for (String dependencySource : dependencySources) {
-                    FetchSourceTask sourceTask = getFetchSourceFromState(environment.getEngineState(), dependencySource);
-                    if (sourceTask.getTaskFuture().isCompletedExceptionally()) {
-                        sourceEnv.put(dependencySource, null);
-                    } else {
-                        sourceEnv.put(dependencySource, sourceTask.getTaskFuture().join());
-                    }
-                }
-            }
+        if (dependencySources == null || dependencySources.isEmpty()) {
+            return fetchingEnvironment -> transformAndFetch(
+                    fetchingEnvironment, Collections.emptyMap(), operateType, argumentName, compiledExpression, originalFetcher
+            );
+        }
 
-            // filter list element of list argument
-            if (Objects.equals(finalOperateType, Directives.ParamTransformType.FILTER.name())) {
-                List<Object> argument = fetchingEnvironment.getArgument(argumentName);
-                if (argument == null || argument.isEmpty()) {
-                    return dataFetcherDefinition.getActionFetcher().get(fetchingEnvironment);
+        // the argument is transformed when all the dependency sources are resolved, no thread is blocked.
+        return fetchingEnvironment -> {
+            CompletableFuture<Map<String, Object>> sourceEnvFuture = getDependencySourceEnv(
+                    environment.getEngineState(), dependencySources
+            );
+
+            Function<Map<String, Object>, CompletionStage<Object>> fetchFunction = sourceEnv -> {
+                try {
+                    Object innerResult = transformAndFetch(
+                            fetchingEnvironment, sourceEnv, operateType, argumentName, compiledExpression, originalFetcher
+                    );
+                    return innerResult instanceof CompletionStage
+                            ? (CompletionStage<Object>) innerResult
+                            : CompletableFuture.completedFuture(innerResult);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
                 }
+            };
 
-                argument = argument.stream().filter(ele -> {
-                            Map<String, Object> filterEnv = new LinkedHashMap<>(fetchingEnvironment.getVariables());
-                            filterEnv.put("ele", ele);
-                            filterEnv.putAll(sourceEnv);
-                            return (Boolean) environment.getScriptEvaluator().evaluate(expression, filterEnv);
-                        }
-                ).collect(toList());
-
-                Map<String, Object> newArguments = new LinkedHashMap<>(fetchingEnvironment.getArguments());
-                newArguments.put(argumentName, argument);
-                DataFetchingEnvironment newEnvironment = DataFetchingEnvironmentImpl
-                        .newDataFetchingEnvironment(fetchingEnvironment).arguments(newArguments).build();
-                Object innerResult = dataFetcherDefinition.getActionFetcher().get(newEnvironment);
-                if (innerResult instanceof CompletionStage
-                        && (dataFetcherDefinition.isAsyncFetcher() || (dependencySources != null && dependencySources.size() > 0))
-                ) {
-                    return ((CompletionStage<?>) innerResult).toCompletableFuture().join();
-                }
-                return innerResult;
+            // async fetcher dispatches itself to its executor, and the sync fetcher is invoked by engine executor as before.
+            // the sources may have been resolved when the consumer is dispatched, the fetcher is invoked directly then.
+            if (dataFetcherDefinition.isAsyncFetcher() || sourceEnvFuture.isDone()) {
+                return sourceEnvFuture.thenCompose(fetchFunction);
             }
+            return sourceEnvFuture.thenComposeAsync(fetchFunction, environment.getExecutor());
+        };
+    }
 
-            // map each element of list argument
-            if (Objects.equals(finalOperateType, Directives.ParamTransformType.LIST_MAP.name())) {
-                List<Object> argument = fetchingEnvironment.getArgument(argumentName);
-                if (argument == null || argument.isEmpty()) {
-                    return dataFetcherDefinition.getActionFetcher().get(fetchingEnvironment);
-                }
-
-                argument = argument.stream().map(ele -> {
-                    Map<String, Object> transformEnv = new LinkedHashMap<>(fetchingEnvironment.getVariables());
-                    transformEnv.put("ele", ele);
-                    transformEnv.putAll(sourceEnv);
-                    return environment.getScriptEvaluator().evaluate(expression, transformEnv);
-                }).collect(toList());
-
-                Map<String, Object> newArguments = new LinkedHashMap<>(fetchingEnvironment.getArguments());
-                newArguments.put(argumentName, argument);
-                DataFetchingEnvironment newEnvironment = DataFetchingEnvironmentImpl
-                        .newDataFetchingEnvironment(fetchingEnvironment).arguments(newArguments).build();
-
-                Object innerResult = dataFetcherDefinition.getActionFetcher().get(newEnvironment);
-                if (innerResult instanceof CompletionStage
-                        && (dataFetcherDefinition.isAsyncFetcher() || (dependencySources != null && dependencySources.size() > 0))
-                ) {
-                    return ((CompletionStage<?>) innerResult).toCompletableFuture().join();
-                }
-                return innerResult;
+    private Object transformAndFetch(DataFetchingEnvironment fetchingEnvironment,
+                                     Map<String, Object> sourceEnv,
+                                     String operateType,
+                                     String argumentName,
+                                     CompiledScript compiledExpression,
+                                     DataFetcher<?> originalFetcher) throws Exception {
+
+        // filter list element of list argument
+        if (Objects.equals(operateType, Directives.ParamTransformType.FILTER.name())) {
+            List<Object> argument = fetchingEnvironment.getArgument(argumentName);
+            if (argument == null || argument.isEmpty()) {
+                return originalFetcher.get(fetchingEnvironment);
             }
 
-            // map argument by expression
-            if (Objects.equals(finalOperateType, Directives.ParamTransformType.MAP.name())) {
+            argument = argument.stream().filter(ele -> {
+                        Map<String, Object> filterEnv = new LinkedHashMap<>(fetchingEnvironment.getVariables());
+                        filterEnv.put("ele", ele);
+                        filterEnv.putAll(sourceEnv);
+                        return (Boolean) compiledExpression.execute(filterEnv);
+                    }
+            ).collect(toList());
+
+            return originalFetcher.get(newEnvironment(fetchingEnvironment, argumentName, argument));
+        }
+
+        // map each element of list argument
+        if (Objects.equals(operateType, Directives.ParamTransformType.LIST_MAP.name())) {
+            List<Object> argument = fetchingEnvironment.getArgument(argumentName);
+            if (argument == null || argument.isEmpty()) {
+                return originalFetcher.get(fetchingEnvironment);
+            }
 
+            argument = argument.stream().map(ele -> {
                 Map<String, Object> transformEnv = new LinkedHashMap<>(fetchingEnvironment.getVariables());
+                transformEnv.put("ele", ele);
                 transformEnv.putAll(sourceEnv);
-                transformEnv.put("arg", fetchingEnvironment.getArguments());
-                Object newParam = environment.getScriptEvaluator().evaluate(expression, transformEnv);
+                return compiledExpression.execute(transformEnv);
+            }).collect(toList());
 
+            return originalFetcher.get(newEnvironment(fetchingEnvironment, argumentName, argument));
+        }
 
-                Map<String, Object> newArguments = new LinkedHashMap<>(fetchingEnvironment.getArguments());
-                newArguments.put(argumentName, newParam);
+        // map argument by expression
+        if (Objects.equals(operateType, Directives.ParamTransformType.MAP.name())) {
+            Map<String, Object> transformEnv = new LinkedHashMap<>(fetchingEnvironment.getVariables());
+            transformEnv.putAll(sourceEnv);
+            transformEnv.put("arg", fetchingEnvironment.getArguments());
+            Object newParam = compiledExpression.execute(transformEnv);
 
-                DataFetchingEnvironment newEnvironment = DataFetchingEnvironmentImpl
-                        .newDataFetchingEnvironment(fetchingEnvironment).arguments(newArguments).build();
+            return originalFetcher.get(newEnvironment(fetchingEnvironment, argumentName, newParam));
+        }
 
-                Object innerResult = dataFetcherDefinition.getActionFetcher().get(newEnvironment);
-                if (innerResult instanceof CompletionStage
-                        && (dataFetcherDefinition.isAsyncFetcher() || (dependencySources != null && dependencySources.size() > 0))
-                ) {
-                    return ((CompletionStage<?>) innerResult).toCompletableFuture().join();
-                }
-                return innerResult;
-            }
+        throw new RuntimeException("can not invoke here.");
+    }
 
-            throw new RuntimeException("can not invoke here.");
-        };
+    private DataFetchingEnvironment newEnvironment(DataFetchingEnvironment fetchingEnvironment, String argumentName, Object argument) {
+        Map<String, Object> newArguments = new LinkedHashMap<>(fetchingEnvironment.getArguments());
+        newArguments.put(argumentName, argument);
+        return DataFetchingEnvironmentImpl.newDataFetchingEnvironment(fetchingEnvironment).arguments(newArguments).build();
+    }
 
-        if (dataFetcherDefinition.isAsyncFetcher()) {
-            return async(wrappedDataFetcher, dataFetcherDefinition.getExecutor());
-        }
+    private static class ArgumentTransformArguments {
 
-        // e.g. PropertyDataFetcher with @map, and dependencies is not empty.
-        if (dependencySources != null && dependencySources.size() > 0) {
-            return async(wrappedDataFetcher, environment.getExecutor());
-        }
+        private final String operateType;
 
-        return wrappedDataFetcher;
+        private final String argumentName;
+
+        private final String expression;
+
+        private final List<String> dependencySources;
+
+        private ArgumentTransformArguments(String operateType, String argumentName, String expression, List<String> dependencySources) {
+            this.operateType = operateType;
+            this.argumentName = argumentName;
+            this.expression = expression;
+            this.dependencySources = dependencySources;
+        }
     }
 }
@@ -20,14 +20,15 @@ package calculator.engine.decorator;
 import calculator.engine.ExecutionEngineState;
 import calculator.engine.ObjectMapper;
 import calculator.engine.annotation.Internal;
+import calculator.engine.script.CompiledScript;
 import calculator.engine.script.ScriptEvaluator;
 import graphql.execution.ValueUnboxer;
 import graphql.language.Directive;
 import graphql.language.Field;
 import graphql.schema.DataFetcher;
-import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLDirective;
 import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLType;
 
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -38,8 +39,9 @@ public class DecorateEnvironment {
     private final DataFetcher<?> originalDataFetcher;
     private final GraphQLFieldDefinition fieldDefinition;
     private final Directive directive;
+    private final Object directiveArguments;
     private final List<GraphQLDirective> directivesOnFieldDefinition;
-    private final DataFetchingEnvironment environment;
+    private final GraphQLType parentType;
     private final ExecutionEngineState engineState;
     private final ValueUnboxer valueUnboxer;
     private final Executor executor;
@@ -50,8 +52,9 @@ public class DecorateEnvironment {
                                DataFetcher<?> originalDataFetcher,
                                GraphQLFieldDefinition fieldDefinition,
                                Directive directive,
+                               Object directiveArguments,
                                List<GraphQLDirective> directivesOnFieldDefinition,
-                               DataFetchingEnvironment environment,
+                               GraphQLType parentType,
                                ExecutionEngineState engineState,
                                ValueUnboxer valueUnboxer,
                                Executor executor, ObjectMapper objectMapper, ScriptEvaluator scriptEvaluator
@@ -60,8 +63,9 @@ public class DecorateEnvironment {
         this.originalDataFetcher = originalDataFetcher;
         this.fieldDefinition = fieldDefinition;
         this.directive = directive;
+        this.directiveArguments = directiveArguments;
         this.directivesOnFieldDefinition = directivesOnFieldDefinition;
-        this.environment = environment;
+        this.parentType = parentType;
         this.engineState = engineState;
         this.valueUnboxer = valueUnboxer;
         this.executor = executor;
@@ -85,12 +89,24 @@ public class DecorateEnvironment {
         return directive;
     }
 
+    /**
+     * The arguments of directive parsed by {@link Decorator#parseArguments}, which are shared by all the executions
+     * of the same document.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getDirectiveArguments() {
+        return (T) directiveArguments;
+    }
+
     public List<GraphQLDirective> getDirectivesOnFieldDefinition() {
         return directivesOnFieldDefinition;
     }
 
-    public DataFetchingEnvironment getEnvironment() {
-        return environment;
+    /**
+     * @return the type which the field belongs to.
+     */
+    public GraphQLType getParentType() {
+        return parentType;
     }
 
     public ExecutionEngineState getEngineState() {
@@ -112,4 +128,11 @@ public class DecorateEnvironment {
     public ScriptEvaluator getScriptEvaluator() {
         return scriptEvaluator;
     }
+
+    /**
+     * Get the compiled handle of script, which is shared by all the executions of the same document.
+     */
+    public CompiledScript compileScript(String script) {
+        return engineState.getExecutionPlan().compileScript(script, scriptEvaluator);
+    }
 }
@@ -28,7 +28,17 @@ public interface Decorator {
     /**
      * Whether this decorator supports the given directive.
      */
-    boolean supportDirective(Directive directive, DecorateEnvironment environment);
+    boolean supportDirective(Directive directive);
+
+    /**
+     * Parse the arguments of directive to the typed arguments used by {@link #decorate}, the arguments are parsed
+     * once per document and shared by all its executions by {@link DecorateEnvironment#getDirectiveArguments()}.
+     *
+     * @return the parsed arguments, null if the directive has no argument used by decorator
+     */
+    default Object parseArguments(Directive directive) {
+        return null;
+    }
 
     /**
      * Decorate the original DataFetcher.
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Internal
@@ -32,7 +33,8 @@ public class DecoratorComposite implements Decorator {
 
     private final List<Decorator> decorators = new ArrayList<>();
 
-    private final Map<String, Decorator> DECORATOR_CACHE = new ConcurrentHashMap<>(128);
+    // cache the directives which are not supported by any decorator as well, e.g. @skip and @include.
+    private final Map<String, Optional<Decorator>> DECORATOR_CACHE = new ConcurrentHashMap<>(128);
 
     public void addStrategy(Decorator decorator){
         Objects.requireNonNull(decorator, "decorator can not be null.");
@@ -40,32 +42,40 @@ public class DecoratorComposite implements Decorator {
     }
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
-        return getDecorator(directive,environment) != null;
+    public boolean supportDirective(Directive directive) {
+        return getDecorator(directive) != null;
     }
 
 
+    @Override
+    @SuppressWarnings("ConstantConditions")
+    public Object parseArguments(Directive directive) {
+        return getDecorator(directive).parseArguments(directive);
+    }
+
     @SuppressWarnings("ConstantConditions")
     public DataFetcher<?> decorate(Directive directive, DecorateEnvironment environment) {
-        Decorator decorator = getDecorator(directive, environment);
+        Decorator decorator = getDecorator(directive);
         return decorator.decorate(directive, environment);
     }
 
 
-    private Decorator getDecorator(Directive directive, DecorateEnvironment environment) {
+    private Decorator getDecorator(Directive directive) {
         String directiveName = directive.getName();
-        Decorator result = DECORATOR_CACHE.get(directiveName);
+        Optional<Decorator> result = DECORATOR_CACHE.get(directiveName);
         if (result != null) {
-            return result;
+            return result.orElse(null);
         }
 
+        result = Optional.empty();
         for (Decorator decorator : decorators) {
-            if (decorator.supportDirective(directive, environment)) {
-                DECORATOR_CACHE.put(directiveName, decorator);
-                return decorator;
+            if (decorator.supportDirective(directive)) {
+                result = Optional.of(decorator);
+                break;
             }
         }
 
-        return null;
+        DECORATOR_CACHE.put(directiveName, result);
+        return result.orElse(null);
     }
 }
@@ -26,17 +26,15 @@ import graphql.schema.DataFetcher;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CompletionStage;
 
 import static calculator.engine.metadata.Directives.DISTINCT;
-import static graphql.schema.AsyncDataFetcher.async;
 
 @Internal
 public class DistinctDecorator extends AbstractDecorator {
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
-        return Objects.equals(DISTINCT.getName(), environment.getDirective().getName());
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(DISTINCT.getName(), directive.getName());
     }
 
     @Override
@@ -47,22 +45,18 @@ public class DistinctDecorator extends AbstractDecorator {
         );
 
         DataFetcher<?> wrappedFetcher = fetchingEnvironment -> {
-            Object originalResult = dataFetcherDefinition.getActionFetcher().get(fetchingEnvironment);
-            if (originalResult instanceof CompletionStage) {
-                originalResult = ((CompletionStage<?>) originalResult).toCompletableFuture().join();
-            }
-            Object unWrappedData = unWrapDataFetcherResult(originalResult, environment.getValueUnboxer());
-            if (CollectionUtil.arraySize(unWrappedData) == 0) {
-                return originalResult;
-            }
-
-            List<Object> listResult = CollectionUtil.arrayToList(unWrappedData);
-            return wrapResult(originalResult, listResult);
+            Object originalResult = dataFetcherDefinition.getOriginalFetcher().get(fetchingEnvironment);
+            return thenApplyResult(originalResult, result -> {
+                Object unWrappedData = unWrapDataFetcherResult(result, environment.getValueUnboxer());
+                if (CollectionUtil.arraySize(unWrappedData) == 0) {
+                    return result;
+                }
+
+                List<Object> listResult = CollectionUtil.arrayToList(unWrappedData);
+                return wrapResult(result, listResult);
+            });
         };
 
-        if (dataFetcherDefinition.isAsyncFetcher()) {
-            return async(wrappedFetcher, dataFetcherDefinition.getExecutor());
-        }
         return wrappedFetcher;
     }
 }
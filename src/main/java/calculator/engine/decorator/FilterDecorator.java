@@ -26,17 +26,15 @@ import graphql.schema.DataFetcher;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CompletionStage;
 
 import static calculator.engine.metadata.Directives.FILTER;
-import static graphql.schema.AsyncDataFetcher.async;
 
 @Internal
 public class FilterDecorator extends AbstractDecorator {
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
-        return Objects.equals(FILTER.getName(), environment.getDirective().getName());
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(FILTER.getName(), directive.getName());
     }
 
     @Override
@@ -45,23 +43,19 @@ public class FilterDecorator extends AbstractDecorator {
                 wrapperEnvironment.getOriginalDataFetcher()
         );
 
-        DataFetcher<?> wrappedFetcher = (DataFetcher<Object>) environment -> {
-            Object originalResult = dataFetcherDefinition.getActionFetcher().get(environment);
-            if (originalResult instanceof CompletionStage) {
-                originalResult = ((CompletionStage<?>) originalResult).toCompletableFuture().join();
-            }
-            Object unWrappedData = unWrapDataFetcherResult(originalResult, wrapperEnvironment.getValueUnboxer());
-            if (CollectionUtil.arraySize(unWrappedData) == 0) {
-                return originalResult;
-            }
-
-            List<Object> listResult = CollectionUtil.arrayToList(unWrappedData);
-            return wrapResult(originalResult, listResult);
+        DataFetcher<?> wrappedFetcher = environment -> {
+            Object originalResult = dataFetcherDefinition.getOriginalFetcher().get(environment);
+            return thenApplyResult(originalResult, result -> {
+                Object unWrappedData = unWrapDataFetcherResult(result, wrapperEnvironment.getValueUnboxer());
+                if (CollectionUtil.arraySize(unWrappedData) == 0) {
+                    return result;
+                }
+
+                List<Object> listResult = CollectionUtil.arrayToList(unWrappedData);
+                return wrapResult(result, listResult);
+            });
         };
 
-        if (dataFetcherDefinition.isAsyncFetcher()) {
-            return async(wrappedFetcher, dataFetcherDefinition.getExecutor());
-        }
         return wrappedFetcher;
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine.decorator;
+
+import calculator.common.GraphQLUtil;
+import calculator.common.HashedWheelTimer;
+import calculator.common.LatencyHistogram;
+import calculator.engine.annotation.Internal;
+import calculator.engine.metadata.DataFetcherDefinition;
+import graphql.language.Directive;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static calculator.common.CommonUtil.getArgumentFromDirective;
+import static calculator.engine.metadata.Directives.HEDGE;
+
+/**
+ * Issue duplicate fetches for the field which is not resolved after a delay, and take whichever completes first.
+ * <p>
+ * The delay is 'afterMs' if it's set, otherwise it's the {@link #HEDGE_PERCENTILE} latency of the field,
+ * which is observed by a histogram shared by all the queries. The field is not hedged until
+ * {@link #MIN_SAMPLES} latencies of it have been observed.
+ */
+@Internal
+public class HedgeDecorator extends AbstractDecorator {
+
+    static final double HEDGE_PERCENTILE = 0.95;
+
+    static final long MIN_SAMPLES = 100;
+
+    private static final long HISTOGRAM_WINDOW = 4096;
+
+    // <parentType, <fieldName, latencyHistogram>>, the types are weakly referenced so that the histograms of
+    // the fields are released with the schema, and the histograms of a schema are bounded by its fields.
+    private final Map<GraphQLType, Map<String, LatencyHistogram>> histogramByType = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(HEDGE.getName(), directive.getName());
+    }
+
+    @Override
+    public Object parseArguments(Directive directive) {
+        Number afterMs = getArgumentFromDirective(directive, "afterMs");
+        Number maxExtra = getArgumentFromDirective(directive, "maxExtra");
+        return new HedgeArguments(afterMs != null ? Long.valueOf(afterMs.longValue()) : null, maxExtra != null ? maxExtra.intValue() : 1);
+    }
+
+    @Override
+    public DataFetcher<?> decorate(Directive directive, DecorateEnvironment wrapperEnvironment) {
+        DataFetcherDefinition dataFetcherDefinition = GraphQLUtil.getDataFetcherDefinition(
+                wrapperEnvironment.getOriginalDataFetcher()
+        );
+        DataFetcher<?> originalFetcher = dataFetcherDefinition.getOriginalFetcher();
+
+        HedgeArguments arguments = wrapperEnvironment.getDirectiveArguments();
+        Long afterMs = arguments.afterMs;
+        int maxExtraFetches = arguments.maxExtraFetches;
+        Executor executor = wrapperEnvironment.getExecutor();
+
+        LatencyHistogram histogram = getHistogram(
+                wrapperEnvironment.getParentType(), wrapperEnvironment.getFieldDefinition().getName()
+        );
+
+        return environment -> {
+            long startNanos = System.nanoTime();
+            Object originalResult = originalFetcher.get(environment);
+            // the synchronous result has been resolved.
+            if (!(originalResult instanceof CompletionStage)) {
+                histogram.record(elapsedMicros(startNanos));
+                return originalResult;
+            }
+
+            CompletableFuture<Object> originalFuture = ((CompletionStage<Object>) originalResult).toCompletableFuture();
+            if (originalFuture.isDone()) {
+                if (!originalFuture.isCompletedExceptionally()) {
+                    histogram.record(elapsedMicros(startNanos));
+                }
+                return originalFuture;
+            }
+
+            long hedgeDelayMillis = afterMs != null ? afterMs.longValue() : adaptiveDelayMillis(histogram);
+            if (hedgeDelayMillis <= 0) {
+                originalFuture.whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        histogram.record(elapsedMicros(startNanos));
+                    }
+                });
+                return originalFuture;
+            }
+
+            HedgedFetch hedgedFetch = new HedgedFetch(
+                    originalFetcher, environment, histogram, executor, hedgeDelayMillis, maxExtraFetches, startNanos
+            );
+            hedgedFetch.addAttempt(originalFuture);
+            hedgedFetch.scheduleHedge();
+            return hedgedFetch.resultFuture;
+        };
+    }
+
+    LatencyHistogram getHistogram(GraphQLType parentType, String fieldName) {
+        Map<String, LatencyHistogram> histogramByField = histogramByType.computeIfAbsent(
+                GraphQLTypeUtil.unwrapAll(parentType), ignore -> new ConcurrentHashMap<>()
+        );
+        return histogramByField.computeIfAbsent(fieldName, ignore -> new LatencyHistogram(HISTOGRAM_WINDOW));
+    }
+
+    private static long adaptiveDelayMillis(LatencyHistogram histogram) {
+        if (histogram.getTotalCount() < MIN_SAMPLES) {
+            return -1;
+        }
+        long delayMicros = histogram.getValueAtPercentile(HEDGE_PERCENTILE);
+        return delayMicros < 0 ? -1 : Math.max(1, TimeUnit.MICROSECONDS.toMillis(delayMicros));
+    }
+
+    private static long elapsedMicros(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * The latency of field is recorded from the start of the first attempt when any attempt succeeds.
+     * If a hedge wins, the recorded latency is the elapsed time of the first attempt when it's cancelled,
+     * which is a censored sample of the slow attempt, so that the slow attempts are not excluded from histogram.
+     */
+    static class HedgedFetch {
+
+        private final DataFetcher<?> fetcher;
+
+        private final DataFetchingEnvironment environment;
+
+        private final LatencyHistogram histogram;
+
+        private final Executor executor;
+
+        private final long hedgeDelayMillis;
+
+        // the start of the first attempt.
+        private final long startNanos;
+
+        final CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+
+        // guarded by this
+        private final List<CompletableFuture<Object>> attempts = new ArrayList<>();
+
+        // guarded by this
+        private int remainingExtra;
+
+        // guarded by this, the attempts which are issued but not completed.
+        private int pendingCount;
+
+        // guarded by this
+        private HashedWheelTimer.Timeout timeout;
+
+        HedgedFetch(DataFetcher<?> fetcher,
+                    DataFetchingEnvironment environment,
+                    LatencyHistogram histogram,
+                    Executor executor,
+                    long hedgeDelayMillis,
+                    int maxExtra,
+                    long startNanos) {
+            this.fetcher = fetcher;
+            this.environment = environment;
+            this.histogram = histogram;
+            this.executor = executor;
+            this.hedgeDelayMillis = hedgeDelayMillis;
+            this.remainingExtra = maxExtra;
+            this.startNanos = startNanos;
+            // cancel the attempts which lose, or all of them if the field is cancelled.
+            this.resultFuture.whenComplete((result, ex) -> cancelAttempts());
+        }
+
+        void addAttempt(CompletableFuture<Object> attempt) {
+            synchronized (this) {
+                attempts.add(attempt);
+                pendingCount++;
+            }
+            // the field may be resolved before the attempt is added.
+            if (resultFuture.isDone()) {
+                attempt.cancel(false);
+            }
+            attempt.whenComplete(this::onAttemptCompleted);
+        }
+
+        synchronized void scheduleHedge() {
+            if (remainingExtra <= 0 || resultFuture.isDone()) {
+                return;
+            }
+            remainingExtra--;
+            // fetch on executor, the timer thread should not run the DataFetcher.
+            timeout = HashedWheelTimer.sharedTimer().newTimeout(
+                    () -> executor.execute(this::hedge), hedgeDelayMillis, TimeUnit.MILLISECONDS
+            );
+        }
+
+        private void hedge() {
+            if (resultFuture.isDone()) {
+                return;
+            }
+
+            Object result;
+            try {
+                result = fetcher.get(environment);
+            } catch (Throwable t) {
+                CompletableFuture<Object> failedAttempt = new CompletableFuture<>();
+                failedAttempt.completeExceptionally(t);
+                addAttempt(failedAttempt);
+                scheduleHedge();
+                return;
+            }
+
+            if (result instanceof CompletionStage) {
+                addAttempt(((CompletionStage<Object>) result).toCompletableFuture());
+            } else {
+                addAttempt(CompletableFuture.completedFuture(result));
+            }
+            scheduleHedge();
+        }
+
+        private void onAttemptCompleted(Object result, Throwable ex) {
+            if (ex == null) {
+                // only the first successful attempt resolves the field and records the latency.
+                if (resultFuture.complete(result)) {
+                    histogram.record(elapsedMicros(startNanos));
+                }
+                return;
+            }
+
+            // the field fails if there is no other attempt in flight, the failure is not retried by hedging.
+            boolean lastAttempt;
+            synchronized (this) {
+                pendingCount--;
+                lastAttempt = pendingCount == 0;
+            }
+            if (lastAttempt) {
+                resultFuture.completeExceptionally(ex);
+            }
+        }
+
+        private void cancelAttempts() {
+            List<CompletableFuture<Object>> toCancel;
+            synchronized (this) {
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                remainingExtra = 0;
+                toCancel = new ArrayList<>(attempts);
+            }
+            for (CompletableFuture<Object> attempt : toCancel) {
+                attempt.cancel(false);
+            }
+        }
+    }
+
+    private static class HedgeArguments {
+
+        // null if the delay is adaptive.
+        private final Long afterMs;
+
+        private final int maxExtraFetches;
+
+        private HedgeArguments(Long afterMs, int maxExtraFetches) {
+            this.afterMs = afterMs;
+            this.maxExtraFetches = maxExtraFetches;
+        }
+    }
+}
@@ -17,12 +17,10 @@
 
 package calculator.engine.decorator;
 
-import calculator.common.CommonUtil;
 import calculator.common.GraphQLUtil;
-import calculator.engine.ObjectMapper;
 import calculator.engine.annotation.Internal;
 import calculator.engine.metadata.DataFetcherDefinition;
-import calculator.engine.metadata.FetchSourceTask;
+import calculator.engine.script.CompiledScript;
 import graphql.language.Directive;
 import graphql.schema.DataFetcher;
 
@@ -34,6 +32,7 @@ import java.util.Objects;
 
 import static calculator.common.CommonUtil.getArgumentFromDirective;
 import static calculator.common.CommonUtil.getDependenceSourceFromDirective;
+import static calculator.common.CommonUtil.getScriptEnv;
 import static calculator.engine.metadata.Directives.MAP;
 import static graphql.schema.AsyncDataFetcher.async;
 
@@ -41,66 +40,74 @@ import static graphql.schema.AsyncDataFetcher.async;
 public class MapDecorator extends AbstractDecorator {
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
-        return Objects.equals(MAP.getName(), environment.getDirective().getName());
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(MAP.getName(), directive.getName());
+    }
+
+    @Override
+    public Object parseArguments(Directive directive) {
+        return new MapArguments(getArgumentFromDirective(directive, "mapper"), getDependenceSourceFromDirective(directive));
     }
 
     @Override
     public DataFetcher<?> decorate(Directive directive, DecorateEnvironment environment) {
-        String mapper = getArgumentFromDirective(environment.getDirective(), "mapper");
-        List<String> dependencySources = getDependenceSourceFromDirective(environment.getDirective());
+        MapArguments arguments = environment.getDirectiveArguments();
+        CompiledScript compiledMapper = environment.compileScript(arguments.mapper);
+        List<String> dependencySources = arguments.dependencySources;
 
         DataFetcherDefinition dataFetcherDefinition = GraphQLUtil.getDataFetcherDefinition(
                 environment.getOriginalDataFetcher()
         );
 
         DataFetcher<?> wrappedDataFetcher = fetchingEnvironment -> {
-
-            Map<String, Object> sourceEnv = new LinkedHashMap<>();
-            if (dependencySources != null && !dependencySources.isEmpty()) {
-                for (String dependencySource : dependencySources) {
-                    FetchSourceTask sourceTask = getFetchSourceFromState(environment.getEngineState(), dependencySource);
-                    if (sourceTask.getTaskFuture().isCompletedExceptionally()) {
-                        sourceEnv.put(dependencySource, null);
-                    } else {
-                        sourceEnv.put(dependencySource, sourceTask.getTaskFuture().join());
-                    }
-                }
-            }
-
-            // new Map, do not alter original Map info.
-            Map<String, Object> expEnv = new LinkedHashMap<>();
-            Object sourceInfo = getScriptEnv(environment.getObjectMapper(), fetchingEnvironment.getSource());
-            if (sourceInfo != null) {
-                expEnv.putAll((Map) sourceInfo);
+            Object source = fetchingEnvironment.getSource();
+            if (dependencySources == null || dependencySources.isEmpty()) {
+                return evaluateMapper(environment, compiledMapper, source, Collections.emptyMap());
             }
 
-            expEnv.putAll(sourceEnv);
-
-            return environment.getScriptEvaluator().evaluate(mapper, expEnv);
+            // the mapper is evaluated when all the dependency sources are resolved, no thread is blocked.
+            return getDependencySourceEnv(environment.getEngineState(), dependencySources).thenApply(
+                    sourceEnv -> evaluateMapper(environment, compiledMapper, source, sourceEnv)
+            );
         };
 
-        if (dataFetcherDefinition.isAsyncFetcher()) {
-            return async(wrappedDataFetcher, dataFetcherDefinition.getExecutor());
+        // the mapper with dependencies is composed by future.
+        if (dependencySources != null && dependencySources.size() > 0) {
+            return wrappedDataFetcher;
         }
 
-        // e.g. PropertyDataFetcher with @map, and dependencies is not empty.
-        if (dependencySources != null && dependencySources.size() > 0) {
-            return async(wrappedDataFetcher, environment.getExecutor());
+        if (dataFetcherDefinition.isAsyncFetcher()) {
+            return async(wrappedDataFetcher, dataFetcherDefinition.getExecutor());
         }
 
         return wrappedDataFetcher;
     }
 
-    private Object getScriptEnv(ObjectMapper objectMapper, Object res) {
-        if (res == null) {
-            return null;
+    private Object evaluateMapper(DecorateEnvironment environment,
+                                  CompiledScript compiledMapper,
+                                  Object source,
+                                  Map<String, Object> sourceEnv) {
+        // new Map, do not alter original Map info.
+        Map<String, Object> expEnv = new LinkedHashMap<>();
+        Object sourceInfo = getScriptEnv(environment.getObjectMapper(), source, compiledMapper);
+        if (sourceInfo != null) {
+            expEnv.putAll((Map) sourceInfo);
         }
 
-        if (CommonUtil.isBasicType(res)) {
-            return Collections.singletonMap("ele", res);
-        } else {
-            return objectMapper.toSimpleCollection(res);
+        expEnv.putAll(sourceEnv);
+
+        return compiledMapper.execute(expEnv);
+    }
+
+    private static class MapArguments {
+
+        private final String mapper;
+
+        private final List<String> dependencySources;
+
+        private MapArguments(String mapper, List<String> dependencySources) {
+            this.mapper = mapper;
+            this.dependencySources = dependencySources;
         }
     }
 }
@@ -30,12 +30,18 @@ import static calculator.engine.metadata.Directives.MOCK;
 public class MockDecorator implements Decorator {
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
-        return Objects.equals(MOCK.getName(), environment.getDirective().getName());
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(MOCK.getName(), directive.getName());
+    }
+
+    @Override
+    public Object parseArguments(Directive directive) {
+        return getArgumentFromDirective(directive, "value");
     }
 
     @Override
     public DataFetcher<?> decorate(Directive directive, DecorateEnvironment environment) {
-        return ignore -> getArgumentFromDirective(environment.getDirective(), "value");
+        Object value = environment.getDirectiveArguments();
+        return ignore -> value;
     }
 }
@@ -25,17 +25,15 @@ import graphql.language.Directive;
 import graphql.schema.DataFetcher;
 
 import java.util.Objects;
-import java.util.concurrent.CompletionStage;
 
 import static calculator.engine.metadata.Directives.SORT;
-import static graphql.schema.AsyncDataFetcher.async;
 
 @Internal
 public class SortDecorator extends AbstractDecorator {
 
     @Override
-    public boolean supportDirective(Directive directive, DecorateEnvironment environment) {
-        return Objects.equals(SORT.getName(), environment.getDirective().getName());
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(SORT.getName(), directive.getName());
     }
 
     @Override
@@ -45,23 +43,18 @@ public class SortDecorator extends AbstractDecorator {
         );
 
         DataFetcher<?> wrappedDataFetcher = fetchingEnvironment -> {
-            Object originalResult = dataFetcherDefinition.getActionFetcher().get(fetchingEnvironment);
-            if (originalResult instanceof CompletionStage) {
-                originalResult = ((CompletionStage<?>) originalResult).toCompletableFuture().join();
-            }
-
-            Object unWrappedData = unWrapDataFetcherResult(originalResult, environment.getValueUnboxer());
-            if (CollectionUtil.arraySize(unWrappedData) == 0) {
-                return originalResult;
-            }
-
-            Object listOrArray = CollectionUtil.collectionToListOrArray(unWrappedData);
-            return wrapResult(originalResult, listOrArray);
+            Object originalResult = dataFetcherDefinition.getOriginalFetcher().get(fetchingEnvironment);
+            return thenApplyResult(originalResult, result -> {
+                Object unWrappedData = unWrapDataFetcherResult(result, environment.getValueUnboxer());
+                if (CollectionUtil.arraySize(unWrappedData) == 0) {
+                    return result;
+                }
+
+                Object listOrArray = CollectionUtil.collectionToListOrArray(unWrappedData);
+                return wrapResult(result, listOrArray);
+            });
         };
 
-        if (dataFetcherDefinition.isAsyncFetcher()) {
-            return async(wrappedDataFetcher, dataFetcherDefinition.getExecutor());
-        }
         return wrappedDataFetcher;
     }
 }
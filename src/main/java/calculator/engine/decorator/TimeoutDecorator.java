@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine.decorator;
+
+import calculator.common.GraphQLUtil;
+import calculator.common.HashedWheelTimer;
+import calculator.engine.ExecutionEngineState;
+import calculator.engine.annotation.Internal;
+import calculator.engine.metadata.DataFetcherDefinition;
+import calculator.graphql.AsyncDataFetcherInterface;
+import graphql.language.Directive;
+import graphql.schema.DataFetcher;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static calculator.common.CommonUtil.getArgumentFromDirective;
+import static calculator.engine.metadata.Directives.TIMEOUT;
+
+@Internal
+public class TimeoutDecorator extends AbstractDecorator {
+
+    @Override
+    public boolean supportDirective(Directive directive) {
+        return Objects.equals(TIMEOUT.getName(), directive.getName());
+    }
+
+    @Override
+    public Object parseArguments(Directive directive) {
+        long timeoutMillis = ((Number) getArgumentFromDirective(directive, "ms")).longValue();
+        return new TimeoutArguments(timeoutMillis, getArgumentFromDirective(directive, "fallback"));
+    }
+
+    @Override
+    public DataFetcher<?> decorate(Directive directive, DecorateEnvironment wrapperEnvironment) {
+        DataFetcherDefinition dataFetcherDefinition = GraphQLUtil.getDataFetcherDefinition(
+                wrapperEnvironment.getOriginalDataFetcher()
+        );
+
+        TimeoutArguments arguments = wrapperEnvironment.getDirectiveArguments();
+        long timeoutMillis = arguments.timeoutMillis;
+        String fallback = arguments.fallback;
+        String resultKey = wrapperEnvironment.getField().getResultKey();
+        Executor executor = wrapperEnvironment.getExecutor();
+        ExecutionEngineState engineState = wrapperEnvironment.getEngineState();
+
+        return environment -> {
+            Object originalResult = dataFetcherDefinition.getOriginalFetcher().get(environment);
+            // the synchronous result has been resolved.
+            if (!(originalResult instanceof CompletionStage)) {
+                return originalResult;
+            }
+
+            CompletableFuture<Object> originalFuture = ((CompletionStage<Object>) originalResult).toCompletableFuture();
+            if (originalFuture.isDone()) {
+                return originalFuture;
+            }
+
+            // the original future may be shared by other fields, e.g. @singleFlight and @prefetch,
+            // so it's not cancelled on timeout but with the execution, and the field is completed by a separate future.
+            CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+            Runnable onTimeout = () -> {
+                engineState.trackFuture(originalFuture, dataFetcherDefinition.isCalculatorAsyncFetcher()
+                        ? () -> ((AsyncDataFetcherInterface<?>) dataFetcherDefinition.getOriginalFetcher()).onCancel(environment)
+                        : null
+                );
+                if (fallback != null) {
+                    resultFuture.complete(fallback);
+                } else {
+                    resultFuture.completeExceptionally(new TimeoutException(
+                            String.format("fetching field '%s' exceeds %d ms.", resultKey, timeoutMillis)
+                    ));
+                }
+            };
+            // complete on executor, the timer thread should not run the dependent actions of result.
+            HashedWheelTimer.Timeout timeout = HashedWheelTimer.sharedTimer().newTimeout(() -> {
+                try {
+                    executor.execute(onTimeout);
+                } catch (RejectedExecutionException e) {
+                    onTimeout.run();
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+            originalFuture.whenComplete((result, ex) -> {
+                timeout.cancel();
+                if (ex != null) {
+                    resultFuture.completeExceptionally(ex);
+                } else {
+                    resultFuture.complete(result);
+                }
+            });
+            return resultFuture;
+        };
+    }
+
+    private static class TimeoutArguments {
+
+        private final long timeoutMillis;
+
+        private final String fallback;
+
+        private TimeoutArguments(long timeoutMillis, String fallback) {
+            this.timeoutMillis = timeoutMillis;
+            this.fallback = fallback;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package calculator.engine.handler;
 
 import calculator.common.CollectionUtil;
 import calculator.engine.annotation.Internal;
+import calculator.engine.script.CompiledScript;
 import graphql.language.Directive;
 
 import java.util.LinkedHashMap;
@@ -42,6 +43,7 @@ public class DistinctHandler implements FieldValueHandler {
     public void transformListResultByDirectives(HandleEnvironment handleEnvironment) {
         String comparatorExpression = getArgumentFromDirective(handleEnvironment.getDirective(), "comparator");
         boolean emptyComparator = comparatorExpression == null;
+        CompiledScript compiledComparator = emptyComparator ? null : handleEnvironment.compileScript(comparatorExpression);
 
         Function<Object, Integer> comparator = ele -> {
             if (ele == null) {
@@ -53,11 +55,11 @@ public class DistinctHandler implements FieldValueHandler {
             }
 
             Map<String, Object> scriptEnv = new LinkedHashMap<>();
-            Map<String, Object> calMap = (Map<String, Object>) getScriptEnv(handleEnvironment.getObjectMapper(),ele);
+            Map<String, Object> calMap = (Map<String, Object>) getScriptEnv(handleEnvironment.getObjectMapper(), ele, compiledComparator);
             if (calMap != null) {
                 scriptEnv.putAll(calMap);
             }
-            Object evaluate = handleEnvironment.getScriptEvaluator().evaluate(comparatorExpression, scriptEnv);
+            Object evaluate = compiledComparator.execute(scriptEnv);
             return Objects.hashCode(evaluate);
         };
 
@@ -19,6 +19,7 @@ package calculator.engine.handler;
 
 import calculator.common.CollectionUtil;
 import calculator.engine.annotation.Internal;
+import calculator.engine.script.CompiledScript;
 import graphql.language.Directive;
 
 import java.util.LinkedHashMap;
@@ -41,11 +42,12 @@ public class FilterHandler implements FieldValueHandler{
     @Override
     public void transformListResultByDirectives(HandleEnvironment handleEnvironment) {
         String predicate = getArgumentFromDirective(handleEnvironment.getDirective(), "predicate");
+        CompiledScript compiledPredicate = handleEnvironment.compileScript(predicate);
 
         Predicate<Object> willKeep = ele -> {
             Map<String, Object> sourceEnv = new LinkedHashMap<>();
-            sourceEnv.putAll((Map)getScriptEnv(handleEnvironment.getObjectMapper(), ele));
-            return (Boolean) handleEnvironment.getScriptEvaluator().evaluate(predicate, sourceEnv);
+            sourceEnv.putAll((Map)getScriptEnv(handleEnvironment.getObjectMapper(), ele, compiledPredicate));
+            return (Boolean) compiledPredicate.execute(sourceEnv);
         };
 
         CollectionUtil.filterCollection(handleEnvironment.getResult().getData(), willKeep);
@@ -17,8 +17,10 @@
 
 package calculator.engine.handler;
 
+import calculator.engine.ExecutionEngineState;
 import calculator.engine.ObjectMapper;
 import calculator.engine.annotation.Internal;
+import calculator.engine.script.CompiledScript;
 import calculator.engine.script.ScriptEvaluator;
 import graphql.ExecutionResult;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
@@ -32,6 +34,7 @@ public class HandleEnvironment {
     private final Directive directive;
     private final ExecutionResult result;
     private final InstrumentationFieldCompleteParameters parameters;
+    private final ExecutionEngineState engineState;
     private final Executor executor;
     private final ObjectMapper objectMapper;
     private final ScriptEvaluator scriptEvaluator;
@@ -39,12 +42,14 @@ public class HandleEnvironment {
     public HandleEnvironment(Directive directive,
                              ExecutionResult result,
                              InstrumentationFieldCompleteParameters parameters,
+                             ExecutionEngineState engineState,
                              Executor executor,
                              ObjectMapper objectMapper,
                              ScriptEvaluator scriptEvaluator) {
         this.directive = directive;
         this.result = result;
         this.parameters = parameters;
+        this.engineState = engineState;
         this.executor = executor;
         this.objectMapper = objectMapper;
         this.scriptEvaluator = scriptEvaluator;
@@ -62,6 +67,10 @@ public class HandleEnvironment {
         return parameters;
     }
 
+    public ExecutionEngineState getEngineState() {
+        return engineState;
+    }
+
     public Executor getExecutor() {
         return executor;
     }
@@ -73,4 +82,11 @@ public class HandleEnvironment {
     public ScriptEvaluator getScriptEvaluator() {
         return scriptEvaluator;
     }
+
+    /**
+     * Get the compiled handle of script, which is shared by all the executions of the same document.
+     */
+    public CompiledScript compileScript(String script) {
+        return engineState.getExecutionPlan().compileScript(script, scriptEvaluator);
+    }
 }
@@ -19,17 +19,17 @@ package calculator.engine.handler;
 
 import calculator.common.CollectionUtil;
 import calculator.engine.annotation.Internal;
+import calculator.engine.script.CompiledScript;
 import graphql.language.Directive;
 
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 import static calculator.common.CommonUtil.getArgumentFromDirective;
 import static calculator.common.CommonUtil.getScriptEnv;
 import static calculator.engine.metadata.Directives.SORT_BY;
-import static java.util.Comparator.nullsLast;
 
 @Internal
 public class SortByHandler implements FieldValueHandler {
@@ -42,33 +42,24 @@ public class SortByHandler implements FieldValueHandler {
     @Override
     public void transformListResultByDirectives(HandleEnvironment handleEnvironment) {
         String comparatorExpression = getArgumentFromDirective(handleEnvironment.getDirective(), "comparator");
+        CompiledScript compiledComparator = handleEnvironment.compileScript(comparatorExpression);
         Boolean reversed = getArgumentFromDirective(handleEnvironment.getDirective(), "reversed");
         final boolean finalReversed = reversed != null
                 ? reversed
                 : (Boolean) SORT_BY.getArgument("reversed").getArgumentDefaultValue().getValue();
 
 
-        Comparator<Object> comparator = Comparator.comparing(
-                ele -> {
-                    Map<String, Object> scriptEnv = new LinkedHashMap<>();
-                    Map<String, Object> calMap = (Map<String, Object>) getScriptEnv(handleEnvironment.getObjectMapper(), ele);
-                    if (calMap != null) {
-                        scriptEnv.putAll(calMap);
-                    }
-                    return (Comparable<Object>) handleEnvironment.getScriptEvaluator().evaluate(comparatorExpression, scriptEnv);
-                },
-                // always nullLast
-                nullsLast((v1, v2) -> {
-                            if (finalReversed) {
-                                return v2.compareTo(v1);
-                            } else {
-                                return v1.compareTo(v2);
-                            }
-                        }
-                )
-        );
+        Function<Object, Object> sortKey = ele -> {
+            Map<String, Object> scriptEnv = new LinkedHashMap<>();
+            Map<String, Object> calMap = (Map<String, Object>) getScriptEnv(handleEnvironment.getObjectMapper(), ele, compiledComparator);
+            if (calMap != null) {
+                scriptEnv.putAll(calMap);
+            }
+            return compiledComparator.execute(scriptEnv);
+        };
 
-        CollectionUtil.sortListOrArray(handleEnvironment.getResult().getData(), comparator);
+        // always nullLast
+        CollectionUtil.sortListOrArrayByKey(handleEnvironment.getResult().getData(), sortKey, finalReversed);
     }
 
 }
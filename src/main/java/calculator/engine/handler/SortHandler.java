@@ -21,15 +21,17 @@ import calculator.common.CollectionUtil;
 import calculator.engine.annotation.Internal;
 import graphql.language.Directive;
 
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static calculator.common.CommonUtil.getArgumentFromDirective;
 import static calculator.common.CommonUtil.getScriptEnv;
+import static calculator.common.CommonUtil.isBasicType;
 import static calculator.engine.metadata.Directives.SORT;
-import static java.util.Comparator.nullsLast;
 
 @Internal
 public class SortHandler implements FieldValueHandler{
@@ -46,23 +48,16 @@ public class SortHandler implements FieldValueHandler{
         Boolean reversed = getArgumentFromDirective(handleEnvironment.getDirective(), "reversed");
         final boolean finalReversed = reversed != null ? reversed : defaultReversed.get();
 
-        Comparator<Object> comparator = Comparator.comparing(
-                ele -> {
-                    Map<String, Comparable<Object>> calMap = (Map<String, Comparable<Object>>) getScriptEnv(handleEnvironment.getObjectMapper(), ele);
-                    return calMap.get(sortKey);
-                },
-                // always nullLast
-                nullsLast((v1, v2) -> {
-                            if (finalReversed) {
-                                return v2.compareTo(v1);
-                            } else {
-                                return v1.compareTo(v2);
-                            }
-                        }
-                )
-        );
+        Set<String> sortKeyProperty = Collections.singleton(sortKey);
+        Function<Object, Object> keyExtractor = ele -> {
+            Map<String, Object> calMap = ele == null || isBasicType(ele)
+                    ? (Map<String, Object>) getScriptEnv(handleEnvironment.getObjectMapper(), ele)
+                    : (Map<String, Object>) handleEnvironment.getObjectMapper().toSimpleCollection(ele, sortKeyProperty);
+            return calMap.get(sortKey);
+        };
 
-        CollectionUtil.sortListOrArray(handleEnvironment.getResult().getData(), comparator);
+        // always nullLast
+        CollectionUtil.sortListOrArrayByKey(handleEnvironment.getResult().getData(), keyExtractor, finalReversed);
     }
 
 }
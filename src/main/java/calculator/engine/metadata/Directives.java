@@ -33,6 +33,7 @@ import static graphql.Scalars.GraphQLInt;
 import static graphql.Scalars.GraphQLString;
 import static graphql.introspection.Introspection.DirectiveLocation.ARGUMENT_DEFINITION;
 import static graphql.introspection.Introspection.DirectiveLocation.FIELD;
+import static graphql.introspection.Introspection.DirectiveLocation.FIELD_DEFINITION;
 import static graphql.introspection.Introspection.DirectiveLocation.FRAGMENT_SPREAD;
 import static graphql.introspection.Introspection.DirectiveLocation.INLINE_FRAGMENT;
 
@@ -242,7 +243,41 @@ public class Directives {
                     .type(GraphQLList.list(GraphQLNonNull.nonNull(GraphQLString))))
             .build();
 
-    // directive @partition(size: Int!) on ARGUMENT_DEFINITION
+    // directive @timeout(ms: Int!, fallback: String) on FIELD
+    public final static GraphQLDirective TIMEOUT = GraphQLDirective.newDirective()
+            .name("timeout")
+            .description("complete the field with fallback value or error if it's not resolved in 'ms' milliseconds.")
+            .validLocation(FIELD)
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("ms")
+                    .type(GraphQLNonNull.nonNull(GraphQLInt)))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("fallback")
+                    .description("the value returned when timeout, the field is resolved as error if it's not set.")
+                    .type(GraphQLString))
+            .build();
+
+    // directive @hedge(afterMs: Int, maxExtra: Int = 1) on FIELD
+    public final static GraphQLDirective HEDGE = GraphQLDirective.newDirective()
+            .name("hedge")
+            .description("issue duplicate fetches for idempotent field which is not resolved in time, and take the first result.")
+            .validLocation(FIELD)
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("afterMs")
+                    .description("the delay of duplicate fetch, the observed p95 latency of field is used if it's not set.")
+                    .type(GraphQLInt))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("maxExtra")
+                    .description("the maximum number of duplicate fetches.")
+                    .type(GraphQLInt)
+                    .defaultValue(1))
+            .build();
+
+    // directive @partition(size: Int!, parallelism: Int = 1, adaptive: Boolean = false) on ARGUMENT_DEFINITION
     public final static GraphQLDirective PARTITION = GraphQLDirective.newDirective()
             .name("partition")
             .description("divide argument list into multiple part and invoke DataFetcher.")
@@ -251,6 +286,79 @@ public class Directives {
                     .newArgument()
                     .name("size")
                     .type(GraphQLNonNull.nonNull(GraphQLInt)))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("parallelism")
+                    .description("the maximum number of partitions invoked in parallel on the executor of config.")
+                    .type(GraphQLInt)
+                    .defaultValueProgrammatic(1))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("adaptive")
+                    .description("tune the partition size by the observed latency, and 'size' is the maximum partition size.")
+                    .type(GraphQLBoolean)
+                    .defaultValueProgrammatic(false))
+            .build();
+
+    public final static GraphQLDirective BATCH = GraphQLDirective.newDirective()
+            .name("batch")
+            .description("collect the keys of the field in sibling list elements and load them by one invocation of registered BatchLoader.")
+            .validLocation(FIELD_DEFINITION)
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("loader")
+                    .description("the name of BatchLoader registered in config.")
+                    .type(GraphQLNonNull.nonNull(GraphQLString)))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("key")
+                    .description("the expression to get key, the properties of source object and the arguments of field can be used.")
+                    .type(GraphQLNonNull.nonNull(GraphQLString)))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("maxBatchSize")
+                    .description("the maximum number of keys in one invocation of BatchLoader, unlimited if not set.")
+                    .type(GraphQLInt))
+            .build();
+
+    public final static GraphQLDirective SINGLE_FLIGHT = GraphQLDirective.newDirective()
+            .name("singleFlight")
+            .description("share the in-flight invocation of DataFetcher by the identical fetches in a request, take effect with SingleFlightInstrumentation.")
+            .validLocation(FIELD_DEFINITION)
+            .build();
+
+    public final static GraphQLDirective CACHED = GraphQLDirective.newDirective()
+            .name("cached")
+            .description("cache the value of field across requests by the arguments of field.")
+            .validLocation(FIELD_DEFINITION)
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("ttlMs")
+                    .description("the milliseconds the cached value is fresh since it's loaded.")
+                    .type(GraphQLNonNull.nonNull(GraphQLInt)))
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("maxEntries")
+                    .description("the maximum number of cached values of the field.")
+                    .type(GraphQLInt)
+                    .defaultValueProgrammatic(1000))
+            .build();
+
+    // directive @bulkhead(name: String!) on FIELD_DEFINITION
+    public final static GraphQLDirective BULKHEAD = GraphQLDirective.newDirective()
+            .name("bulkhead")
+            .description("fetch the field on the bulkhead registered in config, which limits the concurrency of fetches.")
+            .validLocation(FIELD_DEFINITION)
+            .argument(GraphQLArgument
+                    .newArgument()
+                    .name("name")
+                    .type(GraphQLNonNull.nonNull(GraphQLString)))
+            .build();
+
+    public final static GraphQLDirective PREFETCH = GraphQLDirective.newDirective()
+            .name("prefetch")
+            .description("the DataFetcher of field is side-effect-free, and the field on the path of @fetchSource can be fetched speculatively when execution starts.")
+            .validLocation(FIELD_DEFINITION)
             .build();
 
     static {
@@ -265,7 +373,14 @@ public class Directives {
         tmpMap.put(MAP.getName(), MAP);
         tmpMap.put(FETCH_SOURCE.getName(), FETCH_SOURCE);
         tmpMap.put(ARGUMENT_TRANSFORM.getName(), ARGUMENT_TRANSFORM);
+        tmpMap.put(TIMEOUT.getName(), TIMEOUT);
+        tmpMap.put(HEDGE.getName(), HEDGE);
         tmpMap.put(PARTITION.getName(), PARTITION);
+        tmpMap.put(BATCH.getName(), BATCH);
+        tmpMap.put(SINGLE_FLIGHT.getName(), SINGLE_FLIGHT);
+        tmpMap.put(CACHED.getName(), CACHED);
+        tmpMap.put(BULKHEAD.getName(), BULKHEAD);
+        tmpMap.put(PREFETCH.getName(), PREFETCH);
         CAL_DIRECTIVE_BY_NAME = Collections.unmodifiableMap(tmpMap);
     }
 
@@ -281,6 +396,8 @@ public class Directives {
         tmpMap.put(MAP.getName(), MAP);
         tmpMap.put(FETCH_SOURCE.getName(), FETCH_SOURCE);
         tmpMap.put(ARGUMENT_TRANSFORM.getName(), ARGUMENT_TRANSFORM);
+        tmpMap.put(TIMEOUT.getName(), TIMEOUT);
+        tmpMap.put(HEDGE.getName(), HEDGE);
         CAL_QUERY_DIRECTIVE_BY_NAME = Collections.unmodifiableMap(tmpMap);
     }
 }
@@ -20,8 +20,15 @@ package calculator.engine.metadata;
 import calculator.engine.annotation.Internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 
 @Internal
@@ -41,7 +48,8 @@ public class FetchSourceTask {
 
     private final CompletableFuture<Object> taskFuture;
 
-    private final ArrayList<CompletableFuture<Object>> listElementFutures = new ArrayList<>();
+    // the element futures are added concurrently when the list elements are dispatched.
+    private final Queue<CompletableFuture<Object>> listElementFutures = new ConcurrentLinkedQueue<>();
 
     private final String mapper;
 
@@ -111,18 +119,51 @@ public class FetchSourceTask {
         return childrenTaskList;
     }
 
-    public ArrayList<CompletableFuture<Object>> getListElementFutures() {
-        return listElementFutures;
-    }
-
     public void completeWithDummyValue() {
         taskFuture.complete(DUMMY_VALUE);
     }
 
-    public synchronized void addListElementResultFuture(CompletableFuture<Object> elementFuture) {
+    public void addListElementResultFuture(CompletableFuture<Object> elementFuture) {
         listElementFutures.add(elementFuture);
     }
 
+    /**
+     * Aggregate the results of the list element futures which have been added, in the order they are added.
+     * <p>
+     * The results are written to a presized array by index, and the last completed element publishes the list,
+     * the first failed element fails the aggregation immediately.
+     *
+     * @param onAggregated the callback invoked once with the list of results, or with the exception of failed element
+     */
+    public void aggregateListElementResults(BiConsumer<List<Object>, Throwable> onAggregated) {
+        Object[] elementFutures = listElementFutures.toArray();
+        if (elementFutures.length == 0) {
+            onAggregated.accept(Collections.emptyList(), null);
+            return;
+        }
+
+        Object[] elementResults = new Object[elementFutures.length];
+        // the count of uncompleted elements, set to negative when any element fails.
+        AtomicInteger remaining = new AtomicInteger(elementFutures.length);
+        for (int i = 0; i < elementFutures.length; i++) {
+            int index = i;
+            ((CompletableFuture<Object>) elementFutures[i]).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    if (remaining.getAndSet(-1) > 0) {
+                        onAggregated.accept(null, ex);
+                    }
+                    return;
+                }
+
+                // the write of result happens-before the read of the last completed element.
+                elementResults[index] = result;
+                if (remaining.decrementAndGet() == 0) {
+                    onAggregated.accept(Arrays.asList(elementResults), null);
+                }
+            });
+        }
+    }
+
     public synchronized void addChildrenTaskList(FetchSourceTask sourceTask) {
         childrenTaskList.add(sourceTask);
     }
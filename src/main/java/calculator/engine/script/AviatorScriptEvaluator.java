@@ -16,12 +16,16 @@
  */
 package calculator.engine.script;
 
+import calculator.common.CommonUtil;
 import calculator.engine.annotation.PublicApi;
 import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.Expression;
 import com.googlecode.aviator.runtime.function.AbstractFunction;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 @PublicApi
@@ -61,7 +65,42 @@ public class AviatorScriptEvaluator implements ScriptEvaluator {
         return AviatorEvaluator.compile(expression, true).getVariableNames();
     }
 
+    @Override
+    public CompiledScript compile(String script) {
+        return new AviatorCompiledScript(AviatorEvaluator.compile(script, true));
+    }
+
     public void addFunction(AbstractFunction function) {
         AviatorEvaluator.addFunction(function);
     }
+
+    private static class AviatorCompiledScript implements CompiledScript {
+
+        private final Expression expression;
+
+        private final List<String> variableNames;
+
+        private final Set<String> topLevelVariableNames;
+
+        AviatorCompiledScript(Expression expression) {
+            this.expression = expression;
+            this.variableNames = Collections.unmodifiableList(expression.getVariableNames());
+            this.topLevelVariableNames = CommonUtil.topLevelVariableNames(variableNames);
+        }
+
+        @Override
+        public Object execute(Map<String, Object> arguments) {
+            return expression.execute(arguments);
+        }
+
+        @Override
+        public List<String> getVariableNames() {
+            return variableNames;
+        }
+
+        @Override
+        public Set<String> getTopLevelVariableNames() {
+            return topLevelVariableNames;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package calculator.engine.script;
+
+import calculator.engine.annotation.PublicApi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The reusable handle of compiled script, which is created by {@link ScriptEvaluator#compile(String)}.
+ */
+@PublicApi
+public interface CompiledScript {
+
+    /**
+     * Execute the compiled script with arguments.
+     *
+     * @param arguments script execution arguments
+     * @return the result of execution
+     */
+    Object execute(Map<String, Object> arguments);
+
+    /**
+     * Return the variable names which the script used.
+     *
+     * @return variable names
+     */
+    List<String> getVariableNames();
+
+    /**
+     * Return the top-level variable names which the script used, e.g. 'item' for 'item.price'.
+     * <p>
+     * The whole environment is passed to the script by default, which is always correct but not pruned.
+     *
+     * @return top-level variable names, or null if script may access the whole environment
+     */
+    default Set<String> getTopLevelVariableNames() {
+        return null;
+    }
+
+}
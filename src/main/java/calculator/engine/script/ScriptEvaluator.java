@@ -17,10 +17,12 @@
 
 package calculator.engine.script;
 
+import calculator.common.CommonUtil;
 import calculator.engine.annotation.PublicApi;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @PublicApi
 public interface ScriptEvaluator {
@@ -50,4 +52,31 @@ public interface ScriptEvaluator {
      */
     List<String> getScriptArgument(String script);
 
+    /**
+     * Compile the script to a reusable handle, which could be executed repeatedly without parsing script again.
+     *
+     * @param script script
+     * @return the compiled script
+     */
+    default CompiledScript compile(String script) {
+        List<String> variableNames = getScriptArgument(script);
+        Set<String> topLevelVariableNames = CommonUtil.topLevelVariableNames(variableNames);
+        return new CompiledScript() {
+            @Override
+            public Object execute(Map<String, Object> arguments) {
+                return evaluate(script, arguments);
+            }
+
+            @Override
+            public List<String> getVariableNames() {
+                return variableNames;
+            }
+
+            @Override
+            public Set<String> getTopLevelVariableNames() {
+                return topLevelVariableNames;
+            }
+        };
+    }
+
 }
@@ -21,11 +21,14 @@ package calculator.engine.validation;
 import calculator.config.Config;
 import calculator.engine.annotation.Internal;
 import calculator.engine.metadata.Directives;
+import calculator.engine.script.ValidateInfo;
 import graphql.language.IntValue;
+import graphql.language.StringValue;
 import graphql.schema.GraphQLArgument;
 import graphql.schema.GraphQLDirective;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchemaElement;
 import graphql.schema.GraphQLType;
 import graphql.schema.GraphQLTypeUtil;
@@ -33,6 +36,7 @@ import graphql.schema.InputValueWithState;
 import graphql.util.TraversalControl;
 import graphql.util.TraverserContext;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -44,13 +48,28 @@ public class BasicRule extends AbstractRule {
 
     private final Config config;
 
-    BasicRule(Config config) {
+    private final GraphQLObjectType queryType;
+
+    BasicRule(Config config, GraphQLObjectType queryType) {
         this.config = config;
+        this.queryType = queryType;
     }
 
     @Override
     public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
 
+        if (fieldDefinition.getDirective(Directives.BATCH.getName()) != null) {
+            validateBatch(fieldDefinition, context);
+        }
+
+        if (fieldDefinition.getDirective(Directives.CACHED.getName()) != null) {
+            validateCached(fieldDefinition, context);
+        }
+
+        if (fieldDefinition.getDirective(Directives.BULKHEAD.getName()) != null) {
+            validateBulkhead(fieldDefinition, context);
+        }
+
         Map<String, GraphQLArgument> argumentWithPartitionByName = fieldDefinition.getArguments().stream()
                 .filter(argument -> argument.getDirective(Directives.PARTITION.getName()) != null)
                 .collect(Collectors.toMap(
@@ -97,6 +116,119 @@ public class BasicRule extends AbstractRule {
             return TraversalControl.CONTINUE;
         }
 
+        GraphQLArgument parallelismArgument = directive.getArgument("parallelism");
+        if (parallelismArgument != null && parallelismArgument.hasSetValue()) {
+            Object parallelismValue = parallelismArgument.getArgumentValue().getValue();
+            if (!(parallelismValue instanceof IntValue) || ((IntValue) parallelismValue).getValue().intValue() <= 0) {
+                String errorMsg = String.format("the parallelism value of @partition on {%s} must be positive number.", fieldFullPath);
+                addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+                return TraversalControl.CONTINUE;
+            }
+        }
+
         return TraversalControl.CONTINUE;
     }
+
+    private void validateBatch(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+        GraphQLNamedType parentNode = (GraphQLNamedType) context.getParentNode();
+        String fieldFullPath = parentNode.getName() + "." + fieldDefinition.getName();
+        GraphQLDirective directive = fieldDefinition.getDirective(Directives.BATCH.getName());
+
+        boolean usePartition = fieldDefinition.getArguments().stream()
+                .anyMatch(argument -> argument.getDirective(Directives.PARTITION.getName()) != null);
+        if (usePartition) {
+            String errorMsg = String.format("@batch can not be used with @partition on {%s}.", fieldFullPath);
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            return;
+        }
+
+        // the fetcher of bulkhead would be replaced by the batch fetcher.
+        if (fieldDefinition.getDirective(Directives.BULKHEAD.getName()) != null
+                || config.getBulkheadByField().containsKey(fieldFullPath)) {
+            String errorMsg = String.format("@batch can not be used with bulkhead on {%s}.", fieldFullPath);
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            return;
+        }
+
+        String loaderName = getStringArgument(directive, "loader");
+        if (loaderName == null || !config.getBatchLoaders().containsKey(loaderName)) {
+            String errorMsg = String.format("the loader '%s' of @batch on {%s} is not registered in config.", loaderName, fieldFullPath);
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            return;
+        }
+
+        String key = getStringArgument(directive, "key");
+        if (key == null || key.isEmpty()) {
+            String errorMsg = String.format("the key expression of @batch on {%s} can not be empty.", fieldFullPath);
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            return;
+        }
+
+        ValidateInfo validateInfo = config.getScriptEvaluator().isValidScript(key);
+        if (!validateInfo.isValidScript()) {
+            String errorMsg = String.format("invalid key expression '%s' of @batch on {%s}: %s",
+                    key, fieldFullPath, validateInfo.getErrorMsg()
+            );
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            return;
+        }
+
+        GraphQLArgument maxBatchSizeArgument = directive.getArgument("maxBatchSize");
+        if (maxBatchSizeArgument != null && maxBatchSizeArgument.hasSetValue()) {
+            Object maxBatchSizeValue = maxBatchSizeArgument.getArgumentValue().getValue();
+            if (!(maxBatchSizeValue instanceof IntValue) || ((IntValue) maxBatchSizeValue).getValue().intValue() <= 0) {
+                String errorMsg = String.format("the maxBatchSize value of @batch on {%s} must be positive number.", fieldFullPath);
+                addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            }
+        }
+    }
+
+    private void validateCached(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+        GraphQLNamedType parentNode = (GraphQLNamedType) context.getParentNode();
+        String fieldFullPath = parentNode.getName() + "." + fieldDefinition.getName();
+        GraphQLDirective directive = fieldDefinition.getDirective(Directives.CACHED.getName());
+
+        // the values are cached by arguments, the fields of other types depend on the source as well.
+        if (!parentNode.getName().equals(queryType.getName())) {
+            String errorMsg = String.format("@cached can only be used on the fields of query type, instead of {%s}.", fieldFullPath);
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+            return;
+        }
+
+        for (String argumentName : Arrays.asList("ttlMs", "maxEntries")) {
+            GraphQLArgument argument = directive.getArgument(argumentName);
+            if (argument == null || !argument.hasSetValue()) {
+                continue;
+            }
+
+            Object value = argument.getArgumentValue().getValue();
+            if (!(value instanceof IntValue) || ((IntValue) value).getValue().intValue() <= 0) {
+                String errorMsg = String.format("the %s value of @cached on {%s} must be positive number.", argumentName, fieldFullPath);
+                addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+                return;
+            }
+        }
+    }
+
+    private void validateBulkhead(GraphQLFieldDefinition fieldDefinition, TraverserContext<GraphQLSchemaElement> context) {
+        GraphQLNamedType parentNode = (GraphQLNamedType) context.getParentNode();
+        String fieldFullPath = parentNode.getName() + "." + fieldDefinition.getName();
+        GraphQLDirective directive = fieldDefinition.getDirective(Directives.BULKHEAD.getName());
+
+        String bulkheadName = getStringArgument(directive, "name");
+        if (bulkheadName == null || !config.getBulkheads().containsKey(bulkheadName)) {
+            String errorMsg = String.format("the bulkhead '%s' of @bulkhead on {%s} is not registered in config.", bulkheadName, fieldFullPath);
+            addValidError(fieldDefinition.getDefinition().getSourceLocation(), errorMsg);
+        }
+    }
+
+    private static String getStringArgument(GraphQLDirective directive, String argumentName) {
+        GraphQLArgument argument = directive.getArgument(argumentName);
+        if (argument == null || !argument.hasSetValue()) {
+            return null;
+        }
+
+        Object value = argument.getArgumentValue().getValue();
+        return value instanceof StringValue ? ((StringValue) value).getValue() : null;
+    }
 }
@@ -28,7 +28,7 @@ import java.util.List;
 public class SchemaValidator {
 
     public static List<CalculatorSchemaValidationError> validateSchema(Config config, GraphQLSchema existingSchema) {
-        BasicRule basicRule = new BasicRule(config);
+        BasicRule basicRule = new BasicRule(config, existingSchema.getQueryType());
         SchemaTraverser schemaTraverser = new SchemaTraverser();
         schemaTraverser.depthFirst(basicRule, existingSchema.getQueryType());
 
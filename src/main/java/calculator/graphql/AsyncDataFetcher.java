@@ -17,13 +17,13 @@
 
 package calculator.graphql;
 
+import calculator.common.DefaultExecutor;
 import calculator.engine.annotation.Internal;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ForkJoinPool;
 
 import static graphql.Assert.assertNotNull;
 
@@ -56,7 +56,7 @@ public class AsyncDataFetcher<T> implements DataFetcher<CompletableFuture<T>>, A
     }
 
     public AsyncDataFetcher(DataFetcher<T> wrappedDataFetcher) {
-        this(wrappedDataFetcher, ForkJoinPool.commonPool());
+        this(wrappedDataFetcher, DefaultExecutor.get());
     }
 
     public AsyncDataFetcher(DataFetcher<T> wrappedDataFetcher, Executor executor) {
@@ -20,6 +20,7 @@ package calculator.graphql;
 
 import calculator.engine.annotation.PublicApi;
 import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
 
 import java.util.concurrent.Executor;
 
@@ -40,4 +41,13 @@ public interface AsyncDataFetcherInterface<T> {
      * @return the {@code Executor} which async dataFetcher used
      */
     Executor getExecutor();
+
+    /**
+     * Invoked after the future returned by this dataFetcher is cancelled, e.g. the execution failed or exceeded the timeout,
+     * which can be used to abort the request of downstream. It's invoked on the cancelling thread and should not block.
+     *
+     * @param environment the environment of the cancelled fetching
+     */
+    default void onCancel(DataFetchingEnvironment environment) {
+    }
 }
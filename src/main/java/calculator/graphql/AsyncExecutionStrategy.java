@@ -17,6 +17,8 @@
 
 package calculator.graphql;
 
+import calculator.engine.ExecutionEngineState;
+import calculator.engine.ExecutionPlan;
 import calculator.engine.annotation.Internal;
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
@@ -43,10 +45,10 @@ import graphql.execution.instrumentation.parameters.InstrumentationFieldComplete
 import graphql.util.FpKit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.OptionalInt;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
@@ -84,20 +86,23 @@ public class AsyncExecutionStrategy extends AbstractAsyncExecutionStrategy {
         );
 
         MergedSelectionSet fields = parameters.getFields();
-        Set<String> fieldNames = fields.keySet();
-        List<CompletableFuture<FieldValueInfo>> futures = new ArrayList<>(fieldNames.size());
-        List<String> resolvedFields = new ArrayList<>(fieldNames.size());
-        for (String fieldName : fieldNames) {
-            MergedField currentField = fields.getSubField(fieldName);
+        List<String> resolvedFields = new ArrayList<>(fields.keySet());
+        List<ResultPath> fieldPaths = new ArrayList<>(resolvedFields.size());
+        for (String fieldName : resolvedFields) {
+            fieldPaths.add(parameters.getPath().segment(mkNameForPath(fields.getSubField(fieldName))));
+        }
 
-            ResultPath fieldPath = parameters.getPath().segment(mkNameForPath(currentField));
+        // the fields are dispatched by dependency order, and the results are still in the order of query.
+        CompletableFuture<FieldValueInfo>[] futureArray = new CompletableFuture[resolvedFields.size()];
+        for (int index : dispatchOrder(executionContext, fieldPaths)) {
+            MergedField currentField = fields.getSubField(resolvedFields.get(index));
+            ResultPath fieldPath = fieldPaths.get(index);
             ExecutionStrategyParameters newParameters = parameters
                     .transform(builder -> builder.field(currentField).path(fieldPath).parent(parameters));
 
-            resolvedFields.add(fieldName);
-            CompletableFuture<FieldValueInfo> future = resolveFieldWithInfo(executionContext, newParameters);
-            futures.add(future);
+            futureArray[index] = resolveFieldWithInfo(executionContext, newParameters);
         }
+        List<CompletableFuture<FieldValueInfo>> futures = Arrays.asList(futureArray);
         CompletableFuture<ExecutionResult> overallResult = new CompletableFuture<>();
         executionStrategyCtx.onDispatched(overallResult);
 
@@ -122,6 +127,50 @@ public class AsyncExecutionStrategy extends AbstractAsyncExecutionStrategy {
         return overallResult;
     }
 
+    /**
+     * Get the order to dispatch the sibling fields: the fields on the path to @fetchSource are dispatched first,
+     * and the fields depending on sources are dispatched last, so that the sources are fetched as early as possible
+     * and the consumers are composed on the sources which may have been resolved, instead of waiting in query order.
+     *
+     * @param executionContext the context of execution
+     * @param fieldPaths       the path of sibling fields in the order of query
+     * @return the indexes of fields in the order to be dispatched
+     */
+    private int[] dispatchOrder(ExecutionContext executionContext, List<ResultPath> fieldPaths) {
+        int[] order = new int[fieldPaths.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        ExecutionEngineState engineState = executionContext.getGraphQLContext().get(ExecutionEngineState.class);
+        if (engineState == null || order.length < 2 || !engineState.getExecutionPlan().isContainDependency()) {
+            return order;
+        }
+
+        ExecutionPlan executionPlan = engineState.getExecutionPlan();
+        int[] priorities = new int[order.length];
+        boolean reordered = false;
+        for (int i = 0; i < order.length; i++) {
+            priorities[i] = executionPlan.getDispatchPriority(fieldPaths.get(i));
+            reordered |= priorities[i] != ExecutionPlan.DEFAULT_PRIORITY;
+        }
+        if (!reordered) {
+            return order;
+        }
+
+        // stable insertion sort, the number of sibling fields is small.
+        for (int i = 1; i < order.length; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= 0 && priorities[order[j]] > priorities[current]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+        return order;
+    }
+
     /**
      * Called to complete a list of value for a field based on a list type.  This iterates the values and calls
      * {@link #completeValue(ExecutionContext, ExecutionStrategyParameters)} for each value.
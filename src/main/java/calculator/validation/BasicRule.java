@@ -20,6 +20,7 @@ import calculator.engine.annotation.Internal;
 import calculator.engine.metadata.Directives;
 import calculator.engine.script.ScriptEvaluator;
 import calculator.engine.script.ValidateInfo;
+import graphql.Scalars;
 import graphql.analysis.QueryVisitorFieldEnvironment;
 import graphql.analysis.QueryVisitorFragmentSpreadEnvironment;
 import graphql.analysis.QueryVisitorInlineFragmentEnvironment;
@@ -28,6 +29,7 @@ import graphql.language.Directive;
 import graphql.language.Field;
 import graphql.language.SourceLocation;
 import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLType;
 import graphql.schema.GraphQLTypeUtil;
 import graphql.util.TraverserContext;
@@ -51,12 +53,14 @@ import static calculator.engine.metadata.Directives.ARGUMENT_TRANSFORM;
 import static calculator.engine.metadata.Directives.DISTINCT;
 import static calculator.engine.metadata.Directives.FETCH_SOURCE;
 import static calculator.engine.metadata.Directives.FILTER;
+import static calculator.engine.metadata.Directives.HEDGE;
 import static calculator.engine.metadata.Directives.INCLUDE_BY;
 import static calculator.engine.metadata.Directives.MAP;
 import static calculator.engine.metadata.Directives.MOCK;
 import static calculator.engine.metadata.Directives.SKIP_BY;
 import static calculator.engine.metadata.Directives.SORT;
 import static calculator.engine.metadata.Directives.SORT_BY;
+import static calculator.engine.metadata.Directives.TIMEOUT;
 import static calculator.validation.CalculatorSchemaValidationErrorType.InvalidExpression;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toSet;
@@ -359,6 +363,51 @@ public class BasicRule extends AbstractRule {
                 checkAndSetSourceUsedByFieldInfo(fieldFullPath,directive);
                 fieldWithAncestorPath.put(fieldFullPath,parentPathSet(environment));
 
+            } else if (Objects.equals(directiveName, TIMEOUT.getName())) {
+                Object ms = parseValue(directive.getArgument("ms").getValue());
+                if (!(ms instanceof Number) || ((Number) ms).longValue() <= 0) {
+                    String errorMsg = String.format("the ms value of @timeout on {%s} must be positive number.", fieldFullPath);
+                    addValidError(InvalidExpression, location, errorMsg);
+                    continue;
+                }
+
+                // the fallback value is returned as it is, which can only be resolved by String type.
+                GraphQLType unwrapNonNullType = GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType());
+                if (directive.getArgument("fallback") != null
+                        && !Objects.equals(GraphQLTypeUtil.simplePrint(unwrapNonNullType), Scalars.GraphQLString.getName())) {
+                    String errorMsg = String.format("the fallback of @timeout must be used on String type field, instead of {%s}.", fieldFullPath);
+                    addValidError(CalculatorSchemaValidationErrorType.InvalidLocation, location, errorMsg);
+                    continue;
+                }
+
+            } else if (Objects.equals(directiveName, HEDGE.getName())) {
+                GraphQLObjectType mutationType = environment.getSchema().getMutationType();
+                if (mutationType != null && Objects.equals(environment.getFieldsContainer().getName(), mutationType.getName())) {
+                    String errorMsg = String.format("@hedge can not be used on mutation field {%s}.", fieldFullPath);
+                    addValidError(InvalidExpression, location, errorMsg);
+                    continue;
+                }
+
+                Argument afterMsArgument = directive.getArgument("afterMs");
+                if (afterMsArgument != null) {
+                    Object afterMs = parseValue(afterMsArgument.getValue());
+                    if (!(afterMs instanceof Number) || ((Number) afterMs).longValue() <= 0) {
+                        String errorMsg = String.format("the afterMs value of @hedge on {%s} must be positive number.", fieldFullPath);
+                        addValidError(InvalidExpression, location, errorMsg);
+                        continue;
+                    }
+                }
+
+                Argument maxExtraArgument = directive.getArgument("maxExtra");
+                if (maxExtraArgument != null) {
+                    Object maxExtra = parseValue(maxExtraArgument.getValue());
+                    if (!(maxExtra instanceof Number) || ((Number) maxExtra).longValue() <= 0) {
+                        String errorMsg = String.format("the maxExtra value of @hedge on {%s} must be positive number.", fieldFullPath);
+                        addValidError(InvalidExpression, location, errorMsg);
+                        continue;
+                    }
+                }
+
             } else if (Objects.equals(directiveName, FETCH_SOURCE.getName())) {
                 String sourceName = (String) parseValue(
                         directive.getArgument("name").getValue()
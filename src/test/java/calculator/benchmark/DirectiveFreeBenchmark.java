@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.benchmark;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compare the execution of the document without calculator directive by plain graphql-java and by calculator.
+ * <p>
+ * The documents are parsed and validated once for all the variants, so that only the cost of execution is measured.
+ * Run by {@code ./gradlew benchmark}, the iterations can be set by {@code -Pbenchmark.iterations=n}.
+ */
+public class DirectiveFreeBenchmark {
+
+    private static final String QUERY = "" +
+            "query {\n" +
+            "    userName\n" +
+            "    itemList {\n" +
+            "        itemId\n" +
+            "        name\n" +
+            "        salePrice\n" +
+            "    }\n" +
+            "}";
+
+    private static final int ITEM_COUNT = 100;
+
+    public static void main(String[] args) {
+        int iterations = Integer.getInteger("benchmark.iterations", 20000);
+        GraphQLSchema schema = createSchema();
+
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("graphql-java", GraphQL.newGraphQL(schema).preparsedDocumentProvider(new DocumentCache()).build()));
+        variants.add(new Variant("calculator", calculatorGraphQL(schema, DefaultConfig.newConfig().build())));
+        // the fetches are tracked for the execution timeout, so the engine hooks are not skipped.
+        variants.add(new Variant("calculator with timeout", calculatorGraphQL(schema, DefaultConfig.newConfig().executionTimeoutMillis(10000).build())));
+
+        for (Variant variant : variants) {
+            variant.run(iterations);
+        }
+        for (Variant variant : variants) {
+            variant.run(iterations);
+            System.out.println(variant.result());
+        }
+    }
+
+    private static GraphQLSchema createSchema() {
+        List<Map<String, Object>> itemList = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("itemId", i);
+            item.put("name", "item_" + i);
+            item.put("salePrice", i * 100);
+            itemList.add(item);
+        }
+
+        return TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    userName: String\n" +
+                        "    itemList: [Item]\n" +
+                        "}\n" +
+                        "type Item {\n" +
+                        "    itemId: Int\n" +
+                        "    name: String\n" +
+                        "    salePrice: Int\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring()
+                        .type(TypeRuntimeWiring.newTypeWiring("Query")
+                                .dataFetcher("userName", environment -> "user")
+                                .dataFetcher("itemList", environment -> itemList))
+                        .build()
+        );
+    }
+
+    private static GraphQL calculatorGraphQL(GraphQLSchema schema, Config config) {
+        return new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(config)
+                .originalSchema(schema)
+                .preparsedDocumentProvider(new DocumentCache())
+                .build()
+                .getGraphQL();
+    }
+
+    private static class DocumentCache implements PreparsedDocumentProvider {
+
+        private final Map<String, PreparsedDocumentEntry> cache = new ConcurrentHashMap<>();
+
+        @Override
+        public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                                  Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+            return cache.computeIfAbsent(executionInput.getQuery(), query -> parseAndValidateFunction.apply(executionInput));
+        }
+    }
+
+    private static class Variant {
+
+        private final String name;
+
+        private final GraphQL graphQL;
+
+        private long elapsedNanos;
+
+        private long allocatedBytes;
+
+        private int iterations;
+
+        Variant(String name, GraphQL graphQL) {
+            this.name = name;
+            this.graphQL = graphQL;
+        }
+
+        void run(int iterations) {
+            long startBytes = allocatedBytes();
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                ExecutionResult result = graphQL.execute(ExecutionInput.newExecutionInput(QUERY));
+                if (!result.getErrors().isEmpty()) {
+                    throw new IllegalStateException(result.getErrors().toString());
+                }
+            }
+            this.elapsedNanos = System.nanoTime() - startNanos;
+            this.allocatedBytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+            this.iterations = iterations;
+        }
+
+        String result() {
+            return String.format("%-25s %10.1f us/op %12s bytes/op",
+                    name,
+                    elapsedNanos / 1000.0 / iterations,
+                    allocatedBytes < 0 ? "n/a" : String.valueOf(allocatedBytes / iterations)
+            );
+        }
+
+        // the allocated bytes of current thread, -1 if it's not supported by jvm.
+        private static long allocatedBytes() {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return -1;
+        }
+    }
+}
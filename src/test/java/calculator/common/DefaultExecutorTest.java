@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import calculator.config.DefaultConfig;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class DefaultExecutorTest {
+
+    // the test classes are loaded from the base layer of multi-release jar.
+    @Test
+    public void commonPoolByDefault() {
+        assert !VirtualThreads.isSupported();
+        assert DefaultExecutor.get() == ForkJoinPool.commonPool();
+        assert DefaultConfig.newConfig().build().getExecutor() == ForkJoinPool.commonPool();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void virtualThreadExecutorRequiresJava21() {
+        DefaultConfig.newConfig().virtualThreadExecutor();
+    }
+}
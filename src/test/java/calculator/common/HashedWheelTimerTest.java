@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HashedWheelTimerTest {
+
+    @Test
+    public void expireAfterDelay() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        long startNanos = System.nanoTime();
+        timer.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assert latch.await(5, TimeUnit.SECONDS);
+        assert System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(50);
+    }
+
+    @Test
+    public void expireAfterMoreThanOneRound() throws Exception {
+        // a round of wheel is 4 * 5ms.
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 4);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        long startNanos = System.nanoTime();
+        timer.newTimeout(latch::countDown, 70, TimeUnit.MILLISECONDS);
+
+        assert latch.await(5, TimeUnit.SECONDS);
+        assert System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(70);
+    }
+
+    @Test
+    public void cancelledTimeoutIsNotExecuted() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8);
+        AtomicInteger executedCount = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(executedCount::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        timer.newTimeout(latch::countDown, 60, TimeUnit.MILLISECONDS);
+        assert timeout.cancel();
+        assert timeout.isCancelled();
+
+        assert latch.await(5, TimeUnit.SECONDS);
+        assert executedCount.get() == 0;
+        assert !timeout.cancel();
+    }
+}
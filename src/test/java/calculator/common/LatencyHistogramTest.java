@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.common;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void valueAtPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(10_000);
+        assert histogram.getValueAtPercentile(0.5) == -1;
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assert histogram.getTotalCount() == 100;
+        long p50 = histogram.getValueAtPercentile(0.5);
+        assert p50 >= 50_000 && p50 <= 50_000 * 9 / 8;
+        long p95 = histogram.getValueAtPercentile(0.95);
+        assert p95 >= 95_000 && p95 <= 95_000 * 9 / 8;
+        assert histogram.getValueAtPercentile(1) >= 100_000;
+    }
+
+    @Test
+    public void bucketBoundary() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 17, 1023, 1024, 123_456_789L, Long.MAX_VALUE}) {
+            long upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+            assert upperBound >= value;
+            assert upperBound - value <= value / 8;
+        }
+    }
+
+    @Test
+    public void decayOldCounts() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100_000);
+        }
+        histogram.record(1_000);
+        assert histogram.getTotalCount() == 49;
+
+        // the recent latency dominates after decay.
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        assert histogram.getValueAtPercentile(0.5) < 2_000;
+    }
+}
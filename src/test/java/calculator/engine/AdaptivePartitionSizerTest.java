@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import org.junit.Test;
+
+public class AdaptivePartitionSizerTest {
+
+    @Test
+    public void exploreBeforeModelFitted() {
+        AdaptivePartitionSizer sizer = new AdaptivePartitionSizer(10);
+        assert sizer.partitionSize(100, 1) == 10;
+        assert sizer.partitionSize(100, 1) == 5;
+        assert sizer.partitionSize(100, 1) == 10;
+    }
+
+    @Test
+    public void largestSizeForFixedCostDownstream() {
+        AdaptivePartitionSizer sizer = new AdaptivePartitionSizer(50);
+        for (int i = 0; i < 20; i++) {
+            sizer.record(i % 2 == 0 ? 50 : 25, 10_000_000L);
+        }
+
+        assert sizer.partitionSize(100, 1) == 50;
+        assert sizer.partitionSize(30, 1) == 30;
+    }
+
+    @Test
+    public void splitIntoParallelismForSizeBoundDownstream() {
+        AdaptivePartitionSizer sizer = new AdaptivePartitionSizer(50);
+        // latency is 1ms per element.
+        for (int i = 0; i < 20; i++) {
+            int size = i % 2 == 0 ? 50 : 25;
+            sizer.record(size, size * 1_000_000L);
+        }
+
+        assert sizer.partitionSize(100, 1) == 50;
+        // 4 partitions of 25 are invoked in one round.
+        assert sizer.partitionSize(100, 4) == 25;
+    }
+
+    @Test
+    public void keepSizeAfterConverged() {
+        AdaptivePartitionSizer sizer = new AdaptivePartitionSizer(50);
+        for (int i = 0; i < 20; i++) {
+            sizer.record(i % 2 == 0 ? 50 : 25, 10_000_000L);
+        }
+
+        int changedCount = 0;
+        for (int i = 0; i < 320; i++) {
+            int size = sizer.partitionSize(100, 1);
+            if (size != 50) {
+                changedCount++;
+            }
+            sizer.record(size, 10_000_000L);
+        }
+        // only the half size is probed once per interval.
+        assert changedCount <= 320 / AdaptivePartitionSizer.PROBE_INTERVAL;
+    }
+
+    @Test
+    public void keepChosenSizeWithinHysteresis() {
+        AdaptivePartitionSizer sizer = new AdaptivePartitionSizer(50);
+        // latency is 1ms per element.
+        for (int i = 0; i < 20; i++) {
+            int size = i % 2 == 0 ? 50 : 25;
+            sizer.record(size, size * 1_000_000L);
+        }
+
+        assert sizer.partitionSize(100, 4) == 25;
+        // 50 is as cheap as 25 without parallelism, the chosen size is kept.
+        assert sizer.partitionSize(100, 1) == 25;
+    }
+}
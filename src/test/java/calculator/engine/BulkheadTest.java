@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.exception.BulkheadFullException;
+import calculator.exception.WrapperSchemaException;
+import calculator.graphql.AsyncDataFetcher;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BulkheadTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void failFastIfBulkheadIsFull() {
+        Bulkhead bulkhead = Bulkhead.newBulkhead("slowService")
+                .executor(Runnable::run)
+                .maxConcurrency(1)
+                .maxQueueSize(1)
+                .build();
+
+        CompletableFuture<Object> inFlight = new CompletableFuture<>();
+        CompletableFuture<Object> first = bulkhead.submit(() -> inFlight);
+        CompletableFuture<Object> second = bulkhead.submit(() -> "second");
+        CompletableFuture<Object> third = bulkhead.submit(() -> "third");
+
+        assert bulkhead.getInFlightCount() == 1;
+        assert bulkhead.getQueueSize() == 1;
+        assert !second.isDone();
+        assert third.isCompletedExceptionally();
+        try {
+            third.join();
+            assert false;
+        } catch (CompletionException e) {
+            assert e.getCause() instanceof BulkheadFullException;
+        }
+
+        // the permit is handed over to the waiting fetch.
+        inFlight.complete("first");
+        assert Objects.equals(first.join(), "first");
+        assert Objects.equals(second.join(), "second");
+        assert bulkhead.getInFlightCount() == 0;
+        assert bulkhead.getQueueSize() == 0;
+    }
+
+    @Test
+    public void routeFieldToBulkhead() {
+        ExecutorService bulkheadExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "bulkhead-thread"));
+        try {
+            Config config = DefaultConfig.newConfig()
+                    .bulkhead(Bulkhead.newBulkhead("userService").executor(bulkheadExecutor).maxConcurrency(2).build())
+                    .fieldBulkhead("Query.userName", "userService")
+                    .build();
+            RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                    .type(TypeRuntimeWiring.newTypeWiring("Query")
+                            .dataFetcher("userName", environment -> Thread.currentThread().getName())
+                            .dataFetcher("itemName", environment -> Thread.currentThread().getName()))
+                    .build();
+            GraphQLSchema schema = TestUtil.schemaBySpec(
+                    "directive @bulkhead(name: String!) on FIELD_DEFINITION\n" +
+                            "type Query {\n" +
+                            "    userName: String\n" +
+                            "    itemName: String @bulkhead(name: \"userService\")\n" +
+                            "}",
+                    runtimeWiring
+            );
+            GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(config).originalSchema(schema).build();
+
+            ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput("query { userName itemName }"));
+            assert result.getErrors().isEmpty();
+            Map<String, Object> data = result.getData();
+            assert Objects.equals(data.get("userName"), "bulkhead-thread");
+            assert Objects.equals(data.get("itemName"), "bulkhead-thread");
+        } finally {
+            bulkheadExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void unregisteredBulkhead() {
+        expectedException.expect(WrapperSchemaException.class);
+        expectedException.expectMessage("the bulkhead 'unknown' of @bulkhead on {Query.userName} is not registered in config.");
+
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "directive @bulkhead(name: String!) on FIELD_DEFINITION\n" +
+                        "type Query {\n" +
+                        "    userName: String @bulkhead(name: \"unknown\")\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring().build()
+        );
+        SchemaWrapper.wrap(DefaultConfig.newConfig().build(), schema);
+    }
+
+    @Test
+    public void handOverPermitWhenExecutorRejects() {
+        AtomicBoolean rejecting = new AtomicBoolean();
+        Bulkhead bulkhead = Bulkhead.newBulkhead("slowService")
+                .executor(command -> {
+                    if (rejecting.get()) {
+                        throw new RejectedExecutionException("executor is shutdown");
+                    }
+                    command.run();
+                })
+                .maxConcurrency(1)
+                .maxQueueSize(100)
+                .build();
+
+        CompletableFuture<Object> inFlight = new CompletableFuture<>();
+        CompletableFuture<Object> first = bulkhead.submit(() -> inFlight);
+        List<CompletableFuture<Object>> waitingFutures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            waitingFutures.add(bulkhead.submit(() -> "waiting"));
+        }
+        assert bulkhead.getQueueSize() == 100;
+
+        // the waiting calls are rejected one by one, and the permit is released at last.
+        rejecting.set(true);
+        inFlight.complete("first");
+        assert Objects.equals(first.join(), "first");
+        for (CompletableFuture<Object> waitingFuture : waitingFutures) {
+            try {
+                waitingFuture.join();
+                assert false;
+            } catch (CompletionException e) {
+                assert e.getCause() instanceof RejectedExecutionException;
+            }
+        }
+        assert bulkhead.getInFlightCount() == 0;
+        assert bulkhead.getQueueSize() == 0;
+    }
+
+    @Test
+    public void signalCancellationToAsyncDataFetcher() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AsyncDataFetcher<Object> asyncDataFetcher = new AsyncDataFetcher<Object>(environment -> "value", Runnable::run) {
+            @Override
+            public void onCancel(DataFetchingEnvironment environment) {
+                cancelled.set(true);
+            }
+        };
+        Bulkhead bulkhead = Bulkhead.newBulkhead("userService").executor(Runnable::run).maxConcurrency(1).build();
+        BulkheadDataFetcher bulkheadDataFetcher = new BulkheadDataFetcher(asyncDataFetcher, bulkhead);
+
+        assert bulkheadDataFetcher.getExecutor() == bulkhead.getExecutor();
+        bulkheadDataFetcher.onCancel(DataFetchingEnvironmentImpl.newDataFetchingEnvironment().build());
+        assert cancelled.get();
+    }
+
+    @Test
+    public void batchCanNotBeUsedWithBulkhead() {
+        expectedException.expect(WrapperSchemaException.class);
+        expectedException.expectMessage("@batch can not be used with bulkhead on {Item.seller}.");
+
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "directive @batch(loader: String!, key: String!, maxBatchSize: Int) on FIELD_DEFINITION\n" +
+                        "directive @bulkhead(name: String!) on FIELD_DEFINITION\n" +
+                        "type Query {\n" +
+                        "    item: Item\n" +
+                        "}\n" +
+                        "type Item {\n" +
+                        "    sellerId: Int\n" +
+                        "    seller: String @batch(loader: \"sellerLoader\", key: \"sellerId\") @bulkhead(name: \"sellerService\")\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring().build()
+        );
+        Config config = DefaultConfig.newConfig()
+                .batchLoader("sellerLoader", (keys, environment) -> CompletableFuture.completedFuture(new ArrayList<>(keys)))
+                .bulkhead(Bulkhead.newBulkhead("sellerService").executor(Runnable::run).maxConcurrency(1).build())
+                .build();
+        SchemaWrapper.wrap(config, schema);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.DefaultConfig;
+import calculator.exception.WrapperSchemaException;
+import calculator.util.TestUtil;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachedDataFetcherTest {
+
+    private static final long TTL_MS = 1000;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private final AtomicBoolean rejecting = new AtomicBoolean();
+
+    private final CachedDataFetcher cachedDataFetcher = new CachedDataFetcher(
+            environment -> {
+                if (failing.get()) {
+                    throw new IllegalStateException("load failed");
+                }
+                return environment.getArgument("id") + "_" + loadCount.incrementAndGet();
+            },
+            TTL_MS, 10,
+            command -> {
+                if (rejecting.get()) {
+                    throw new RejectedExecutionException("executor is full");
+                }
+                command.run();
+            },
+            nanos::get
+    );
+
+    private static DataFetchingEnvironment environment(int id) {
+        return DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .arguments(Collections.singletonMap("id", id))
+                .build();
+    }
+
+    private Object fetch(int id) throws Exception {
+        Object result = cachedDataFetcher.get(environment(id));
+        return result instanceof CompletableFuture ? ((CompletableFuture<?>) result).join() : result;
+    }
+
+    private void elapseMillis(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void cacheByArguments() throws Exception {
+        assert fetch(1).equals("1_1");
+        assert fetch(1).equals("1_1");
+        assert fetch(2).equals("2_2");
+        assert loadCount.get() == 2;
+    }
+
+    @Test
+    public void refreshAheadOfExpiration() throws Exception {
+        assert fetch(1).equals("1_1");
+
+        elapseMillis(TTL_MS * 9 / 10);
+        // serve the cached value and refresh it.
+        assert fetch(1).equals("1_1");
+        assert loadCount.get() == 2;
+        assert fetch(1).equals("1_2");
+        assert loadCount.get() == 2;
+    }
+
+    @Test
+    public void serveStaleValueOnError() throws Exception {
+        assert fetch(1).equals("1_1");
+
+        elapseMillis(TTL_MS * 3 / 2);
+        failing.set(true);
+        assert fetch(1).equals("1_1");
+
+        failing.set(false);
+        assert fetch(1).equals("1_2");
+    }
+
+    @Test
+    public void failAfterStaleValueExpired() throws Exception {
+        assert fetch(1).equals("1_1");
+
+        elapseMillis(TTL_MS * 2);
+        failing.set(true);
+        try {
+            fetch(1);
+            assert false;
+        } catch (CompletionException e) {
+            assert e.getCause().getMessage().equals("load failed");
+        }
+    }
+
+    @Test
+    public void refreshAgainAfterRefreshFailed() throws Exception {
+        assert fetch(1).equals("1_1");
+
+        elapseMillis(TTL_MS * 9 / 10);
+        failing.set(true);
+        assert fetch(1).equals("1_1");
+
+        // the failed refreshing doesn't prevent the next one.
+        failing.set(false);
+        assert fetch(1).equals("1_1");
+        assert fetch(1).equals("1_2");
+    }
+
+    @Test
+    public void refreshAgainAfterRefreshRejected() throws Exception {
+        assert fetch(1).equals("1_1");
+
+        elapseMillis(TTL_MS * 9 / 10);
+        rejecting.set(true);
+        assert fetch(1).equals("1_1");
+        assert loadCount.get() == 1;
+
+        rejecting.set(false);
+        assert fetch(1).equals("1_1");
+        assert loadCount.get() == 2;
+        assert fetch(1).equals("1_2");
+    }
+
+    @Test
+    public void refreshWithArgumentsOnly() throws Exception {
+        List<DataFetchingEnvironment> loadEnvironments = new ArrayList<>();
+        CachedDataFetcher fetcher = new CachedDataFetcher(
+                environment -> {
+                    loadEnvironments.add(environment);
+                    return environment.getArgument("id");
+                },
+                TTL_MS, 10, Runnable::run, nanos::get
+        );
+        DataFetchingEnvironment environment = DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .arguments(Collections.singletonMap("id", 1))
+                .source("source")
+                .localContext("localContext")
+                .build();
+
+        fetcher.get(environment);
+        elapseMillis(TTL_MS * 9 / 10);
+        fetcher.get(environment);
+
+        assert loadEnvironments.size() == 2;
+        assert loadEnvironments.get(0) == environment;
+        DataFetchingEnvironment refreshEnvironment = loadEnvironments.get(1);
+        assert refreshEnvironment.getArguments().equals(Collections.singletonMap("id", 1));
+        assert refreshEnvironment.getSource() == null;
+        assert refreshEnvironment.getLocalContext() == null;
+    }
+
+    @Test
+    public void cachedOnlyOnQueryField() {
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "directive @cached(ttlMs: Int!, maxEntries: Int = 1000) on FIELD_DEFINITION\n" +
+                        "type Query {\n" +
+                        "    user(id: Int): User\n" +
+                        "}\n" +
+                        "type User {\n" +
+                        "    id: Int\n" +
+                        "    name: String @cached(ttlMs: 1000)\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring().build()
+        );
+        try {
+            SchemaWrapper.wrap(DefaultConfig.newConfig().build(), schema);
+            assert false;
+        } catch (WrapperSchemaException e) {
+            assert e.getMessage().contains("@cached can only be used on the fields of query type, instead of {User.name}.");
+        }
+    }
+}
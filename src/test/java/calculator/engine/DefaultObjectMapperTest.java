@@ -21,10 +21,12 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @SuppressWarnings("unused")
 public class DefaultObjectMapperTest {
@@ -185,4 +187,98 @@ public class DefaultObjectMapperTest {
 
     }
 
+    @Test
+    public void toSimpleCollectionWithPropertiesTest() {
+        DemoClass demoClass = new DemoClass(
+                123L, new DemoSubClass("subClassFieldValue"),
+                Arrays.asList(1L, 2L, 3L),
+                Arrays.asList(new DemoSubClass("a"), new DemoSubClass("b")),
+                new DemoSubClass[]{new DemoSubClass("aa"), new DemoSubClass("bb")},
+                Collections.singletonMap("mapKey", new DemoSubClass("aaa")),
+                Collections.singletonMap("mapListKey", Arrays.asList(new DemoSubClass("aaaa"), new DemoSubClass("bbbb")))
+        );
+
+        Set<String> propertyNames = new HashSet<>(Arrays.asList("longField", "demoSubClass", "absentField"));
+        Map mapValue = (Map) new DefaultObjectMapper().toSimpleCollection(demoClass, propertyNames);
+        assert mapValue.size() == 2;
+        assert mapValue.get("longField").equals(123L);
+        assert ((Map) mapValue.get("demoSubClass")).get("subClassField").equals("subClassFieldValue");
+
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("longField", 1L);
+        source.put("demoSubClass", new DemoSubClass("mapValue"));
+        source.put("ignoredField", new DemoSubClass("ignored"));
+        Map projectedMap = (Map) new DefaultObjectMapper().toSimpleCollection(source, propertyNames);
+        assert projectedMap.size() == 2;
+        assert Objects.equals(projectedMap.get("demoSubClass"), Collections.singletonMap("subClassField", "mapValue"));
+    }
+
+    static class BaseBean {
+        private String baseField = "base";
+    }
+
+    static class ExtendedBean extends BaseBean {
+        private static final String STATIC_FIELD = "static";
+
+        private int extendedField = 1;
+
+        public int getExtendedField() {
+            return extendedField;
+        }
+
+        public String getComputedValue() {
+            return "computed_" + extendedField;
+        }
+
+        public boolean isValid() {
+            return true;
+        }
+    }
+
+    @Test
+    public void toSimpleCollectionWithInheritedFieldTest() {
+        Map mapValue = (Map) new DefaultObjectMapper().toSimpleCollection(new ExtendedBean());
+
+        assert mapValue.size() == 2;
+        assert mapValue.get("extendedField").equals(1);
+        assert mapValue.get("baseField").equals("base");
+        assert !mapValue.containsKey("computedValue");
+    }
+
+    @Test
+    public void toSimpleCollectionWithInheritedFieldAndGetterTest() {
+        Map mapValue = (Map) new DefaultObjectMapper(true).toSimpleCollection(new ExtendedBean());
+
+        assert mapValue.size() == 4;
+        assert mapValue.get("extendedField").equals(1);
+        assert mapValue.get("baseField").equals("base");
+        assert mapValue.get("computedValue").equals("computed_1");
+        assert mapValue.get("valid").equals(true);
+        assert !mapValue.containsKey("STATIC_FIELD");
+    }
+
+    static class SelfReferencedBean {
+        private static final SelfReferencedBean DEFAULT_INSTANCE = new SelfReferencedBean("default");
+
+        private final String name;
+
+        SelfReferencedBean(String name) {
+            this.name = name;
+        }
+
+        public SelfReferencedBean getDefaultInstanceForType() {
+            return DEFAULT_INSTANCE;
+        }
+    }
+
+    @Test
+    public void cutOffReferenceCycleByGetterTest() {
+        Map mapValue = (Map) new DefaultObjectMapper(true).toSimpleCollection(new SelfReferencedBean("bean"));
+
+        assert mapValue.get("name").equals("bean");
+        Map defaultInstance = (Map) mapValue.get("defaultInstanceForType");
+        assert defaultInstance.get("name").equals("default");
+        assert defaultInstance.containsKey("defaultInstanceForType");
+        assert defaultInstance.get("defaultInstanceForType") == null;
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.engine.metadata.FetchSourceTask;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import calculator.validation.Validator;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ParseAndValidateResult;
+import graphql.execution.ResultPath;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class DependencyDispatchTest {
+
+    private static final Config wrapperConfig = DefaultConfig.newConfig().build();
+
+    @Test
+    public void dispatchSourceBeforeConsumer() {
+        List<String> fetchedFields = new CopyOnWriteArrayList<>();
+        List<String> fetchThreads = new CopyOnWriteArrayList<>();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("itemNames", environment -> {
+                            fetchedFields.add("itemNames");
+                            fetchThreads.add(Thread.currentThread().getName());
+                            return environment.getArgument("itemIds").toString();
+                        })
+                        .dataFetcher("userName", environment -> {
+                            fetchedFields.add("userName");
+                            return "user";
+                        })
+                        .dataFetcher("itemList", environment -> {
+                            fetchedFields.add("itemList");
+                            fetchThreads.add(Thread.currentThread().getName());
+                            List<Map<String, Object>> itemList = new ArrayList<>();
+                            for (int itemId : Arrays.asList(1, 2, 3)) {
+                                Map<String, Object> item = new HashMap<>();
+                                item.put("itemId", itemId);
+                                itemList.add(item);
+                            }
+                            return itemList;
+                        }))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    itemNames(itemIds: [Int]): String\n" +
+                        "    userName: String\n" +
+                        "    itemList: [Item]\n" +
+                        "}\n" +
+                        "type Item {\n" +
+                        "    itemId: Int\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+
+        String query = "" +
+                "query {\n" +
+                "    itemNames(itemIds: []) @argumentTransform(argumentName: \"itemIds\", operateType: MAP, expression: \"itemIdList\", dependencySources: \"itemIdList\")\n" +
+                "    userName\n" +
+                "    itemList {\n" +
+                "        itemId @fetchSource(name: \"itemIdList\")\n" +
+                "    }\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert !validateResult.isFailure();
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        assert result.getErrors().isEmpty();
+        // the result is still in the order of query.
+        assert Objects.equals(
+                result.getData().toString(),
+                "{itemNames=[1, 2, 3], userName=user, itemList=[{itemId=1}, {itemId=2}, {itemId=3}]}"
+        );
+        assert Objects.equals(fetchedFields, Arrays.asList("itemList", "userName", "itemNames"));
+        // the source is resolved when the consumer is dispatched, so the consumer is fetched without thread switch.
+        assert Objects.equals(fetchThreads.get(0), fetchThreads.get(1));
+    }
+
+    @Test
+    public void dispatchAncestorsOfNestedSourceFirst() {
+        List<String> fetchedFields = new CopyOnWriteArrayList<>();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("itemNames", environment -> {
+                            fetchedFields.add("itemNames");
+                            return environment.getArgument("itemIds").toString();
+                        })
+                        .dataFetcher("userName", environment -> {
+                            fetchedFields.add("userName");
+                            return "user";
+                        })
+                        .dataFetcher("shop", environment -> {
+                            fetchedFields.add("shop");
+                            return new HashMap<>();
+                        }))
+                .type(TypeRuntimeWiring.newTypeWiring("Shop")
+                        .dataFetcher("shopName", environment -> {
+                            fetchedFields.add("shopName");
+                            return "shop";
+                        })
+                        .dataFetcher("itemList", environment -> {
+                            fetchedFields.add("itemList");
+                            List<Map<String, Object>> itemList = new ArrayList<>();
+                            for (int itemId : Arrays.asList(1, 2)) {
+                                Map<String, Object> item = new HashMap<>();
+                                item.put("itemId", itemId);
+                                itemList.add(item);
+                            }
+                            return itemList;
+                        }))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    itemNames(itemIds: [Int]): String\n" +
+                        "    userName: String\n" +
+                        "    shop: Shop\n" +
+                        "}\n" +
+                        "type Shop {\n" +
+                        "    shopName: String\n" +
+                        "    itemList: [Item]\n" +
+                        "}\n" +
+                        "type Item {\n" +
+                        "    itemId: Int\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+
+        String query = "" +
+                "query {\n" +
+                "    itemNames(itemIds: []) @argumentTransform(argumentName: \"itemIds\", operateType: MAP, expression: \"itemIdList\", dependencySources: \"itemIdList\")\n" +
+                "    userName\n" +
+                "    shop {\n" +
+                "        shopName\n" +
+                "        itemList {\n" +
+                "            itemId @fetchSource(name: \"itemIdList\")\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert !validateResult.isFailure();
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                result.getData().toString(),
+                "{itemNames=[1, 2], userName=user, shop={shopName=shop, itemList=[{itemId=1}, {itemId=2}]}}"
+        );
+        // the ancestors of nested source are dispatched before their siblings on every level.
+        assert Objects.equals(fetchedFields, Arrays.asList("shop", "itemList", "shopName", "userName", "itemNames"));
+    }
+
+    @Test
+    public void dispatchPriority() {
+        ExecutionPlan executionPlan = ExecutionPlan.newExecutionPlan()
+                .fetchSourceTask("itemList", FetchSourceTask.newFetchSourceTask().taskFuture(new CompletableFuture<>()).build())
+                .consumerFieldPath("itemNames")
+                .build();
+
+        assert executionPlan.isContainDependency();
+        assert executionPlan.getDispatchPriority("itemList") == ExecutionPlan.SOURCE_PRIORITY;
+        assert executionPlan.getDispatchPriority("userName") == ExecutionPlan.DEFAULT_PRIORITY;
+        assert executionPlan.getDispatchPriority("itemNames") == ExecutionPlan.CONSUMER_PRIORITY;
+        assert !ExecutionPlan.emptyPlan().isContainDependency();
+    }
+
+    @Test
+    public void dispatchPriorityOfNestedSource() {
+        ExecutionPlan executionPlan = ExecutionPlan.newExecutionPlan()
+                .fetchSourceTask("shop.itemList.itemId", FetchSourceTask.newFetchSourceTask().taskFuture(new CompletableFuture<>()).build())
+                .consumerFieldPath("itemNames")
+                .build();
+
+        assert executionPlan.getDispatchPriority("shop") == ExecutionPlan.SOURCE_PRIORITY;
+        assert executionPlan.getDispatchPriority("shop.itemList") == ExecutionPlan.SOURCE_PRIORITY;
+        assert executionPlan.getDispatchPriority("shop.itemList.itemId") == ExecutionPlan.SOURCE_PRIORITY;
+        assert executionPlan.getDispatchPriority("shop.shopName") == ExecutionPlan.DEFAULT_PRIORITY;
+        assert executionPlan.getDispatchPriority("itemNames") == ExecutionPlan.CONSUMER_PRIORITY;
+        assert executionPlan.getDispatchPriority(ResultPath.rootPath().segment("shop").segment("itemList").segment(0)) == ExecutionPlan.SOURCE_PRIORITY;
+        assert executionPlan.getDispatchPriority(ResultPath.rootPath().segment("shop").segment("shopName")) == ExecutionPlan.DEFAULT_PRIORITY;
+    }
+}
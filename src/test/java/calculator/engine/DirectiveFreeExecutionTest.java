@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.DefaultConfig;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public class DirectiveFreeExecutionTest {
+
+    private static final GraphQLSchema schema = TestUtil.schemaBySpec(
+            "type Query {\n" +
+                    "    userName: String\n" +
+                    "    itemList: [Item]\n" +
+                    "}\n" +
+                    "type Item {\n" +
+                    "    itemId: Int\n" +
+                    "}",
+            RuntimeWiring.newRuntimeWiring()
+                    .type(TypeRuntimeWiring.newTypeWiring("Query")
+                            .dataFetcher("userName", environment -> "user")
+                            .dataFetcher("itemList", environment -> Arrays.asList(
+                                    Collections.singletonMap("itemId", 1), Collections.singletonMap("itemId", 2)
+                            )))
+                    .build()
+    );
+
+    private static ExecutionPlan parsePlan(String query) {
+        ExecutionEngineStateParser stateParser = new ExecutionEngineStateParser(schema);
+        QueryTraverser.newQueryTraverser()
+                .schema(schema)
+                .document(Parser.parse(query))
+                .variables(Collections.emptyMap())
+                .build()
+                .visitDepthFirst(stateParser);
+        return stateParser.getExecutionPlan();
+    }
+
+    @Test
+    public void directiveFreePlan() {
+        assert parsePlan("query { userName itemList { itemId } }").isDirectiveFree();
+        // the directives of graphql-java are not directive of calculator.
+        assert parsePlan("query($skip: Boolean) { userName @skip(if: $skip) itemList { itemId } }").isDirectiveFree();
+
+        assert !parsePlan("query { userName @map(mapper: \"'name'\") }").isDirectiveFree();
+        assert !parsePlan("query { itemList { ... on Item @skipBy(predicate: \"true\") { itemId } } }").isDirectiveFree();
+        assert !parsePlan("query { itemList { itemId @fetchSource(name: \"itemIds\") } userName }").isDirectiveFree();
+    }
+
+    @Test
+    public void skipEngineForDirectiveFreeDocument() {
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().build())
+                .originalSchema(schema)
+                .build();
+
+        ExecutionInput plainInput = ExecutionInput.newExecutionInput("query { userName itemList { itemId } }").build();
+        ExecutionResult plainResult = graphQLSource.getGraphQL().execute(plainInput);
+        assert plainResult.getErrors().isEmpty();
+        assert Objects.equals(plainResult.getData().toString(), "{userName=user, itemList=[{itemId=1}, {itemId=2}]}");
+        assert !plainInput.getGraphQLContext().hasKey(ExecutionEngineState.class);
+
+        ExecutionInput calculatorInput = ExecutionInput.newExecutionInput("query { userName @map(mapper: \"'calculator'\") }").build();
+        ExecutionResult calculatorResult = graphQLSource.getGraphQL().execute(calculatorInput);
+        assert calculatorResult.getErrors().isEmpty();
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("userName", "calculator");
+        assert Objects.equals(calculatorResult.getData(), expected);
+        assert calculatorInput.getGraphQLContext().hasKey(ExecutionEngineState.class);
+    }
+
+    @Test
+    public void trackDirectiveFreeDocumentWithTimeout() {
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().executionTimeoutMillis(1000).build())
+                .originalSchema(schema)
+                .build();
+
+        ExecutionInput plainInput = ExecutionInput.newExecutionInput("query { userName }").build();
+        ExecutionResult plainResult = graphQLSource.getGraphQL().execute(plainInput);
+        assert plainResult.getErrors().isEmpty();
+        assert plainInput.getGraphQLContext().hasKey(ExecutionEngineState.class);
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.DefaultConfig;
+import calculator.graphql.AsyncDataFetcherInterface;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ExecutionCancellationTest {
+
+    // the fetcher never completes unless it's cancelled.
+    private static class PendingDataFetcher implements DataFetcher<CompletableFuture<String>>, AsyncDataFetcherInterface<String> {
+
+        private final CountDownLatch fetchLatch = new CountDownLatch(1);
+
+        private final CountDownLatch cancelLatch = new CountDownLatch(1);
+
+        @Override
+        public CompletableFuture<String> get(DataFetchingEnvironment environment) {
+            fetchLatch.countDown();
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public DataFetcher<String> getWrappedDataFetcher() {
+            return environment -> null;
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return ForkJoinPool.commonPool();
+        }
+
+        @Override
+        public void onCancel(DataFetchingEnvironment environment) {
+            cancelLatch.countDown();
+        }
+    }
+
+    @Test
+    public void cancelInFlightFetchWhenTimeout() throws Exception {
+        PendingDataFetcher pendingDataFetcher = new PendingDataFetcher();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("pending", pendingDataFetcher)
+                        .dataFetcher("done", environment -> "done"))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    pending: String\n" +
+                        "    done: String\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().executionTimeoutMillis(100).build())
+                .originalSchema(schema)
+                .build();
+
+        ExecutionResult result = graphQLSource.getGraphQL()
+                .executeAsync(ExecutionInput.newExecutionInput("query { pending done }"))
+                .get(5, TimeUnit.SECONDS);
+
+        assert pendingDataFetcher.cancelLatch.await(5, TimeUnit.SECONDS);
+        assert result.getErrors().size() == 1;
+        Map<String, Object> data = result.getData();
+        assert data.get("pending") == null;
+        assert data.get("done").equals("done");
+    }
+
+    @Test
+    public void cancelInFlightFetchWhenNonNullFieldFailed() throws Exception {
+        PendingDataFetcher pendingDataFetcher = new PendingDataFetcher();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("pending", pendingDataFetcher)
+                        .dataFetcher("done", environment -> "done"))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    pending: String!\n" +
+                        "    done: String\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().build())
+                .originalSchema(schema)
+                .build();
+
+        // the timeout of field nulls the query by non-null field, while the fetch is still in flight.
+        ExecutionResult result = graphQLSource.getGraphQL()
+                .executeAsync(ExecutionInput.newExecutionInput("query { pending @timeout(ms: 50) done }"))
+                .get(5, TimeUnit.SECONDS);
+
+        assert pendingDataFetcher.cancelLatch.await(5, TimeUnit.SECONDS);
+        assert result.getData() == null;
+        assert !result.getErrors().isEmpty();
+    }
+
+    @Test
+    public void cancelExecutionExplicitly() throws Exception {
+        PendingDataFetcher pendingDataFetcher = new PendingDataFetcher();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("pending", pendingDataFetcher)
+                        .dataFetcher("done", environment -> "done"))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    pending: String\n" +
+                        "    done: String\n" +
+                        "}",
+                runtimeWiring
+        );
+        // the execution of document without calculator directive is tracked only if the timeout is set.
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().executionTimeoutMillis(60_000).build())
+                .originalSchema(schema)
+                .build();
+
+        ExecutionInput executionInput = ExecutionInput.newExecutionInput("query { pending done }").build();
+        CompletableFuture<ExecutionResult> resultFuture = graphQLSource.getGraphQL().executeAsync(executionInput);
+        assert pendingDataFetcher.fetchLatch.await(5, TimeUnit.SECONDS);
+        assert !resultFuture.isDone();
+
+        assert ExecutionEngine.cancelExecution(executionInput.getGraphQLContext());
+        ExecutionResult result = resultFuture.get(5, TimeUnit.SECONDS);
+        assert pendingDataFetcher.cancelLatch.await(5, TimeUnit.SECONDS);
+        assert result.getErrors().size() == 1;
+        Map<String, Object> data = result.getData();
+        assert data.get("pending") == null;
+        assert data.get("done").equals("done");
+    }
+
+    @Test
+    public void untrackFetchWithoutExecutionTimeout() throws Exception {
+        PendingDataFetcher pendingDataFetcher = new PendingDataFetcher();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("pending", pendingDataFetcher)
+                        .dataFetcher("done", environment -> "done"))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    pending: String\n" +
+                        "    done: String\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().build())
+                .originalSchema(schema)
+                .build();
+
+        ExecutionInput executionInput = ExecutionInput.newExecutionInput(
+                "query { pending done @skipBy(predicate: \"false\") }"
+        ).build();
+        graphQLSource.getGraphQL().executeAsync(executionInput);
+        assert pendingDataFetcher.fetchLatch.await(5, TimeUnit.SECONDS);
+
+        ExecutionEngineState engineState = executionInput.getGraphQLContext().get(ExecutionEngineState.class);
+        assert engineState.getOutstandingFutureCount() == 0;
+    }
+
+    @Test
+    public void cancelPartitionsWhenTimeout() throws Exception {
+        assertPartitionsCancelled("@partition(size: 1)", 3);
+    }
+
+    @Test
+    public void cancelParallelPartitionsWhenTimeout() throws Exception {
+        assertPartitionsCancelled("@partition(size: 1, parallelism: 2)", 2);
+    }
+
+    private void assertPartitionsCancelled(String partitionDirective, int expectedPartitionCount) throws Exception {
+        List<CompletableFuture<Object>> partitionFutures = new CopyOnWriteArrayList<>();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("userNames", environment -> {
+                            CompletableFuture<Object> partitionFuture = new CompletableFuture<>();
+                            partitionFutures.add(partitionFuture);
+                            return partitionFuture;
+                        }))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "directive @partition(size: Int!, parallelism: Int) on ARGUMENT_DEFINITION\n" +
+                        "type Query {\n" +
+                        "    userNames(ids: [Int] " + partitionDirective + "): [String]\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().executionTimeoutMillis(100).build())
+                .originalSchema(schema)
+                .build();
+
+        ExecutionResult result = graphQLSource.getGraphQL()
+                .executeAsync(ExecutionInput.newExecutionInput("query { userNames(ids: [1, 2, 3]) }"))
+                .get(5, TimeUnit.SECONDS);
+
+        assert result.getErrors().size() == 1;
+        assert partitionFutures.size() == expectedPartitionCount;
+        for (CompletableFuture<Object> partitionFuture : partitionFutures) {
+            assert partitionFuture.isCancelled();
+        }
+    }
+
+    @Test
+    public void untrackCompletedFuture() {
+        ExecutionEngineState engineState = ExecutionPlan.emptyPlan().newExecutionState();
+
+        CompletableFuture<Object> completedFuture = new CompletableFuture<>();
+        engineState.trackFuture(completedFuture, null);
+        assert engineState.getOutstandingFutureCount() == 1;
+        completedFuture.complete("done");
+        assert engineState.getOutstandingFutureCount() == 0;
+
+        CompletableFuture<Object> pendingFuture = new CompletableFuture<>();
+        AtomicBoolean onCancel = new AtomicBoolean();
+        engineState.trackFuture(pendingFuture, () -> onCancel.set(true));
+        engineState.cancel();
+        assert pendingFuture.isCancelled();
+        assert onCancel.get();
+        assert engineState.getOutstandingFutureCount() == 0;
+    }
+}
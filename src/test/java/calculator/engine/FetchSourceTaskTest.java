@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.engine.metadata.FetchSourceTask;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class FetchSourceTaskTest {
+
+    private static FetchSourceTask newListElementTask() {
+        return FetchSourceTask.newFetchSourceTask()
+                .isInList(true)
+                .taskFuture(new CompletableFuture<>())
+                .build();
+    }
+
+    @Test
+    public void aggregateInAddedOrder() {
+        FetchSourceTask task = newListElementTask();
+        List<CompletableFuture<Object>> elementFutures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<Object> elementFuture = new CompletableFuture<>();
+            elementFutures.add(elementFuture);
+            task.addListElementResultFuture(elementFuture);
+        }
+
+        AtomicInteger callbackCount = new AtomicInteger();
+        AtomicReference<List<Object>> aggregated = new AtomicReference<>();
+        task.aggregateListElementResults((listResult, ex) -> {
+            callbackCount.incrementAndGet();
+            aggregated.set(listResult);
+        });
+
+        elementFutures.get(2).complete("c");
+        elementFutures.get(0).complete("a");
+        assert aggregated.get() == null;
+
+        elementFutures.get(1).complete("b");
+        assert Objects.equals(aggregated.get(), Arrays.asList("a", "b", "c"));
+        assert callbackCount.get() == 1;
+    }
+
+    @Test
+    public void aggregateEmptyList() {
+        AtomicReference<List<Object>> aggregated = new AtomicReference<>();
+        newListElementTask().aggregateListElementResults((listResult, ex) -> aggregated.set(listResult));
+        assert Objects.equals(aggregated.get(), Collections.emptyList());
+    }
+
+    @Test
+    public void failOnFirstFailedElement() {
+        FetchSourceTask task = newListElementTask();
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        CompletableFuture<Object> second = new CompletableFuture<>();
+        task.addListElementResultFuture(first);
+        task.addListElementResultFuture(second);
+
+        List<Object> callbacks = new ArrayList<>();
+        task.aggregateListElementResults((listResult, ex) -> callbacks.add(ex != null ? ex : listResult));
+
+        RuntimeException failure = new RuntimeException("element failed");
+        second.completeExceptionally(failure);
+        first.complete("a");
+        assert Objects.equals(callbacks, Collections.singletonList(failure));
+    }
+
+    @Test
+    public void aggregateConcurrently() throws Exception {
+        int elementCount = 2000;
+        FetchSourceTask task = newListElementTask();
+        List<CompletableFuture<Object>> elementFutures = new ArrayList<>();
+        for (int i = 0; i < elementCount; i++) {
+            CompletableFuture<Object> elementFuture = new CompletableFuture<>();
+            elementFutures.add(elementFuture);
+            task.addListElementResultFuture(elementFuture);
+        }
+
+        CountDownLatch aggregatedLatch = new CountDownLatch(1);
+        AtomicReference<List<Object>> aggregated = new AtomicReference<>();
+        task.aggregateListElementResults((listResult, ex) -> {
+            aggregated.set(listResult);
+            aggregatedLatch.countDown();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < elementCount; i++) {
+                int value = i;
+                executor.execute(() -> elementFutures.get(value).complete(value));
+            }
+            assert aggregatedLatch.await(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Object> listResult = aggregated.get();
+        assert listResult.size() == elementCount;
+        for (int i = 0; i < elementCount; i++) {
+            assert Objects.equals(listResult.get(i), i);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class MapViewObjectMapperTest {
+
+    static class Item {
+        private final int price;
+        private final List<Sku> skuList;
+
+        Item(int price, List<Sku> skuList) {
+            this.price = price;
+            this.skuList = skuList;
+        }
+    }
+
+    static class Sku {
+        private final String color;
+
+        Sku(String color) {
+            this.color = color;
+        }
+
+        public String getColorName() {
+            return "color_" + color;
+        }
+    }
+
+    @Test
+    public void mapViewTest() {
+        Item item = new Item(10, Arrays.asList(new Sku("red"), new Sku("blue")));
+
+        Map itemView = (Map) new MapViewObjectMapper(true).toSimpleCollection(item);
+        assert itemView.size() == 2;
+        assert itemView.get("price").equals(10);
+        assert itemView.get("absentField") == null;
+
+        List skuListView = (List) itemView.get("skuList");
+        assert skuListView.size() == 2;
+        Map skuView = (Map) skuListView.get(1);
+        assert skuView.get("color").equals("blue");
+        assert skuView.get("colorName").equals("color_blue");
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("color", "red");
+        expected.put("colorName", "color_red");
+        assert Objects.equals(skuListView.get(0), expected);
+
+        Map mapView = (Map) new MapViewObjectMapper().toSimpleCollection(Collections.singletonMap("item", item));
+        assert ((Map) mapView.get("item")).get("price").equals(10);
+
+        // the getters not backed by field are excluded by default.
+        Map defaultSkuView = (Map) new MapViewObjectMapper().toSimpleCollection(new Sku("red"));
+        assert defaultSkuView.size() == 1;
+        assert defaultSkuView.get("colorName") == null;
+    }
+
+    @Test
+    public void mapViewWithPropertiesTest() {
+        Item item = new Item(10, Collections.singletonList(new Sku("red")));
+
+        Map projectedView = (Map) new MapViewObjectMapper().toSimpleCollection(
+                item, new HashSet<>(Arrays.asList("price", "absentField"))
+        );
+        assert projectedView.size() == 1;
+        assert projectedView.get("price").equals(10);
+    }
+}
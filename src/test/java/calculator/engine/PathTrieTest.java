@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import graphql.execution.ResultPath;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+
+public class PathTrieTest {
+
+    private static final PathTrie pathTrie = PathTrie.newPathTrie(Arrays.asList(
+            "consumer.userInfoList.userId", "consumer.userInfoList", "commodity.itemList.itemId"
+    ));
+
+    @Test
+    public void assignPathIds() {
+        // root, consumer, consumer.userInfoList, consumer.userInfoList.userId, commodity, commodity.itemList, commodity.itemList.itemId
+        assert pathTrie.size() == 7;
+
+        int userIdPathId = pathTrie.getPathId("consumer.userInfoList.userId");
+        assert userIdPathId > 0;
+        assert Objects.equals(pathTrie.getPath(userIdPathId), "consumer.userInfoList.userId");
+        assert pathTrie.getPathId("consumer") > 0;
+        assert pathTrie.getPathId("consumer.itemList") == PathTrie.NO_PATH;
+        assert pathTrie.getPathId("userId") == PathTrie.NO_PATH;
+    }
+
+    @Test
+    public void resolveResultPath() {
+        ResultPath userIdPath = ResultPath.rootPath()
+                .segment("consumer")
+                .segment("userInfoList")
+                .segment(3)
+                .segment("userId");
+        assert pathTrie.resolve(userIdPath) == pathTrie.getPathId("consumer.userInfoList.userId");
+
+        // the path of list element is resolved to the path of list field.
+        ResultPath elementPath = ResultPath.rootPath().segment("consumer").segment("userInfoList").segment(0);
+        assert pathTrie.resolve(elementPath) == pathTrie.getPathId("consumer.userInfoList");
+
+        assert pathTrie.resolve(ResultPath.rootPath().segment("consumer").segment("itemList")) == PathTrie.NO_PATH;
+        assert pathTrie.resolve(ResultPath.rootPath().segment("userInfoList").segment("userId")) == PathTrie.NO_PATH;
+        assert pathTrie.resolve(ResultPath.rootPath().segment("itemName")) == PathTrie.NO_PATH;
+        assert pathTrie.resolve(ResultPath.rootPath()) == PathTrie.NO_PATH;
+    }
+
+    @Test
+    public void emptyTrie() {
+        PathTrie emptyTrie = PathTrie.newPathTrie(Collections.emptyList());
+        assert emptyTrie == PathTrie.emptyTrie();
+        assert emptyTrie.resolve(ResultPath.rootPath().segment("consumer")) == PathTrie.NO_PATH;
+    }
+}
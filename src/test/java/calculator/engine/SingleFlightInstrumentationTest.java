@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.DefaultConfig;
+import calculator.graphql.AsyncDataFetcherInterface;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.Scalars;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightInstrumentationTest {
+
+    private static GraphQLSource graphQLSource(String userDirective, AtomicInteger invocationCount) {
+        String spec = "" +
+                "directive @singleFlight on FIELD_DEFINITION\n" +
+                "\n" +
+                "type Query {\n" +
+                "    user(userId: Int): User " + userDirective + "\n" +
+                "}\n" +
+                "\n" +
+                "type User {\n" +
+                "    userId: Int\n" +
+                "    name: String\n" +
+                "}";
+
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("user", environment -> {
+                            invocationCount.incrementAndGet();
+                            Integer userId = environment.getArgument("userId");
+                            return CompletableFuture.supplyAsync(() -> {
+                                try {
+                                    Thread.sleep(50);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                Map<String, Object> user = new HashMap<>();
+                                user.put("userId", userId);
+                                user.put("name", userId + "_name");
+                                return user;
+                            });
+                        }))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(spec, runtimeWiring);
+
+        return new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().build())
+                .originalSchema(schema)
+                .instrumentation(new SingleFlightInstrumentation())
+                .build();
+    }
+
+    private static final String QUERY = "" +
+            "query {\n" +
+            "    first: user(userId: 1) {\n" +
+            "        name\n" +
+            "    }\n" +
+            "    second: user(userId: 1) {\n" +
+            "        userId\n" +
+            "    }\n" +
+            "    other: user(userId: 2) {\n" +
+            "        name\n" +
+            "    }\n" +
+            "}";
+
+    @Test
+    public void shareInFlightInvocation() {
+        AtomicInteger invocationCount = new AtomicInteger();
+        GraphQLSource graphQLSource = graphQLSource("@singleFlight", invocationCount);
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(QUERY));
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                result.getData().toString(),
+                "{first={name=1_name}, second={userId=1}, other={name=2_name}}"
+        );
+        assert invocationCount.get() == 2;
+        assert Objects.equals(result.getExtensions().get(SingleFlightInstrumentation.SAVED_CALLS_KEY), 1L);
+    }
+
+    @Test
+    public void fieldWithoutDirectiveIsNotShared() {
+        AtomicInteger invocationCount = new AtomicInteger();
+        GraphQLSource graphQLSource = graphQLSource("", invocationCount);
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(QUERY));
+        assert result.getErrors().isEmpty();
+        assert invocationCount.get() == 3;
+        assert result.getExtensions() == null
+                || !result.getExtensions().containsKey(SingleFlightInstrumentation.SAVED_CALLS_KEY);
+    }
+
+    // the fetcher returns the same pending future for all invocations.
+    private static class PendingDataFetcher implements DataFetcher<CompletableFuture<Object>>, AsyncDataFetcherInterface<Object> {
+
+        private final CompletableFuture<Object> pendingFuture = new CompletableFuture<>();
+
+        private final AtomicInteger invocationCount = new AtomicInteger();
+
+        private final AtomicInteger cancelCount = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<Object> get(DataFetchingEnvironment environment) {
+            invocationCount.incrementAndGet();
+            return pendingFuture;
+        }
+
+        @Override
+        public DataFetcher<Object> getWrappedDataFetcher() {
+            return environment -> null;
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return ForkJoinPool.commonPool();
+        }
+
+        @Override
+        public void onCancel(DataFetchingEnvironment environment) {
+            cancelCount.incrementAndGet();
+        }
+    }
+
+    private static DataFetchingEnvironment userEnvironment(Object source) {
+        GraphQLFieldDefinition userField = GraphQLFieldDefinition.newFieldDefinition()
+                .name("user").type(Scalars.GraphQLString).build();
+        GraphQLObjectType queryType = GraphQLObjectType.newObject().name("Query").field(userField).build();
+        return DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .parentType(queryType)
+                .fieldDefinition(userField)
+                .arguments(Collections.singletonMap("userId", 1))
+                .source(source)
+                .build();
+    }
+
+    @Test
+    public void cancelOneOfConcurrentCallers() throws Exception {
+        PendingDataFetcher pendingDataFetcher = new PendingDataFetcher();
+        DataFetcher<?> singleFlightFetcher = new SingleFlightInstrumentation.SingleFlightState()
+                .singleFlightFetcher(pendingDataFetcher);
+        assert singleFlightFetcher instanceof AsyncDataFetcherInterface;
+
+        Object source = new Object();
+        CompletableFuture<?> first = (CompletableFuture<?>) singleFlightFetcher.get(userEnvironment(source));
+        CompletableFuture<?> second = (CompletableFuture<?>) singleFlightFetcher.get(userEnvironment(source));
+        assert pendingDataFetcher.invocationCount.get() == 1;
+
+        // the cancellation of one caller doesn't fail the other.
+        first.cancel(false);
+        assert !pendingDataFetcher.pendingFuture.isCancelled();
+        assert pendingDataFetcher.cancelCount.get() == 0;
+
+        pendingDataFetcher.pendingFuture.complete("user_1");
+        assert Objects.equals(second.get(5, TimeUnit.SECONDS), "user_1");
+    }
+
+    @Test
+    public void cancelInvocationIfAllCallersCancelled() throws Exception {
+        PendingDataFetcher pendingDataFetcher = new PendingDataFetcher();
+        DataFetcher<?> singleFlightFetcher = new SingleFlightInstrumentation.SingleFlightState()
+                .singleFlightFetcher(pendingDataFetcher);
+
+        Object source = new Object();
+        CompletableFuture<?> first = (CompletableFuture<?>) singleFlightFetcher.get(userEnvironment(source));
+        CompletableFuture<?> second = (CompletableFuture<?>) singleFlightFetcher.get(userEnvironment(source));
+        first.cancel(false);
+        second.cancel(false);
+        assert pendingDataFetcher.pendingFuture.isCancelled();
+        assert pendingDataFetcher.cancelCount.get() == 1;
+
+        // the cancelled invocation is not shared by the later fetch.
+        singleFlightFetcher.get(userEnvironment(source));
+        assert pendingDataFetcher.invocationCount.get() == 2;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.engine.SpeculativePrefetcher.PrefetchField;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.parser.Parser;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class SpeculativePrefetchTest {
+
+    private static final Config wrapperConfig = DefaultConfig.newConfig().build();
+
+    private static final String SCHEMA_SPEC = "" +
+            "directive @prefetch on FIELD_DEFINITION\n" +
+            "type Query {\n" +
+            "    consumer: Consumer @prefetch\n" +
+            "    commodity: Commodity\n" +
+            "    itemName: String\n" +
+            "}\n" +
+            "type Consumer {\n" +
+            "    userInfo(userId: Int): User @prefetch\n" +
+            "}\n" +
+            "type Commodity {\n" +
+            "    itemList: [Item] @prefetch\n" +
+            "}\n" +
+            "type User {\n" +
+            "    userId: Int @prefetch\n" +
+            "    name: String @prefetch\n" +
+            "}\n" +
+            "type Item {\n" +
+            "    itemId: Int @prefetch\n" +
+            "}";
+
+    private static final String QUERY = "" +
+            "query($userId: Int) {\n" +
+            "    itemName @map(mapper: \"userName\", dependencySources: \"userName\")\n" +
+            "    consumer {\n" +
+            "        userInfo(userId: $userId) {\n" +
+            "            name @fetchSource(name: \"userName\")\n" +
+            "        }\n" +
+            "    }\n" +
+            "}";
+
+    @Test
+    public void prefetchFieldsOfPlan() {
+        GraphQLSchema schema = TestUtil.schemaBySpec(SCHEMA_SPEC, RuntimeWiring.newRuntimeWiring().build());
+
+        assert Objects.equals(prefetchPaths(schema, QUERY), Arrays.asList("consumer", "consumer.userInfo", "consumer.userInfo.name"));
+
+        // the field in list, or the ancestor is not annotated by @prefetch.
+        String listQuery = "" +
+                "query {\n" +
+                "    commodity {\n" +
+                "        itemList {\n" +
+                "            itemId @fetchSource(name: \"itemIds\")\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        assert prefetchPaths(schema, listQuery).isEmpty();
+
+        // the field may be skipped by other directive.
+        String skippedQuery = "" +
+                "query($skip: Boolean) {\n" +
+                "    consumer @skip(if: $skip) {\n" +
+                "        userInfo(userId: 1) {\n" +
+                "            name @fetchSource(name: \"userName\")\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        assert prefetchPaths(schema, skippedQuery).isEmpty();
+    }
+
+    private List<String> prefetchPaths(GraphQLSchema schema, String query) {
+        ExecutionEngineStateParser stateParser = new ExecutionEngineStateParser(schema);
+        QueryTraverser.newQueryTraverser()
+                .schema(schema)
+                .document(Parser.parse(query))
+                .variables(Collections.emptyMap())
+                .build()
+                .visitDepthFirst(stateParser);
+
+        return stateParser.getExecutionPlan().getPrefetchFields().stream()
+                .map(PrefetchField::getFieldFullPath)
+                .collect(Collectors.toList());
+    }
+
+    // record the order of operation execution and the fetches which are instrumented.
+    private static class EventInstrumentation extends SimpleInstrumentation {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                             InstrumentationState state) {
+            events.add("executeOperation");
+            return super.beginExecuteOperation(parameters, state);
+        }
+
+        @Override
+        public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                    InstrumentationFieldFetchParameters parameters,
+                                                    InstrumentationState state) {
+            String fieldName = parameters.getExecutionStepInfo().getFieldDefinition().getName();
+            if (!Objects.equals(fieldName, "userInfo")) {
+                return dataFetcher;
+            }
+            return environment -> {
+                events.add("instrumented " + environment.getExecutionStepInfo().getPath());
+                return dataFetcher.get(environment);
+            };
+        }
+    }
+
+    private static RuntimeWiring userInfoWiring(DataFetcher<?> userInfoFetcher) {
+        return RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("consumer", environment -> Collections.emptyMap())
+                        .dataFetcher("itemName", environment -> "item"))
+                .type(TypeRuntimeWiring.newTypeWiring("Consumer")
+                        .dataFetcher("userInfo", userInfoFetcher))
+                .build();
+    }
+
+    @Test
+    public void handPrefetchedValueToExecution() {
+        AtomicInteger userInfoFetchCount = new AtomicInteger();
+        EventInstrumentation instrumentation = new EventInstrumentation();
+        RuntimeWiring runtimeWiring = userInfoWiring(environment -> {
+            userInfoFetchCount.incrementAndGet();
+            instrumentation.events.add("fetch userInfo");
+            Map<String, Object> userInfo = new HashMap<>();
+            userInfo.put("userId", environment.getArgument("userId"));
+            userInfo.put("name", "user_" + environment.getArgument("userId"));
+            return userInfo;
+        });
+        GraphQLSchema schema = TestUtil.schemaBySpec(SCHEMA_SPEC, runtimeWiring);
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(wrapperConfig)
+                .originalSchema(schema)
+                .instrumentation(instrumentation)
+                .build();
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(
+                ExecutionInput.newExecutionInput(QUERY).variables(Collections.singletonMap("userId", 1))
+        );
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                result.getData().toString(),
+                "{itemName=user_1, consumer={userInfo={name=user_1}}}"
+        );
+        assert userInfoFetchCount.get() == 1;
+        // the speculative fetch starts before the operation is executed,
+        // and the field is instrumented once by the fetch of graphql-java which the prefetched value is handed to.
+        assert Objects.equals(
+                instrumentation.events,
+                Arrays.asList("fetch userInfo", "executeOperation", "instrumented /consumer/userInfo")
+        );
+    }
+
+    @Test
+    public void refetchIfPrefetchFailed() {
+        AtomicInteger userInfoFetchCount = new AtomicInteger();
+        RuntimeWiring runtimeWiring = userInfoWiring(environment -> {
+            if (userInfoFetchCount.incrementAndGet() == 1) {
+                throw new RuntimeException("the first fetch failed.");
+            }
+            return Collections.singletonMap("name", environment.getExecutionStepInfo().getPath().toString());
+        });
+        GraphQLSchema schema = TestUtil.schemaBySpec(SCHEMA_SPEC, runtimeWiring);
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(
+                ExecutionInput.newExecutionInput(QUERY).variables(Collections.singletonMap("userId", 1))
+        );
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                result.getData().toString(),
+                "{itemName=/consumer/userInfo, consumer={userInfo={name=/consumer/userInfo}}}"
+        );
+        assert userInfoFetchCount.get() == 2;
+    }
+
+    @Test
+    public void noPrefetchForInvalidDocument() {
+        AtomicInteger userInfoFetchCount = new AtomicInteger();
+        RuntimeWiring runtimeWiring = userInfoWiring(environment -> {
+            userInfoFetchCount.incrementAndGet();
+            return Collections.singletonMap("name", "user");
+        });
+        GraphQLSchema schema = TestUtil.schemaBySpec(SCHEMA_SPEC, runtimeWiring);
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+
+        String invalidQuery = "" +
+                "query($userId: Int) {\n" +
+                "    unknownField\n" +
+                "    consumer {\n" +
+                "        userInfo(userId: $userId) {\n" +
+                "            name @fetchSource(name: \"userName\")\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        ExecutionResult result = graphQLSource.getGraphQL().execute(
+                ExecutionInput.newExecutionInput(invalidQuery).variables(Collections.singletonMap("userId", 1))
+        );
+        assert !result.getErrors().isEmpty();
+        assert result.getData() == null;
+        assert userInfoFetchCount.get() == 0;
+    }
+}
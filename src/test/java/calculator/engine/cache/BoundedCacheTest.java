@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package calculator.engine.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void loadOnceAndHit() {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>newCache().maximumSize(10).build();
+        AtomicInteger loadCount = new AtomicInteger();
+
+        String value = cache.get("a", key -> key + "_" + loadCount.incrementAndGet());
+        String cachedValue = cache.get("a", key -> key + "_" + loadCount.incrementAndGet());
+
+        assert value.equals("a_1");
+        assert cachedValue.equals("a_1");
+        assert loadCount.get() == 1;
+        assert cache.stats().getHitCount() == 1;
+        assert cache.stats().getMissCount() == 1;
+    }
+
+    @Test
+    public void evictByMaximumSize() {
+        BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>newCache().maximumSize(10).build();
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(i, key -> key);
+        }
+
+        assert cache.estimatedSize() == 10;
+        assert cache.stats().getEvictionCount() == 90;
+        assert cache.getIfPresent(99) != null;
+        assert cache.getIfPresent(0) == null;
+    }
+
+    @Test
+    public void evictByMaximumWeight() {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>newCache()
+                .maximumWeight(10)
+                .weigher((key, value) -> value.length())
+                .build();
+
+        cache.get("a", key -> "12345");
+        cache.get("b", key -> "12345");
+        assert cache.weightedSize() == 10;
+
+        cache.get("c", key -> "123");
+        assert cache.weightedSize() <= 10;
+        assert cache.getIfPresent("a") == null;
+        assert cache.getIfPresent("c") != null;
+    }
+
+    @Test
+    public void protectFrequentlyUsedEntry() {
+        BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>newCache().maximumSize(10).build();
+
+        cache.get(-1, key -> key);
+        // promoted to protected segment.
+        cache.get(-1, key -> key);
+        for (int i = 0; i < 100; i++) {
+            cache.get(i, key -> key);
+        }
+
+        assert cache.getIfPresent(-1) != null;
+    }
+
+    @Test
+    public void failedLoadIsNotCached() {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>newCache().maximumSize(10).build();
+
+        try {
+            cache.get("a", key -> {
+                throw new IllegalStateException("load failed");
+            });
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().equals("load failed");
+        }
+
+        assert cache.get("a", key -> "value").equals("value");
+        assert cache.stats().getLoadFailureCount() == 1;
+    }
+
+    @Test
+    public void waiterOfFailedLoadIsNotHit() throws Exception {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>newCache().maximumSize(10).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch failLoad = new CountDownLatch(1);
+
+        Thread loader = new Thread(() -> {
+            try {
+                cache.get("a", key -> {
+                    loading.countDown();
+                    try {
+                        failLoad.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("load failed");
+                });
+            } catch (IllegalStateException ignored) {
+            }
+        });
+        loader.start();
+        loading.await();
+
+        Thread failLoadLater = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            failLoad.countDown();
+        });
+        failLoadLater.start();
+        try {
+            cache.get("a", key -> "value");
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().equals("load failed");
+        }
+        loader.join();
+        failLoadLater.join();
+
+        assert cache.stats().getHitCount() == 0;
+        assert cache.stats().getMissCount() == 2;
+        assert cache.stats().getLoadFailureCount() == 1;
+    }
+
+    @Test
+    public void expireAfterWrite() {
+        AtomicLong nanos = new AtomicLong();
+        BoundedCache<String, String> cache = BoundedCache.<String, String>newCache()
+                .maximumSize(10)
+                .expireAfterWrite(100, TimeUnit.NANOSECONDS)
+                .ticker(nanos::get)
+                .build();
+        AtomicInteger loadCount = new AtomicInteger();
+
+        assert cache.get("a", key -> key + "_" + loadCount.incrementAndGet()).equals("a_1");
+        nanos.set(99);
+        assert cache.getIfPresent("a").equals("a_1");
+
+        nanos.set(100);
+        assert cache.getIfPresent("a") == null;
+        assert cache.get("a", key -> key + "_" + loadCount.incrementAndGet()).equals("a_2");
+        assert cache.estimatedSize() == 1;
+        assert cache.stats().getEvictionCount() == 1;
+    }
+}
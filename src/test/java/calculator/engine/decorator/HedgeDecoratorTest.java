@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine.decorator;
+
+import calculator.common.LatencyHistogram;
+import graphql.Scalars;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLObjectType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgeDecoratorTest {
+
+    @Test
+    public void recordLatencyFromFirstAttempt() throws Exception {
+        AtomicInteger fetchCount = new AtomicInteger();
+        List<CompletableFuture<Object>> slowFutures = new CopyOnWriteArrayList<>();
+        LatencyHistogram histogram = new LatencyHistogram(16);
+        long startNanos = System.nanoTime();
+        HedgeDecorator.HedgedFetch hedgedFetch = new HedgeDecorator.HedgedFetch(
+                environment -> {
+                    fetchCount.incrementAndGet();
+                    return CompletableFuture.completedFuture("hedged");
+                },
+                null, histogram, ForkJoinPool.commonPool(), 50, 1, startNanos
+        );
+
+        // the first attempt hits a slow replica and never completes.
+        CompletableFuture<Object> slowFuture = new CompletableFuture<>();
+        slowFutures.add(slowFuture);
+        hedgedFetch.addAttempt(slowFuture);
+        hedgedFetch.scheduleHedge();
+
+        assert "hedged".equals(hedgedFetch.resultFuture.get(5, TimeUnit.SECONDS));
+        assert fetchCount.get() == 1;
+        assert slowFutures.get(0).isCancelled();
+        // the only sample is the latency of field, which is not less than the hedge delay.
+        assert histogram.getTotalCount() == 1;
+        assert histogram.getValueAtPercentile(1.0) >= TimeUnit.MILLISECONDS.toMicros(50);
+    }
+
+    @Test
+    public void histogramIsScopedByParentType() {
+        HedgeDecorator hedgeDecorator = new HedgeDecorator();
+        GraphQLObjectType userType = GraphQLObjectType.newObject().name("User")
+                .field(GraphQLFieldDefinition.newFieldDefinition().name("name").type(Scalars.GraphQLString))
+                .build();
+        GraphQLObjectType otherUserType = GraphQLObjectType.newObject().name("User")
+                .field(GraphQLFieldDefinition.newFieldDefinition().name("name").type(Scalars.GraphQLString))
+                .build();
+
+        LatencyHistogram histogram = hedgeDecorator.getHistogram(userType, "name");
+        assert histogram == hedgeDecorator.getHistogram(GraphQLNonNull.nonNull(userType), "name");
+        assert histogram == hedgeDecorator.getHistogram(GraphQLList.list(userType), "name");
+        // the type with same name in another schema doesn't share the histogram.
+        assert histogram != hedgeDecorator.getHistogram(otherUserType, "name");
+        assert histogram != hedgeDecorator.getHistogram(userType, "id");
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine.directive;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.engine.SchemaWrapper;
+import calculator.exception.WrapperSchemaException;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class BatchDirectiveTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static final String SPEC = "" +
+            "directive @batch(loader: String!, key: String!, maxBatchSize: Int) on FIELD_DEFINITION\n" +
+            "\n" +
+            "type Query {\n" +
+            "    itemList: [Item]\n" +
+            "}\n" +
+            "\n" +
+            "type Item {\n" +
+            "    itemId: Int\n" +
+            "    sellerId: Int\n" +
+            "    seller: Seller @batch(loader: \"sellerLoader\", key: \"sellerId\"%s)\n" +
+            "}\n" +
+            "\n" +
+            "type Seller {\n" +
+            "    sellerId: Int\n" +
+            "    name: String\n" +
+            "}";
+
+    private static GraphQLSchema schema(String maxBatchSize) {
+        List<Map<String, Object>> itemList = new ArrayList<>();
+        for (int sellerId : Arrays.asList(1, 2, 1, 3)) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("itemId", itemList.size() + 1);
+            item.put("sellerId", sellerId);
+            itemList.add(item);
+        }
+
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("itemList", environment -> itemList))
+                .build();
+        return TestUtil.schemaBySpec(String.format(SPEC, maxBatchSize), runtimeWiring);
+    }
+
+    private static GraphQLSource graphQLSource(GraphQLSchema schema, List<List<Object>> loadedKeys) {
+        Config config = DefaultConfig.newConfig()
+                .batchLoader("sellerLoader", (keys, environment) -> {
+                    loadedKeys.add(new ArrayList<>(keys));
+                    List<Object> sellers = new ArrayList<>();
+                    for (Object key : keys) {
+                        Map<String, Object> seller = new HashMap<>();
+                        seller.put("sellerId", key);
+                        seller.put("name", key + "_name");
+                        sellers.add(seller);
+                    }
+                    return CompletableFuture.completedFuture(sellers);
+                }).build();
+
+        return new DefaultGraphQLSourceBuilder().wrapperConfig(config).originalSchema(schema).build();
+    }
+
+    @Test
+    public void loaderMustBeRegistered() {
+        expectedException.expect(WrapperSchemaException.class);
+        expectedException.expectMessage("errorClassification: InvalidAppliedDirectiveArgument, "
+                + "location: SourceLocation{line=10, column=5}, "
+                + "msg: the loader 'sellerLoader' of @batch on {Item.seller} is not registered in config.\n");
+
+        SchemaWrapper.wrap(DefaultConfig.newConfig().build(), schema(""));
+    }
+
+    @Test
+    public void loadKeysOfListElementsByOneInvocation() {
+        List<List<Object>> loadedKeys = new CopyOnWriteArrayList<>();
+        GraphQLSource graphQLSource = graphQLSource(schema(""), loadedKeys);
+
+        String query = "" +
+                "query {\n" +
+                "    itemList {\n" +
+                "        itemId\n" +
+                "        seller {\n" +
+                "            sellerId\n" +
+                "            name\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                ((Map) result.getData()).get("itemList").toString(),
+                "[{itemId=1, seller={sellerId=1, name=1_name}}, {itemId=2, seller={sellerId=2, name=2_name}}, " +
+                        "{itemId=3, seller={sellerId=1, name=1_name}}, {itemId=4, seller={sellerId=3, name=3_name}}]"
+        );
+        assert Objects.equals(loadedKeys.toString(), "[[1, 2, 3]]");
+    }
+
+    @Test
+    public void splitKeysByMaxBatchSize() {
+        List<List<Object>> loadedKeys = new CopyOnWriteArrayList<>();
+        GraphQLSource graphQLSource = graphQLSource(schema(", maxBatchSize: 2"), loadedKeys);
+
+        String query = "" +
+                "query {\n" +
+                "    itemList {\n" +
+                "        seller {\n" +
+                "            name\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                ((Map) result.getData()).get("itemList").toString(),
+                "[{seller={name=1_name}}, {seller={name=2_name}}, {seller={name=1_name}}, {seller={name=3_name}}]"
+        );
+        assert Objects.equals(loadedKeys.toString(), "[[1, 2], [3]]");
+    }
+}
@@ -22,21 +22,29 @@ import calculator.config.DefaultConfig;
 import calculator.graphql.DefaultGraphQLSourceBuilder;
 import calculator.graphql.GraphQLSource;
 import calculator.util.GraphQLSourceHolder;
+import calculator.util.TestUtil;
 import calculator.engine.script.AviatorScriptEvaluator;
 import calculator.validation.Validator;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.ParseAndValidateResult;
 import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 public class CommonTest {
 
@@ -65,6 +73,51 @@ public class CommonTest {
     }
 
 
+    @Test
+    public void mockFieldsOfUnionOnSamePath() {
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("animals", environment -> Arrays.asList(
+                                Collections.singletonMap("kind", "Dog"), Collections.singletonMap("kind", "Cat")
+                        )))
+                .type(TypeRuntimeWiring.newTypeWiring("Animal")
+                        .typeResolver(environment -> environment.getSchema().getObjectType(
+                                (String) ((Map<String, Object>) environment.getObject()).get("kind")
+                        )))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    animals: [Animal]\n" +
+                        "}\n" +
+                        "union Animal = Dog | Cat\n" +
+                        "type Dog {\n" +
+                        "    name: String\n" +
+                        "}\n" +
+                        "type Cat {\n" +
+                        "    name: String\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+
+        String query = "" +
+                "query {\n" +
+                "    animals {\n" +
+                "        ... on Dog { name @mock(value: \"dog\") }\n" +
+                "        ... on Cat { name @mock(value: \"cat\") }\n" +
+                "    }\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert !validateResult.isFailure();
+
+        // the parsed arguments of directives are cached by document, the second execution reuses them.
+        for (int i = 0; i < 2; i++) {
+            ExecutionResult executionResult = graphQLSource.getGraphQL().execute(query);
+            assert executionResult.getErrors().isEmpty();
+            assert Objects.equals(executionResult.getData().toString(), "{animals=[{name=dog}, {name=cat}]}");
+        }
+    }
+
     @Ignore
     public void abUserForCouponAcquire() {
         String query = "" +
@@ -160,4 +213,67 @@ public class CommonTest {
         Map<String, Map<String, List>> data = executionResult.getData();
         assert data.get("commodity").get("itemList").isEmpty();
     }
+    @Test
+    public void transformPendingListWithoutBlocking() throws Exception {
+        List<CompletableFuture<List<Map<String, Object>>>> pendingFutures = new CopyOnWriteArrayList<>();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("itemList", environment -> {
+                            CompletableFuture<List<Map<String, Object>>> pendingFuture = new CompletableFuture<>();
+                            pendingFutures.add(pendingFuture);
+                            return pendingFuture;
+                        }))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    itemList: [Item]\n" +
+                        "}\n" +
+                        "type Item {\n" +
+                        "    itemId: Int\n" +
+                        "}",
+                runtimeWiring
+        );
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+
+        String query = "" +
+                "query {\n" +
+                "    filtered: itemList @filter(predicate: \"itemId > 1\") { itemId }\n" +
+                "    distinct: itemList @distinct(comparator: \"itemId % 2\") { itemId }\n" +
+                "    sorted: itemList @sort(key: \"itemId\", reversed: true) { itemId }\n" +
+                "    sortedBy: itemList @sortBy(comparator: \"itemId % 2\") { itemId }\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert !validateResult.isFailure();
+
+        Thread completeThread = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            for (CompletableFuture<List<Map<String, Object>>> pendingFuture : pendingFutures) {
+                List<Map<String, Object>> itemList = new ArrayList<>();
+                for (int itemId = 1; itemId <= 3; itemId++) {
+                    itemList.add(Collections.singletonMap("itemId", itemId));
+                }
+                pendingFuture.complete(itemList);
+            }
+        });
+        completeThread.start();
+
+        CompletableFuture<ExecutionResult> resultFuture = graphQLSource.getGraphQL().executeAsync(ExecutionInput.newExecutionInput(query));
+        // the decorated fetchers compose the pending results, instead of waiting for them on the caller thread.
+        assert pendingFutures.size() == 4;
+        assert pendingFutures.stream().noneMatch(CompletableFuture::isDone);
+        assert !resultFuture.isDone();
+
+        ExecutionResult result = resultFuture.get(5, TimeUnit.SECONDS);
+        completeThread.join();
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                result.getData().toString(),
+                "{filtered=[{itemId=2}, {itemId=3}], distinct=[{itemId=1}, {itemId=2}], " +
+                        "sorted=[{itemId=3}, {itemId=2}, {itemId=1}], sortedBy=[{itemId=2}, {itemId=1}, {itemId=3}]}"
+        );
+    }
+
 }
\ No newline at end of file
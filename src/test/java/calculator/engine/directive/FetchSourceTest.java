@@ -22,15 +22,26 @@ import calculator.config.DefaultConfig;
 import calculator.graphql.DefaultGraphQLSourceBuilder;
 import calculator.graphql.GraphQLSource;
 import calculator.util.GraphQLSourceHolder;
+import calculator.util.TestUtil;
 import calculator.engine.script.AviatorScriptEvaluator;
 import calculator.validation.Validator;
+import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.ParseAndValidateResult;
 import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class FetchSourceTest {
     private static final GraphQLSchema originalSchema = GraphQLSourceHolder.getDefaultSchema();
@@ -127,4 +138,64 @@ public class FetchSourceTest {
                 "[{userId=2, name=2_name, age=20}, {userId=3, name=3_name, age=30}, {userId=4, name=4_name, age=40}]"
         );
     }
+    @Test
+    public void waitPendingSourceWithoutBlocking() throws Exception {
+        CompletableFuture<Object> sourceFuture = new CompletableFuture<>();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("source", environment -> sourceFuture)
+                        .dataFetcher("itemList", environment -> {
+                            List<Map<String, Object>> itemList = new ArrayList<>();
+                            for (int itemId = 1; itemId <= 3; itemId++) {
+                                itemList.add(Collections.singletonMap("itemId", itemId));
+                            }
+                            return itemList;
+                        })
+                        .dataFetcher("itemName", environment -> "item_" + environment.getArgument("itemId")))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    source: Int\n" +
+                        "    itemList: [Item]\n" +
+                        "    itemName(itemId: Int): String\n" +
+                        "}\n" +
+                        "type Item {\n" +
+                        "    itemId: Int\n" +
+                        "}",
+                runtimeWiring
+        );
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        Config config = DefaultConfig.newConfig().threadPool(executor).build();
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(config).originalSchema(schema).build();
+
+        String query = "" +
+                "query {\n" +
+                "    source @fetchSource(name: \"source\")\n" +
+                "    itemList {\n" +
+                "        itemId\n" +
+                "        total: itemId @map(mapper: \"source + itemId\", dependencySources: \"source\")\n" +
+                "    }\n" +
+                "    itemName(itemId: 0) @argumentTransform(argumentName: \"itemId\", operateType: MAP, expression: \"source\", dependencySources: \"source\")\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), config);
+        assert !validateResult.isFailure();
+
+        try {
+            CompletableFuture<ExecutionResult> resultFuture = graphQLSource.getGraphQL().executeAsync(ExecutionInput.newExecutionInput(query));
+            // the consumers wait for the pending source by callbacks, the only thread of executor is not blocked.
+            assert Objects.equals(executor.submit(() -> "idle").get(1, TimeUnit.SECONDS), "idle");
+            assert !resultFuture.isDone();
+
+            sourceFuture.complete(10);
+            ExecutionResult result = resultFuture.get(5, TimeUnit.SECONDS);
+            assert result.getErrors().isEmpty();
+            assert Objects.equals(
+                    result.getData().toString(),
+                    "{source=10, itemList=[{itemId=1, total=11}, {itemId=2, total=12}, {itemId=3, total=13}], itemName=item_10}"
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
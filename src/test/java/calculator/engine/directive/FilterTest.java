@@ -20,6 +20,7 @@ package calculator.engine.directive;
 import calculator.config.Config;
 import calculator.config.DefaultConfig;
 import calculator.engine.script.AviatorScriptEvaluator;
+import calculator.engine.script.CompiledScript;
 import calculator.engine.script.ListContain;
 import calculator.graphql.DefaultGraphQLSourceBuilder;
 import calculator.graphql.GraphQLSource;
@@ -37,6 +38,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FilterTest {
 
@@ -164,4 +166,44 @@ public class FilterTest {
         );
     }
 
+    @Test
+    public void compileScriptOncePerDocument() {
+        AtomicInteger compileCount = new AtomicInteger();
+        AtomicInteger evaluateCount = new AtomicInteger();
+        AviatorScriptEvaluator scriptEvaluator = new AviatorScriptEvaluator() {
+            @Override
+            public Object evaluate(String script, Map<String, Object> arguments) {
+                evaluateCount.incrementAndGet();
+                return super.evaluate(script, arguments);
+            }
+
+            @Override
+            public CompiledScript compile(String script) {
+                compileCount.incrementAndGet();
+                return super.compile(script);
+            }
+        };
+        Config config = DefaultConfig.newConfig().scriptEvaluator(scriptEvaluator).build();
+        GraphQLSource graphQLSource = new DefaultGraphQLSourceBuilder().wrapperConfig(config).originalSchema(originalSchema).build();
+
+        String query = "" +
+                "query {\n" +
+                "    commodity{\n" +
+                "        itemList(itemIds: [1,2,3]) @filter(predicate: \"onSale\") {\n" +
+                "            itemId\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        for (int i = 0; i < 2; i++) {
+            ExecutionResult executionResult = graphQLSource.getGraphQL().execute(query);
+            assert executionResult.getErrors().isEmpty();
+            Map<String, Map<String, Object>> data = executionResult.getData();
+            assert Objects.equals(data.get("commodity").get("itemList").toString(), "[{itemId=1}, {itemId=2}]");
+        }
+
+        // the predicate is compiled once and shared by the executions of document, the elements are not evaluated by text.
+        assert compileCount.get() == 1;
+        assert evaluateCount.get() == 0;
+    }
+
 }
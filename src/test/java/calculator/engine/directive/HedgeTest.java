@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine.directive;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import calculator.validation.Validator;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ParseAndValidateResult;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgeTest {
+
+    private static final Config wrapperConfig = DefaultConfig.newConfig().build();
+
+    @Test
+    public void takeFirstResultAndCancelLoser() {
+        AtomicInteger fetchCount = new AtomicInteger();
+        List<CompletableFuture<Object>> slowFutures = new CopyOnWriteArrayList<>();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("userName", environment -> {
+                            // the first fetch hits a slow replica and never completes.
+                            if (fetchCount.getAndIncrement() == 0) {
+                                CompletableFuture<Object> slowFuture = new CompletableFuture<>();
+                                slowFutures.add(slowFuture);
+                                return slowFuture;
+                            }
+                            return CompletableFuture.completedFuture("hedged");
+                        }))
+                .build();
+        GraphQLSource graphQLSource = createGraphQLSource(runtimeWiring);
+
+        String query = "" +
+                "query {\n" +
+                "    userName @hedge(afterMs: 30)\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert !validateResult.isFailure();
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(((Map<String, Object>) result.getData()).get("userName"), "hedged");
+        assert fetchCount.get() == 2;
+        assert slowFutures.get(0).isCancelled();
+    }
+
+    @Test
+    public void failWithoutOtherAttemptInFlight() {
+        AtomicInteger fetchCount = new AtomicInteger();
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        .dataFetcher("userName", environment -> {
+                            fetchCount.incrementAndGet();
+                            return CompletableFuture.supplyAsync(() -> {
+                                throw new RuntimeException("mock error");
+                            });
+                        }))
+                .build();
+        GraphQLSource graphQLSource = createGraphQLSource(runtimeWiring);
+
+        String query = "" +
+                "query {\n" +
+                "    userName @hedge(afterMs: 1000, maxExtra: 2)\n" +
+                "}";
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        assert ((Map<String, Object>) result.getData()).get("userName") == null;
+        assert result.getErrors().size() == 1;
+        assert fetchCount.get() == 1;
+    }
+
+    @Test
+    public void maxExtraMustBePositiveNumber() {
+        GraphQLSource graphQLSource = createGraphQLSource(RuntimeWiring.newRuntimeWiring().build());
+
+        String query = "" +
+                "query {\n" +
+                "    userName @hedge(maxExtra: 0)\n" +
+                "}";
+
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert validateResult.isFailure();
+        assert Objects.equals(
+                validateResult.getValidationErrors().get(0).getDescription(),
+                "the maxExtra value of @hedge on {userName} must be positive number."
+        );
+    }
+
+    private static GraphQLSource createGraphQLSource(RuntimeWiring runtimeWiring) {
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    userName: String\n" +
+                        "}",
+                runtimeWiring
+        );
+
+        return new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+    }
+}
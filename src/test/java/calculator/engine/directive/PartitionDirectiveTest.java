@@ -17,6 +17,7 @@
 
 package calculator.engine.directive;
 
+import calculator.config.Config;
 import calculator.config.DefaultConfig;
 import calculator.engine.SchemaWrapper;
 import calculator.exception.WrapperSchemaException;
@@ -27,17 +28,28 @@ import calculator.util.TestUtil;
 import calculator.validation.Validator;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
 import graphql.ParseAndValidateResult;
+import graphql.execution.DataFetcherResult;
+import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 public class PartitionDirectiveTest {
 
@@ -206,4 +218,175 @@ public class PartitionDirectiveTest {
         );
     }
 
+    @Test
+    public void parallelismMustBePositiveNumber() throws Exception {
+        expectedException.expect(WrapperSchemaException.class);
+        expectedException.expectMessage("errorClassification: InvalidAppliedDirectiveArgument, "
+                + "location: SourceLocation{line=5, column=5}, "
+                + "msg: the parallelism value of @partition on {Query.listField} must be positive number.\n");
+
+        GraphQLSchema graphQLSchema = TestUtil.schemaBySpec(
+                "directive @partition(size: Int!, parallelism: Int = 1) on ARGUMENT_DEFINITION\n" +
+                        "\n" +
+                        "type Query {\n" +
+                        "\n" +
+                        "    listField(arg: [Int] @partition(size:5, parallelism: 0)): [Int]\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring().build()
+        );
+        GraphQLSchema wrappedSchema = SchemaWrapper.wrap(DefaultConfig.newConfig().build(), graphQLSchema);
+    }
+
+    @Test
+    public void parallelPartitionKeepOrder() {
+        Set<String> fetchThreads = ConcurrentHashMap.newKeySet();
+        DataFetcher<List<Integer>> listFetcher = environment -> {
+            fetchThreads.add(Thread.currentThread().getName());
+            List<Integer> arg = environment.getArgument("arg");
+            // the first partition is completed last.
+            if (arg.contains(1)) {
+                TestUtil.sleepWithTry(50, 60);
+            }
+            return arg.stream().map(ele -> ele * 10).collect(Collectors.toList());
+        };
+
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "directive @partition(size: Int!, parallelism: Int = 1) on ARGUMENT_DEFINITION\n" +
+                        "\n" +
+                        "type Query {\n" +
+                        "\n" +
+                        "    listField(arg: [Int] @partition(size:2, parallelism: 3)): [Int]\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring().type(
+                        TypeRuntimeWiring.newTypeWiring("Query").dataFetcher("listField", listFetcher)
+                ).build()
+        );
+        GraphQLSource source = new DefaultGraphQLSourceBuilder()
+                .wrapperConfig(DefaultConfig.newConfig().build()).originalSchema(schema).build();
+
+        ExecutionResult result = source.getGraphQL().execute("query{ listField(arg: [1,2,3,4,5,6,7,8,9]) }");
+        assert result.getErrors().isEmpty();
+        assert Objects.equals(
+                ((Map) result.getData()).get("listField").toString(),
+                "[10, 20, 30, 40, 50, 60, 70, 80, 90]"
+        );
+        assert !fetchThreads.contains(Thread.currentThread().getName());
+    }
+
+    private static GraphQLSource partitionSource(String partitionDirective, DataFetcher<?> listFetcher) {
+        return partitionSource(partitionDirective, listFetcher, DefaultConfig.newConfig().build());
+    }
+
+    private static GraphQLSource partitionSource(String partitionDirective, DataFetcher<?> listFetcher, Config config) {
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "directive @partition(size: Int!, parallelism: Int = 1) on ARGUMENT_DEFINITION\n" +
+                        "\n" +
+                        "type Query {\n" +
+                        "\n" +
+                        "    listField(arg: [Int] " + partitionDirective + "): [Int]\n" +
+                        "}",
+                RuntimeWiring.newRuntimeWiring().type(
+                        TypeRuntimeWiring.newTypeWiring("Query").dataFetcher("listField", listFetcher)
+                ).build()
+        );
+        return new DefaultGraphQLSourceBuilder().wrapperConfig(config).originalSchema(schema).build();
+    }
+
+    @Test
+    public void mergeDataFetcherResultOfPartitions() {
+        // the partition which contains 3 returns data with error.
+        DataFetcher<Object> listFetcher = environment -> {
+            List<Integer> arg = environment.getArgument("arg");
+            List<Integer> data = arg.stream().map(ele -> ele * 10).collect(Collectors.toList());
+            DataFetcherResult.Builder<Object> resultBuilder = DataFetcherResult.newResult().data(data);
+            if (arg.contains(3)) {
+                resultBuilder.error(GraphqlErrorBuilder.newError().message("partition " + arg + " is degraded.").build());
+            }
+            return CompletableFuture.completedFuture(resultBuilder.build());
+        };
+
+        for (String partitionDirective : Arrays.asList("@partition(size:2)", "@partition(size:2, parallelism: 2)")) {
+            ExecutionResult result = partitionSource(partitionDirective, listFetcher)
+                    .getGraphQL().execute("query{ listField(arg: [1,2,3,4,5]) }");
+            assert Objects.equals(
+                    ((Map) result.getData()).get("listField").toString(),
+                    "[10, 20, 30, 40, 50]"
+            );
+            assert result.getErrors().size() == 1;
+            assert result.getErrors().get(0).getMessage().contains("partition [3, 4] is degraded.");
+        }
+    }
+
+    @Test
+    public void failOnUnexpectedPartitionResult() {
+        DataFetcher<Object> mapFetcher = environment -> Collections.singletonMap("arg", environment.getArgument("arg"));
+
+        for (String partitionDirective : Arrays.asList("@partition(size:2)", "@partition(size:2, parallelism: 2)")) {
+            ExecutionResult result = partitionSource(partitionDirective, mapFetcher)
+                    .getGraphQL().execute("query{ listField(arg: [1,2,3]) }");
+            assert ((Map) result.getData()).get("listField") == null;
+            assert result.getErrors().size() == 1;
+            assert result.getErrors().get(0).getMessage().contains(
+                    "the result of partition must be List or DataFetcherResult of List"
+            );
+        }
+    }
+
+    @Test
+    public void cancelOtherPartitionsWhenOneFailed() {
+        List<List<Integer>> fetchedArgs = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Object>> pendingFutures = new CopyOnWriteArrayList<>();
+        DataFetcher<Object> listFetcher = environment -> {
+            List<Integer> arg = environment.getArgument("arg");
+            fetchedArgs.add(arg);
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            if (arg.contains(3)) {
+                future.completeExceptionally(new RuntimeException("partition " + arg + " failed."));
+            } else {
+                pendingFutures.add(future);
+            }
+            return future;
+        };
+
+        // the partitions are dispatched in order on the caller thread.
+        Config config = DefaultConfig.newConfig().threadPool(Runnable::run).build();
+        ExecutionResult result = partitionSource("@partition(size:1, parallelism: 3)", listFetcher, config)
+                .getGraphQL().execute("query{ listField(arg: [1,2,3,4,5]) }");
+
+        assert result.getErrors().size() == 1;
+        assert result.getErrors().get(0).getMessage().contains("partition [3] failed.");
+        // the partitions in flight are cancelled, and the queued partitions are not fetched.
+        assert pendingFutures.size() == 2;
+        assert pendingFutures.stream().allMatch(CompletableFuture::isCancelled);
+        assert Objects.equals(fetchedArgs.toString(), "[[1], [2], [3]]");
+
+        // the sequential partitions are all fetched, the others are cancelled once one of them failed.
+        fetchedArgs.clear();
+        pendingFutures.clear();
+        ExecutionResult sequentialResult = partitionSource("@partition(size:1)", listFetcher, config)
+                .getGraphQL().execute("query{ listField(arg: [1,2,3,4,5]) }");
+        assert sequentialResult.getErrors().size() == 1;
+        assert pendingFutures.size() == 4;
+        assert pendingFutures.stream().allMatch(CompletableFuture::isCancelled);
+    }
+
+    @Test
+    public void dispatchSynchronousPartitionsIteratively() {
+        DataFetcher<Object> listFetcher = environment -> environment.getArgument("arg");
+        List<Integer> arg = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            arg.add(i);
+        }
+
+        // every partition is completed on the caller thread, the next one is dispatched without recursion.
+        Config config = DefaultConfig.newConfig().threadPool(Runnable::run).build();
+        for (String partitionDirective : Arrays.asList("@partition(size:1)", "@partition(size:1, parallelism: 2)")) {
+            ExecutionResult result = partitionSource(partitionDirective, listFetcher, config).getGraphQL().execute(
+                    ExecutionInput.newExecutionInput("query($arg: [Int]){ listField(arg: $arg) }")
+                            .variables(Collections.singletonMap("arg", arg))
+            );
+            assert result.getErrors().isEmpty();
+            assert Objects.equals(((Map) result.getData()).get("listField"), arg);
+        }
+    }
 }
@@ -18,6 +18,7 @@
 package calculator.engine.directive;
 
 
+import calculator.common.CollectionUtil;
 import calculator.config.DefaultConfig;
 import calculator.engine.script.AviatorScriptEvaluator;
 import calculator.engine.script.ListContain;
@@ -31,10 +32,13 @@ import graphql.ParseAndValidateResult;
 import graphql.schema.DataFetcher;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SortTest {
 
@@ -363,4 +367,69 @@ public class SortTest {
         );
     }
 
+    @Test
+    public void stableSortByManyKeys() {
+        Map<String, Map<String, DataFetcher>> dataFetcherInfoMap = GraphQLSourceHolder.defaultDataFetcherInfo();
+        GraphQLSource graphQLSource = GraphQLSourceHolder.getGraphQLByDataFetcherMap(dataFetcherInfoMap);
+
+        String query = "" +
+                "query stableSortByManyKeys($userIds: [Int]){\n" +
+                "    consumer{\n" +
+                "        userInfoList(userIds: $userIds)\n" +
+                "        @sortBy(comparator: \"userId%3\", reversed: true)\n" +
+                "        {\n" +
+                "            userId\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), DefaultConfig.newConfig().build());
+        assert !validateResult.isFailure();
+
+        List<Integer> userIds = new ArrayList<>();
+        for (int userId = 1; userId <= 20; userId++) {
+            userIds.add(userId);
+        }
+        ExecutionInput input = ExecutionInput.newExecutionInput(query)
+                .variables(Collections.singletonMap("userIds", userIds))
+                .build();
+
+        ExecutionResult executionResult = graphQLSource.getGraphQL().execute(input);
+        assert executionResult.getErrors().isEmpty();
+        Map<String, Map<String, List<Map<String, Object>>>> data = executionResult.getData();
+        List<Object> sortedUserIds = new ArrayList<>();
+        for (Map<String, Object> userInfo : data.get("consumer").get("userInfoList")) {
+            sortedUserIds.add(userInfo.get("userId"));
+        }
+        // the elements with equal key keep the order of query.
+        assert Objects.equals(
+                sortedUserIds,
+                Arrays.asList(2, 5, 8, 11, 14, 17, 20, 1, 4, 7, 10, 13, 16, 19, 3, 6, 9, 12, 15, 18)
+        );
+    }
+
+    @Test
+    public void computeSortKeyOnce() {
+        AtomicInteger keyCount = new AtomicInteger();
+        List<Object> elements = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            elements.add(i % 4 == 0 ? null : (39 - i) / 2.0);
+        }
+        CollectionUtil.sortListOrArrayByKey(elements, element -> {
+            keyCount.incrementAndGet();
+            return element;
+        }, false);
+
+        assert keyCount.get() == 40;
+        for (int i = 1; i < 30; i++) {
+            assert (Double) elements.get(i - 1) <= (Double) elements.get(i);
+        }
+        for (int i = 30; i < 40; i++) {
+            assert elements.get(i) == null;
+        }
+
+        Object[] names = new Object[]{"b", "c", "a", null, "b"};
+        CollectionUtil.sortListOrArrayByKey(names, name -> name, true);
+        assert Objects.equals(Arrays.asList(names), Arrays.asList("c", "b", "b", "a", null));
+    }
+
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package calculator.engine.directive;
+
+import calculator.config.Config;
+import calculator.config.DefaultConfig;
+import calculator.graphql.DefaultGraphQLSourceBuilder;
+import calculator.graphql.GraphQLSource;
+import calculator.util.TestUtil;
+import calculator.validation.Validator;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ParseAndValidateResult;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+public class TimeoutTest {
+
+    private static final Config wrapperConfig = DefaultConfig.newConfig().build();
+
+    private static final GraphQLSource graphQLSource = createGraphQLSource();
+
+    private static GraphQLSource createGraphQLSource() {
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type(TypeRuntimeWiring.newTypeWiring("Query")
+                        // never completed
+                        .dataFetcher("slowName", environment -> new CompletableFuture<>())
+                        .dataFetcher("slowAge", environment -> new CompletableFuture<>())
+                        .dataFetcher("fastName", environment -> CompletableFuture.completedFuture("fast")))
+                .build();
+        GraphQLSchema schema = TestUtil.schemaBySpec(
+                "type Query {\n" +
+                        "    slowName: String\n" +
+                        "    slowAge: Int\n" +
+                        "    fastName: String\n" +
+                        "}",
+                runtimeWiring
+        );
+
+        return new DefaultGraphQLSourceBuilder().wrapperConfig(wrapperConfig).originalSchema(schema).build();
+    }
+
+    @Test
+    public void completeWithFallbackOrError() {
+        String query = "" +
+                "query {\n" +
+                "    withFallback: slowName @timeout(ms: 50, fallback: \"fallback\")\n" +
+                "    withoutFallback: slowName @timeout(ms: 50)\n" +
+                "    fastName @timeout(ms: 50)\n" +
+                "}";
+
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert !validateResult.isFailure();
+
+        ExecutionResult result = graphQLSource.getGraphQL().execute(ExecutionInput.newExecutionInput(query));
+        Map<String, Object> data = result.getData();
+        assert Objects.equals(data.get("withFallback"), "fallback");
+        assert data.get("withoutFallback") == null;
+        assert Objects.equals(data.get("fastName"), "fast");
+        assert result.getErrors().size() == 1;
+        assert result.getErrors().get(0).getMessage().contains("fetching field 'withoutFallback' exceeds 50 ms.");
+    }
+
+    @Test
+    public void msMustBePositiveNumber() {
+        String query = "" +
+                "query {\n" +
+                "    slowName @timeout(ms: 0)\n" +
+                "}";
+
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert validateResult.isFailure();
+        assert Objects.equals(
+                validateResult.getValidationErrors().get(0).getDescription(),
+                "the ms value of @timeout on {slowName} must be positive number."
+        );
+    }
+
+    @Test
+    public void fallbackMustBeUsedOnStringField() {
+        String query = "" +
+                "query {\n" +
+                "    slowAge @timeout(ms: 50, fallback: \"0\")\n" +
+                "}";
+
+        ParseAndValidateResult validateResult = Validator.validateQuery(query, graphQLSource.getWrappedSchema(), wrapperConfig);
+        assert validateResult.isFailure();
+        assert Objects.equals(
+                validateResult.getValidationErrors().get(0).getDescription(),
+                "the fallback of @timeout must be used on String type field, instead of {slowAge}."
+        );
+    }
+}
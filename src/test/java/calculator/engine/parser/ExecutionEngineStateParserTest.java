@@ -22,6 +22,7 @@ import calculator.config.Config;
 import calculator.config.DefaultConfig;
 import calculator.engine.ExecutionEngineState;
 import calculator.engine.ExecutionEngineStateParser;
+import calculator.engine.ExecutionPlan;
 import calculator.util.GraphQLSourceHolder;
 import calculator.engine.SchemaWrapper;
 import calculator.engine.metadata.FetchSourceTask;
@@ -89,4 +90,40 @@ public class ExecutionEngineStateParserTest {
         assert bindingItemIdsTask.isTopTask();
         assert bindingItemIdsTask.getResultKey().equals("bindingItemIds");
     }
+
+    @Test
+    public void executionPlanCreateIndependentState() {
+        String query = ""
+                + "query($userIds: [Int]){\n" +
+                "    consumer{\n" +
+                "        userInfoList(userIds: $userIds){\n" +
+                "            userId\n" +
+                "            @fetchSource(name: \"userIdList\")\n" +
+                "        }\n" +
+                "    }\n" +
+                "}";
+
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+                .schema(wrappedSchema)
+                .document(Parser.parse(query))
+                .variables(Collections.emptyMap()).build();
+
+        ExecutionEngineStateParser stateParser = new ExecutionEngineStateParser(wrappedSchema);
+        traverser.visitDepthFirst(stateParser);
+        ExecutionPlan executionPlan = stateParser.getExecutionPlan();
+        assert executionPlan.getSchema() == wrappedSchema;
+
+        ExecutionEngineState firstState = executionPlan.newExecutionState();
+        ExecutionEngineState secondState = executionPlan.newExecutionState();
+
+        FetchSourceTask firstListTask = firstState.getFetchSourceTaskByPath().get("consumer.userInfoList");
+        FetchSourceTask secondListTask = secondState.getFetchSourceTaskByPath().get("consumer.userInfoList");
+        assert firstListTask != secondListTask;
+        assert firstListTask.getTaskFuture() != secondListTask.getTaskFuture();
+        assert firstListTask.getChildrenTaskList().size() == 1;
+        assert firstListTask.getChildrenTaskList().get(0) == firstState.getFetchSourceTaskByPath().get("consumer.userInfoList.userId");
+
+        firstListTask.getTaskFuture().complete(null);
+        assert !secondListTask.getTaskFuture().isDone();
+    }
 }